@@ -174,7 +174,7 @@ SELECT
 FROM borrow_records br
 JOIN readers r ON br.reader_id = r.reader_id
 JOIN books b ON br.isbn = b.isbn
-WHERE br.status = 'BORROWED'
+WHERE br.status IN ('BORROWED', 'OVERDUE')
 ORDER BY br.due_date;
 
 -- Book statistics view
@@ -187,7 +187,7 @@ SELECT
     b.total_copies,
     b.available_copies,
     COUNT(br.record_id) AS total_borrows,
-    COUNT(CASE WHEN br.status = 'BORROWED' THEN 1 END) AS current_borrows,
+    COUNT(CASE WHEN br.status IN ('BORROWED', 'OVERDUE') THEN 1 END) AS current_borrows,
     COUNT(CASE WHEN br.status = 'RETURNED' THEN 1 END) AS total_returns,
     COALESCE(AVG(CASE 
         WHEN br.return_date IS NOT NULL 
@@ -208,7 +208,7 @@ SELECT
     r.current_borrows,
     r.total_borrowed,
     COUNT(br.record_id) AS verified_borrows,
-    COUNT(CASE WHEN br.status = 'BORROWED' THEN 1 END) AS currently_borrowing,
+    COUNT(CASE WHEN br.status IN ('BORROWED', 'OVERDUE') THEN 1 END) AS currently_borrowing,
     COUNT(CASE WHEN br.status = 'OVERDUE' THEN 1 END) AS overdue_count,
     COALESCE(SUM(br.fine), 0) AS total_fines
 FROM readers r
@@ -354,7 +354,7 @@ SELECT
     COUNT(*),
     NULL,
     NULL
-FROM borrow_records WHERE status = 'BORROWED'
+FROM borrow_records WHERE status IN ('BORROWED', 'OVERDUE')
 UNION ALL
 SELECT 
     'Overdue',
@@ -478,3 +478,357 @@ VALUES (
 ) ON CONFLICT (username) DO NOTHING;
 
 
+
+-- ==================== KEYSET PAGINATION INDEXES ====================
+-- Back the (sort key, primary key) ordering used by the paginated DAO methods,
+-- so every page is an index range scan instead of an OFFSET scan
+
+CREATE INDEX IF NOT EXISTS idx_books_title_isbn ON books(title, isbn);
+CREATE INDEX IF NOT EXISTS idx_readers_name_id ON readers(name, reader_id) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_records_borrow_date_id ON borrow_records(borrow_date DESC, record_id DESC);
+CREATE INDEX IF NOT EXISTS idx_inventory_logs_timestamp_id ON book_inventory_logs(timestamp DESC, log_id DESC);
+
+-- ==================== BOOK SEARCH INDEXES ====================
+-- Accent-insensitive search ("Nguyễn" matches "nguyen").
+-- unaccent() is only STABLE, so it is wrapped in an IMMUTABLE function usable in indexes.
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE OR REPLACE FUNCTION f_unaccent(text)
+RETURNS text AS $$
+    SELECT public.unaccent('public.unaccent', $1)
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Ranked word/prefix search (BookDAO.searchByTitle(title, limit), ...)
+CREATE INDEX IF NOT EXISTS idx_books_title_search ON books USING GIN(to_tsvector('simple', f_unaccent(title)));
+CREATE INDEX IF NOT EXISTS idx_books_author_search ON books USING GIN(to_tsvector('simple', f_unaccent(author)));
+CREATE INDEX IF NOT EXISTS idx_books_category_search ON books USING GIN(to_tsvector('simple', f_unaccent(category)));
+
+-- Substring search (BookDAO.searchByTitle(title), ...)
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING GIN(f_unaccent(lower(title)) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING GIN(f_unaccent(lower(author)) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_category_trgm ON books USING GIN(f_unaccent(lower(category)) gin_trgm_ops);
+
+-- ==================== BOOK CACHE INVALIDATION ====================
+-- Every desk instance caches books by ISBN and listens on books_changed.
+-- The payload is the changed ISBN, or '*' when the whole table was truncated.
+
+CREATE OR REPLACE FUNCTION books_notify_change()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('books_changed', '*');
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('books_changed', OLD.isbn);
+    ELSE
+        PERFORM pg_notify('books_changed', NEW.isbn);
+        IF TG_OP = 'UPDATE' AND OLD.isbn <> NEW.isbn THEN
+            PERFORM pg_notify('books_changed', OLD.isbn);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_books_notify_change ON books;
+CREATE TRIGGER trg_books_notify_change
+AFTER INSERT OR UPDATE OR DELETE ON books
+FOR EACH ROW EXECUTE FUNCTION books_notify_change();
+
+DROP TRIGGER IF EXISTS trg_books_notify_truncate ON books;
+CREATE TRIGGER trg_books_notify_truncate
+AFTER TRUNCATE ON books
+FOR EACH STATEMENT EXECUTE FUNCTION books_notify_change();
+
+-- ==================== CIRCULATION COUNTERS ====================
+-- Statistics and dashboard cards read these counters instead of running COUNT(*)
+-- over the source tables. The triggers below update them inside the same
+-- transaction as the change, so they are exact at commit time.
+--
+-- Level counters (row counts, copies) use bucket_date 1970-01-01.
+-- Flow counters use one bucket per day:
+--   borrows    - records created, by borrow_date
+--   returns    - records returned, by return_date
+--   loans_due  - open loans (BORROWED/OVERDUE), by due_date; the overdue count
+--                is the sum of the buckets before today
+-- Each counter is spread over 8 slots so concurrent desks rarely wait on the same row.
+-- A transaction always bumps the same slot (txid % 8): two transactions only meet
+-- on counter rows when they share a slot. Checkout and return lock the books and
+-- borrow_records counters in opposite orders, so BorrowRecordDAO retries them on
+-- the rare deadlock (40P01) that can then occur.
+-- CirculationCounterDAO.rebuild() recounts the source tables from one snapshot and
+-- adds the difference to the live counters, without blocking writes.
+
+CREATE TABLE IF NOT EXISTS library_counters (
+    counter_name VARCHAR(40) NOT NULL,
+    bucket_date DATE NOT NULL,
+    slot SMALLINT NOT NULL,
+    value BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (counter_name, bucket_date, slot)
+);
+
+CREATE OR REPLACE FUNCTION bump_counter(p_name TEXT, p_bucket DATE, p_delta BIGINT)
+RETURNS void AS $$
+BEGIN
+    IF p_delta = 0 OR p_bucket IS NULL THEN
+        RETURN;
+    END IF;
+    INSERT INTO library_counters (counter_name, bucket_date, slot, value)
+    VALUES (p_name, p_bucket, (txid_current() % 8)::SMALLINT, p_delta)
+    ON CONFLICT (counter_name, bucket_date, slot)
+    DO UPDATE SET value = library_counters.value + EXCLUDED.value;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION books_count_change()
+RETURNS trigger AS $$
+DECLARE
+    level CONSTANT DATE := DATE '1970-01-01';
+    old_rows INT := 0; new_rows INT := 0;
+    old_available INT := 0; new_available INT := 0;
+    old_total INT := 0; new_total INT := 0;
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        old_rows := 1;
+        old_total := OLD.total_copies;
+        old_available := OLD.available_copies;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        new_rows := 1;
+        new_total := NEW.total_copies;
+        new_available := NEW.available_copies;
+    END IF;
+
+    PERFORM bump_counter('books', level, new_rows - old_rows);
+    PERFORM bump_counter('books_available', level,
+        (new_available > 0)::INT - (old_available > 0)::INT);
+    PERFORM bump_counter('copies_total', level, new_total - old_total);
+    PERFORM bump_counter('copies_available', level, new_available - old_available);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_books_count_change ON books;
+CREATE TRIGGER trg_books_count_change
+AFTER INSERT OR UPDATE OF total_copies, available_copies OR DELETE ON books
+FOR EACH ROW EXECUTE FUNCTION books_count_change();
+
+CREATE OR REPLACE FUNCTION readers_count_change()
+RETURNS trigger AS $$
+DECLARE
+    level CONSTANT DATE := DATE '1970-01-01';
+    old_rows INT := 0; new_rows INT := 0;
+    old_active INT := 0; new_active INT := 0;
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        old_rows := 1;
+        old_active := (OLD.status = 'ACTIVE')::INT;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        new_rows := 1;
+        new_active := (NEW.status = 'ACTIVE')::INT;
+    END IF;
+
+    PERFORM bump_counter('readers', level, new_rows - old_rows);
+    PERFORM bump_counter('readers_active', level, new_active - old_active);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_readers_count_change ON readers;
+CREATE TRIGGER trg_readers_count_change
+AFTER INSERT OR UPDATE OF status OR DELETE ON readers
+FOR EACH ROW EXECUTE FUNCTION readers_count_change();
+
+CREATE OR REPLACE FUNCTION borrow_records_count_change()
+RETURNS trigger AS $$
+DECLARE
+    level CONSTANT DATE := DATE '1970-01-01';
+    old_status TEXT; new_status TEXT;
+    old_due DATE; new_due DATE;
+    old_open BOOLEAN := FALSE; new_open BOOLEAN := FALSE;
+    old_returned DATE; new_returned DATE;
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        old_status := OLD.status;
+        old_due := OLD.due_date;
+        old_open := OLD.status IN ('BORROWED', 'OVERDUE');
+        IF OLD.status = 'RETURNED' THEN old_returned := OLD.return_date; END IF;
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        new_status := NEW.status;
+        new_due := NEW.due_date;
+        new_open := NEW.status IN ('BORROWED', 'OVERDUE');
+        IF NEW.status = 'RETURNED' THEN new_returned := NEW.return_date; END IF;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        PERFORM bump_counter('loans', level, 1);
+        PERFORM bump_counter('borrows', NEW.borrow_date, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM bump_counter('loans', level, -1);
+        PERFORM bump_counter('borrows', OLD.borrow_date, -1);
+    ELSIF OLD.borrow_date IS DISTINCT FROM NEW.borrow_date THEN
+        PERFORM bump_counter('borrows', OLD.borrow_date, -1);
+        PERFORM bump_counter('borrows', NEW.borrow_date, 1);
+    END IF;
+
+    IF old_status IS DISTINCT FROM new_status THEN
+        IF old_status IS NOT NULL THEN
+            PERFORM bump_counter('loans_' || lower(old_status), level, -1);
+        END IF;
+        IF new_status IS NOT NULL THEN
+            PERFORM bump_counter('loans_' || lower(new_status), level, 1);
+        END IF;
+    END IF;
+
+    IF old_open IS DISTINCT FROM new_open OR old_due IS DISTINCT FROM new_due THEN
+        IF old_open THEN PERFORM bump_counter('loans_due', old_due, -1); END IF;
+        IF new_open THEN PERFORM bump_counter('loans_due', new_due, 1); END IF;
+    END IF;
+
+    IF old_returned IS DISTINCT FROM new_returned THEN
+        PERFORM bump_counter('returns', old_returned, -1);
+        PERFORM bump_counter('returns', new_returned, 1);
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_borrow_records_count_change ON borrow_records;
+CREATE TRIGGER trg_borrow_records_count_change
+AFTER INSERT OR UPDATE OF status, borrow_date, due_date, return_date OR DELETE ON borrow_records
+FOR EACH ROW EXECUTE FUNCTION borrow_records_count_change();
+
+-- ==================== MATERIALIZED STATISTICS ====================
+-- v_book_statistics and v_reader_statistics re-aggregate all of borrow_records
+-- on every read. The same queries are kept in materialized views, refreshed
+-- with REFRESH ... CONCURRENTLY by the application's maintenance scheduler
+-- (db.stats.refreshIntervalSec), and the plain views now read from them.
+-- stats_refresh_log records when each one was last refreshed, so readers can
+-- tell how stale the numbers are.
+
+-- Open loans are BORROWED or OVERDUE (the overdue sweep moves them to
+-- OVERDUE). Views built before their counts included OVERDUE are dropped and
+-- rebuilt, which also fills them with current data; the comment set below
+-- marks the current definition.
+DO $$
+BEGIN
+    IF to_regclass('mv_book_statistics') IS NOT NULL
+       AND obj_description('mv_book_statistics'::regclass, 'pg_class') IS DISTINCT FROM 'open loans: BORROWED, OVERDUE' THEN
+        DROP MATERIALIZED VIEW mv_book_statistics CASCADE;
+        UPDATE stats_refresh_log SET refreshed_at = CURRENT_TIMESTAMP WHERE view_name = 'mv_book_statistics';
+    END IF;
+    IF to_regclass('mv_reader_statistics') IS NOT NULL
+       AND obj_description('mv_reader_statistics'::regclass, 'pg_class') IS DISTINCT FROM 'open loans: BORROWED, OVERDUE' THEN
+        DROP MATERIALIZED VIEW mv_reader_statistics CASCADE;
+        UPDATE stats_refresh_log SET refreshed_at = CURRENT_TIMESTAMP WHERE view_name = 'mv_reader_statistics';
+    END IF;
+END $$;
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS mv_book_statistics AS
+SELECT 
+    b.isbn,
+    b.title,
+    b.author,
+    b.category,
+    b.total_copies,
+    b.available_copies,
+    COUNT(br.record_id) AS total_borrows,
+    COUNT(CASE WHEN br.status IN ('BORROWED', 'OVERDUE') THEN 1 END) AS current_borrows,
+    COUNT(CASE WHEN br.status = 'RETURNED' THEN 1 END) AS total_returns,
+    COALESCE(AVG(CASE 
+        WHEN br.return_date IS NOT NULL 
+        THEN br.return_date - br.borrow_date 
+    END), 0) AS avg_borrow_days
+FROM books b
+LEFT JOIN borrow_records br ON b.isbn = br.isbn
+GROUP BY b.isbn, b.title, b.author, b.category, b.total_copies, b.available_copies;
+
+-- Unique index required by REFRESH ... CONCURRENTLY
+CREATE UNIQUE INDEX IF NOT EXISTS idx_mv_book_statistics_isbn ON mv_book_statistics(isbn);
+CREATE INDEX IF NOT EXISTS idx_mv_book_statistics_borrows ON mv_book_statistics(total_borrows DESC, isbn);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS mv_reader_statistics AS
+SELECT 
+    r.reader_id,
+    r.name,
+    r.email,
+    r.membership_type,
+    r.current_borrows,
+    r.total_borrowed,
+    COUNT(br.record_id) AS verified_borrows,
+    COUNT(CASE WHEN br.status IN ('BORROWED', 'OVERDUE') THEN 1 END) AS currently_borrowing,
+    COUNT(CASE WHEN br.status = 'OVERDUE' THEN 1 END) AS overdue_count,
+    COALESCE(SUM(br.fine), 0) AS total_fines
+FROM readers r
+LEFT JOIN borrow_records br ON r.reader_id = br.reader_id
+WHERE r.is_active = TRUE
+GROUP BY r.reader_id, r.name, r.email, r.membership_type, 
+         r.current_borrows, r.total_borrowed;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_mv_reader_statistics_id ON mv_reader_statistics(reader_id);
+CREATE INDEX IF NOT EXISTS idx_mv_reader_statistics_borrowed ON mv_reader_statistics(total_borrowed DESC, reader_id);
+
+COMMENT ON MATERIALIZED VIEW mv_book_statistics IS 'open loans: BORROWED, OVERDUE';
+COMMENT ON MATERIALIZED VIEW mv_reader_statistics IS 'open loans: BORROWED, OVERDUE';
+
+CREATE OR REPLACE VIEW v_book_statistics AS
+SELECT * FROM mv_book_statistics ORDER BY total_borrows DESC;
+
+CREATE OR REPLACE VIEW v_reader_statistics AS
+SELECT * FROM mv_reader_statistics ORDER BY total_borrowed DESC;
+
+CREATE TABLE IF NOT EXISTS stats_refresh_log (
+    view_name VARCHAR(63) PRIMARY KEY,
+    refreshed_at TIMESTAMP NOT NULL,
+    duration_ms BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO stats_refresh_log (view_name, refreshed_at)
+VALUES ('mv_book_statistics', CURRENT_TIMESTAMP), ('mv_reader_statistics', CURRENT_TIMESTAMP)
+ON CONFLICT (view_name) DO NOTHING;
+
+-- v_overdue_report depends on CURRENT_DATE, so it stays a plain view; this
+-- partial index turns it into a range scan over open loans only
+CREATE INDEX IF NOT EXISTS idx_records_open_due ON borrow_records(due_date)
+WHERE status IN ('BORROWED', 'OVERDUE');
+
+-- ==================== ID SEQUENCES ====================
+-- Source of the numeric part of record, reader and librarian IDs. The
+-- application leases blocks of values (IdAllocator), so IDs stay unique when
+-- several desks create rows at the same time. Seeding is idempotent: it only
+-- ever moves a sequence forward, past the highest ID already in the table.
+
+CREATE SEQUENCE IF NOT EXISTS borrow_record_id_seq;
+CREATE SEQUENCE IF NOT EXISTS reader_id_seq;
+CREATE SEQUENCE IF NOT EXISTS librarian_id_seq;
+
+SELECT setval('borrow_record_id_seq', GREATEST(
+    (SELECT last_value FROM borrow_record_id_seq),
+    (SELECT COALESCE(MAX(substring(record_id FROM 3)::BIGINT), 0) FROM borrow_records WHERE record_id ~ '^BR[0-9]+$'),
+    1));
+
+SELECT setval('reader_id_seq', GREATEST(
+    (SELECT last_value FROM reader_id_seq),
+    (SELECT COALESCE(MAX(substring(reader_id FROM 2)::BIGINT), 0) FROM readers WHERE reader_id ~ '^R[0-9]+$'),
+    1));
+
+SELECT setval('librarian_id_seq', GREATEST(
+    (SELECT last_value FROM librarian_id_seq),
+    (SELECT COALESCE(MAX(substring(employee_id FROM 4)::BIGINT), 0) FROM librarians WHERE employee_id ~ '^LIB[0-9]+$'),
+    1));
+
+-- ==================== PAGED TABLE INDEXES ====================
+-- Filtered keyset pages (findPage(PageQuery, ...)) behind the lazily paged
+-- tables: a reader's history, the open loans on the borrow screen and the
+-- inventory log filtered by action, each read in the default order
+
+CREATE INDEX IF NOT EXISTS idx_records_reader_borrow_date_id
+    ON borrow_records(reader_id, borrow_date DESC, record_id DESC);
+CREATE INDEX IF NOT EXISTS idx_records_open_borrow_date_id
+    ON borrow_records(borrow_date DESC, record_id DESC) WHERE status IN ('BORROWED', 'OVERDUE');
+CREATE INDEX IF NOT EXISTS idx_inventory_logs_action_timestamp_id
+    ON book_inventory_logs(action_type, timestamp DESC, log_id DESC);
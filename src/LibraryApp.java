@@ -1,9 +1,13 @@
 import database.config.DatabaseConfig;
+import database.impl.BookCache;
+import database.impl.InventoryLogWriter;
+import database.impl.MaintenanceScheduler;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import views.LoginView;
+import views.ViewTasks;
 
 public class LibraryApp extends Application {
 
@@ -61,7 +65,11 @@ public class LibraryApp extends Application {
     public void stop() {
         // Cleanup when application closes
         System.out.println("Application closing...");
-        // Close database connections, etc.
+        ViewTasks.shutdown();
+        MaintenanceScheduler.getInstance().stop();
+        BookCache.getInstance().stop();
+        InventoryLogWriter.getInstance().shutdown();
+        DatabaseConfig.shutdown();
     }
 
     public static void main(String[] args) {
@@ -4,8 +4,16 @@ import database.impl.LibraryService;
 import database.impl.UserDAOImpl;
 import models.books.*;
 import models.people.*;
+import models.BookStatistics;
 import models.BorrowRecord;
+import models.CirculationCounters;
+import models.OverdueReport;
+import models.PopularityEntry;
+import models.ReaderStatistics;
+import models.Report;
 import models.enums.MembershipType;
+import models.enums.PopularityDimension;
+import models.enums.PopularityWindow;
 import models.enums.UserRole;
 
 import java.util.ArrayList;
@@ -394,11 +402,13 @@ public class Main {
         switch (choice) {
             case 1:
                 String title = getStringInput("Nhập tên sách: ");
-                displaySearchResults(library.searchByTitle(title));
+                List<Book> byTitle = library.searchByTitle(title);
+                displaySearchResults(byTitle.isEmpty() ? fuzzyResults(library.searchByTitleFuzzy(title, 20)) : byTitle);
                 break;
             case 2:
                 String author = getStringInput("Nhập tên tác giả: ");
-                displaySearchResults(library.searchByAuthor(author));
+                List<Book> byAuthor = library.searchByAuthor(author);
+                displaySearchResults(byAuthor.isEmpty() ? fuzzyResults(library.searchByAuthorFuzzy(author, 20)) : byAuthor);
                 break;
             case 3:
                 String isbn = getStringInput("Nhập ISBN: ");
@@ -419,6 +429,13 @@ public class Main {
         }
     }
 
+    private static List<Book> fuzzyResults(List<Book> results) {
+        if (!results.isEmpty()) {
+            System.out.println(" Không có kết quả khớp chính xác, hiển thị kết quả gần đúng:");
+        }
+        return results;
+    }
+
     private static void displaySearchResults(List<Book> results) {
         if (results.isEmpty()) {
             System.out.println(" Không tìm thấy kết quả.");
@@ -647,16 +664,108 @@ public class Main {
             int choice = getIntInput("Chọn: ");
 
             switch (choice) {
-                case 1: library.generatePopularBooksReport(); break;
-                case 2: library.generateActiveReadersReport(); break;
-                case 3: library.generateOverdueReport(); break;
-                case 4: library.generateMonthlyStatistics(); break;
+                case 1: printPopularBooksReport(); break;
+                case 2: printActiveReadersReport(); break;
+                case 3: printOverdueReport(); break;
+                case 4: printMonthlyStatistics(); break;
                 case 5: return;
                 default: System.out.println(" Lựa chọn không hợp lệ!");
             }
         }
     }
 
+    private static void printPopularBooksReport() {
+        System.out.println("\n=== TOP 5 SÁCH ĐƯỢC MƯỢN NHIỀU NHẤT ===");
+        Report<List<BookStatistics>> report = library.generatePopularBooksReport(5);
+        if (report == null) {
+            return;
+        }
+        for (BookStatistics book : report.getData()) {
+            System.out.println(book.getTitle() + " - " + book.getTotalBorrows() + " lần");
+        }
+        printReportFooter(report);
+
+        List<PopularityEntry> trending = library.getTrending(PopularityDimension.BOOK, PopularityWindow.LAST_7_DAYS, 5);
+        if (!trending.isEmpty()) {
+            System.out.println("\n--- Mượn nhiều trong 7 ngày qua ---");
+            for (PopularityEntry entry : trending) {
+                System.out.println(entry.getLabel() + " - " + (entry.isExact() ? "" : "~") + entry.getCount() + " lần");
+            }
+        }
+    }
+
+    private static void printActiveReadersReport() {
+        System.out.println("\n=== TOP 5 ĐỘC GIẢ TÍCH CỰC NHẤT ===");
+        Report<List<ReaderStatistics>> report = library.generateActiveReadersReport(5);
+        if (report == null) {
+            return;
+        }
+        for (ReaderStatistics reader : report.getData()) {
+            System.out.println(reader.getName() + " - " + reader.getTotalBorrowed() + " lần");
+        }
+        printReportFooter(report);
+    }
+
+    private static void printOverdueReport() {
+        System.out.println("\n=== DANH SÁCH SÁCH QUÁ HẠN ===");
+        String after = null;
+        while (true) {
+            Report<OverdueReport> report = library.generateOverdueReport(20, after);
+            if (report == null) {
+                return;
+            }
+            OverdueReport overdue = report.getData();
+            if (overdue.getTotalCount() == 0) {
+                System.out.println("Không có sách quá hạn.");
+                return;
+            }
+            if (after == null) {
+                System.out.printf("Tổng số: %d phiếu - Tổng phí phạt: %,.0f VND%n",
+                        overdue.getTotalCount(), overdue.getTotalFines());
+            }
+            for (BorrowRecord record : overdue.getRecords()) {
+                System.out.println(record.getInfo() + " - Trễ: " + record.getDaysLate() + " ngày");
+            }
+            if (!overdue.hasNext()) {
+                printReportFooter(report);
+                return;
+            }
+            System.out.print("Xem trang tiếp? (y/n): ");
+            if (!scanner.nextLine().trim().toLowerCase().equals("y")) {
+                return;
+            }
+            after = overdue.getNextCursor();
+        }
+    }
+
+    private static void printMonthlyStatistics() {
+        System.out.println("\n=== THỐNG KÊ THÁNG NÀY ===");
+        Report<CirculationCounters> report = library.generateMonthlyStatistics();
+        if (report == null) {
+            return;
+        }
+        CirculationCounters counters = report.getData();
+        System.out.println("Tổng số sách: " + counters.getTotalBooks());
+        System.out.println("Tổng số độc giả: " + counters.getTotalReaders());
+        System.out.println("Số lần mượn: " + counters.getTotalLoans());
+        System.out.println("Lượt mượn tháng này: " + counters.getBorrowsThisMonth());
+        System.out.println("Lượt trả tháng này: " + counters.getReturnsThisMonth());
+        System.out.println("Đang được mượn: " + counters.getActiveLoans());
+        System.out.println("Sách quá hạn: " + counters.getOverdueLoans());
+        printReportFooter(report);
+    }
+
+    private static void printReportFooter(Report<?> report) {
+        if (report.isLive()) {
+            System.out.println("(Báo cáo tạo lúc " + report.getGeneratedAt().withNano(0) + ")");
+        } else if (report.getDataAsOf() == null) {
+            System.out.println("(Số liệu chưa được tính lần nào)");
+        } else {
+            System.out.println("(Số liệu tính lúc " + report.getDataAsOf().withNano(0) +
+                    (report.isRefreshLate() ? " - đang trễ" : "") + ")");
+        }
+    }
+
     // ========== UTILITY FUNCTIONS ==========
 
     // Reader-specific functions
@@ -671,7 +780,7 @@ public class Main {
 
         List<BorrowRecord> borrowing = new ArrayList<>();
         for (BorrowRecord record : records) {
-            if (record.getStatus() == models.enums.BorrowStatus.BORROWED) {
+            if (record.getStatus().isOpen()) {
                 borrowing.add(record);
             }
         }
@@ -894,6 +1003,7 @@ public class Main {
         int choice = getIntInput("Chọn: ");
 
         try {
+            database.impl.InventoryLogWriter.getInstance().flush();
             database.dao.BookInventoryLogDAO logDAO = new database.impl.BookInventoryLogDAOImpl();
             java.util.List<models.BookInventoryLog> logs = null;
 
@@ -0,0 +1,345 @@
+package database.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small built-in JDBC connection pool used behind {@link DatabaseConfig#getConnection()}.
+ *
+ * Physical connections are handed out wrapped in a proxy whose close() returns the
+ * connection to the pool instead of closing the socket. The pool keeps between
+ * minSize and maxSize physical connections, evicts connections idle for too long,
+ * validates connections that sat idle before handing them out, and logs the stack
+ * of callers that hold a connection longer than the leak threshold.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long acquireTimeoutMs;
+    private final long validationIdleMs;
+    private final int validationTimeoutSec;
+    private final long leakThresholdMs;
+
+    // LIFO so the most recently used (warm) connection is reused first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password, Properties props) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+
+        this.minSize = intProperty(props, "db.pool.minSize", 2);
+        this.maxSize = Math.max(1, intProperty(props, "db.pool.maxSize", 10));
+        this.idleTimeoutMs = longProperty(props, "db.pool.idleTimeoutMs", 300_000);
+        this.acquireTimeoutMs = longProperty(props, "db.pool.acquireTimeoutMs", 10_000);
+        this.validationIdleMs = longProperty(props, "db.pool.validationIdleMs", 5_000);
+        this.validationTimeoutSec = intProperty(props, "db.pool.validationTimeoutSec", 2);
+        this.leakThresholdMs = longProperty(props, "db.pool.leakThresholdMs", 30_000);
+        long housekeepingMs = longProperty(props, "db.pool.housekeepingMs", 30_000);
+
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingMs, housekeepingMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool.
+     * The returned connection must be closed by the caller (try-with-resources),
+     * which hands it back to the pool.
+     * @return Pooled connection
+     * @throws SQLException if no connection becomes available within the acquisition timeout
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMs + " ms waiting for a database connection " +
+                        "(active: " + borrowed.size() + ", max: " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowStack = leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.put(pooled, Boolean.TRUE);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close all idle connections and stop the housekeeper.
+     * Borrowed connections are closed when their holders release them.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    public int getActiveCount() { return borrowed.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getTotalCount() { return totalCount.get(); }
+    public int getMaxSize() { return maxSize; }
+
+    // ========== HELPER METHODS ==========
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return createPhysical();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            // Validate only connections that sat idle long enough to have been dropped
+            boolean needsValidation = System.currentTimeMillis() - pooled.lastReturnedAt >= validationIdleMs;
+            return !needsValidation || pooled.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            resetState(pooled.physical);
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            pooled.borrowStack = null;
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            // Connection is in an unknown state, do not hand it out again
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void resetState(Connection physical) throws SQLException {
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        if (physical.isReadOnly()) {
+            physical.setReadOnly(false);
+        }
+        physical.clearWarnings();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalCount.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction, never going below minSize
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalCount.get() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastReturnedAt >= idleTimeoutMs && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        // Keep minSize warm connections around
+        while (!closed && totalCount.get() < minSize) {
+            try {
+                PooledConnection pooled = createPhysical();
+                pooled.lastReturnedAt = now;
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Connection pool could not open a connection: " + e.getMessage());
+                break;
+            }
+        }
+
+        // Leak detection
+        if (leakThresholdMs > 0) {
+            for (PooledConnection pooled : borrowed.keySet()) {
+                if (!pooled.leakReported && now - pooled.borrowedAt >= leakThresholdMs) {
+                    pooled.leakReported = true;
+                    System.err.println("Possible connection leak: connection held for " +
+                            (now - pooled.borrowedAt) + " ms without being closed");
+                    if (pooled.borrowStack != null) {
+                        pooled.borrowStack.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        return (int) longProperty(props, key, defaultValue);
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    // ========== POOLED CONNECTION ==========
+
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt = System.currentTimeMillis();
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Logical connection handed to callers. close() returns the physical
+     * connection to the pool and closes any statements the caller left open.
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean logicallyClosed = false;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close":
+                    closeLogical();
+                    return null;
+                case "isClosed":
+                    return logicallyClosed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+
+            if (logicallyClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private synchronized void closeLogical() {
+            if (logicallyClosed) {
+                return;
+            }
+            logicallyClosed = true;
+            for (Statement stmt : statements) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                    // Statement already unusable, nothing to do
+                }
+            }
+            statements.clear();
+            release(pooled);
+        }
+    }
+}
@@ -3,12 +3,18 @@ package database.config;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.sql.*;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseConfig {
     private static final String URL;
     private static final String USER;
     private static final String PASSWORD;
+    private static final Properties PROPS;
+    private static final ConnectionPool POOL;
+    // Run, in registration order, before the pool closes
+    private static final List<Runnable> SHUTDOWN_TASKS = new CopyOnWriteArrayList<>();
 
     static {
         try {
@@ -23,6 +29,12 @@ public class DatabaseConfig {
                 USER = props.getProperty("db.user");
                 PASSWORD = props.getProperty("db.password");
             }
+            PROPS = props;
+
+            // Connection pool sized from db.pool.* properties
+            POOL = new ConnectionPool(URL, USER, PASSWORD, props);
+            // One hook, so that registered tasks still find the pool open
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConfig::shutdown, "db-pool-shutdown"));
 
         } catch (ClassNotFoundException e) {
             System.err.println(" PostgreSQL JDBC Driver not found!");
@@ -34,10 +46,55 @@ public class DatabaseConfig {
     }
 
 
+    /**
+     * Borrow a pooled connection. Closing it returns it to the pool.
+     */
     public static Connection getConnection() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    /**
+     * Open a physical connection outside the pool, for long-lived sessions
+     * such as LISTEN. The caller owns it and must close it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
         return DriverManager.getConnection(URL, USER, PASSWORD);
     }
 
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    /**
+     * Read an optional setting from config.properties
+     */
+    public static String getProperty(String key, String defaultValue) {
+        return PROPS.getProperty(key, defaultValue);
+    }
+
+    /**
+     * Run something that still needs the database (e.g. a final flush) when
+     * the pool shuts down, on exit or through shutdown(). Tasks may run more
+     * than once and must tolerate it.
+     */
+    public static void addShutdownTask(Runnable task) {
+        SHUTDOWN_TASKS.add(task);
+    }
+
+    /**
+     * Run the shutdown tasks, then close the pool
+     */
+    public static void shutdown() {
+        for (Runnable task : SHUTDOWN_TASKS) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Shutdown task failed: " + e.getMessage());
+            }
+        }
+        POOL.shutdown();
+    }
+
 
     public static boolean testConnection() {
         try (Connection conn = getConnection()) {
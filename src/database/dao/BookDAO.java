@@ -4,6 +4,7 @@ import models.books.Book;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookDAO {
     /**
@@ -36,6 +37,14 @@ public interface BookDAO {
      */
     Book findByISBN(String isbn) throws SQLException;
 
+    /**
+     * Find several books by ISBN in one query
+     * @param isbns ISBNs to look up
+     * @return Books in the order of isbns; ISBNs not found are skipped
+     * @throws SQLException if query fails
+     */
+    List<Book> findByISBNs(List<String> isbns) throws SQLException;
+
     /**
      * Get all books
      * @return List of all books
@@ -43,6 +52,31 @@ public interface BookDAO {
      */
     List<Book> findAll() throws SQLException;
 
+    /**
+     * Get one page of books ordered by title, then ISBN
+     * @param pageSize Maximum number of books to return (at least 1)
+     * @param after Cursor from the previous page, or null for the first page
+     * @return Page of books with the cursor of the next page
+     * @throws SQLException if query fails
+     */
+    Page<Book> findPage(int pageSize, String after) throws SQLException;
+
+    /**
+     * Stream all books ordered by ISBN through a server-side cursor, so the
+     * whole table never has to fit in memory. The stream holds a connection
+     * and must be closed (try-with-resources).
+     * @param fetchSize Number of rows fetched per round trip
+     * @return Lazily mapped stream of books
+     * @throws SQLException if the query cannot be started
+     */
+    Stream<Book> streamAll(int fetchSize) throws SQLException;
+
+    /**
+     * Stream all books using the configured db.fetchSize
+     * @see #streamAll(int)
+     */
+    Stream<Book> streamAll() throws SQLException;
+
     /**
      * Search books by title (partial match)
      * @param title Title to search
@@ -67,6 +101,28 @@ public interface BookDAO {
      */
     List<Book> searchByCategory(String category) throws SQLException;
 
+    /**
+     * Ranked full-text search on title. Matches word prefixes, ignores
+     * Vietnamese diacritics and uses the title search index.
+     * @param title Words to search for
+     * @param limit Maximum number of results
+     * @return Matching books, best match first
+     * @throws SQLException if query fails
+     */
+    List<Book> searchByTitle(String title, int limit) throws SQLException;
+
+    /**
+     * Ranked full-text search on author
+     * @see #searchByTitle(String, int)
+     */
+    List<Book> searchByAuthor(String author, int limit) throws SQLException;
+
+    /**
+     * Ranked full-text search on category
+     * @see #searchByTitle(String, int)
+     */
+    List<Book> searchByCategory(String category, int limit) throws SQLException;
+
     /**
      * Get available book count
      * @return Number of available books
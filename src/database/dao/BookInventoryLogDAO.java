@@ -3,7 +3,9 @@ package database.dao;
 import models.BookInventoryLog;
 
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookInventoryLogDAO {
 
@@ -12,6 +14,12 @@ public interface BookInventoryLogDAO {
      */
     void save(BookInventoryLog log) throws SQLException;
 
+    /**
+     * Save several log entries in one JDBC batch and one transaction.
+     * Generated log IDs are not read back.
+     */
+    void saveAll(List<BookInventoryLog> logs) throws SQLException;
+
     /**
      * Get all logs for a specific ISBN
      */
@@ -27,8 +35,41 @@ public interface BookInventoryLogDAO {
      */
     List<BookInventoryLog> findRecent(int limit) throws SQLException;
 
+    /**
+     * Count logs written at or after the given time
+     * @param since Start time, or null to count all logs
+     */
+    long countSince(LocalDateTime since) throws SQLException;
+
     /**
      * Get all logs
      */
     List<BookInventoryLog> findAll() throws SQLException;
+
+    /**
+     * Get one page of logs, newest first
+     * @param pageSize Maximum number of logs to return (at least 1)
+     * @param after Cursor from the previous page, or null for the first page
+     */
+    Page<BookInventoryLog> findPage(int pageSize, String after) throws SQLException;
+
+    /**
+     * Get one page of logs in the query's order.
+     * Sort columns: timestamp (default, newest first), isbn, actionType, quantityChange.
+     * Filters: actionType, isbn (exact). The search text matches ISBN, performer or notes.
+     * @param after Cursor from the previous page of the same query, or null for the first page
+     * @throws IllegalArgumentException for an unknown sort column or filter
+     */
+    Page<BookInventoryLog> findPage(PageQuery query, int pageSize, String after) throws SQLException;
+
+    /**
+     * Stream all logs in insertion order through a server-side cursor.
+     * The stream holds a connection and must be closed (try-with-resources).
+     */
+    Stream<BookInventoryLog> streamAll(int fetchSize) throws SQLException;
+
+    /**
+     * Stream all logs using the configured db.fetchSize
+     */
+    Stream<BookInventoryLog> streamAll() throws SQLException;
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package database.dao;
 
 import models.BorrowRecord;
+import models.CheckoutResult;
+import models.OverdueSweepResult;
+import models.ReturnResult;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BorrowRecordDAO {
     /**
@@ -13,6 +17,26 @@ public interface BorrowRecordDAO {
      */
     void save(BorrowRecord record) throws SQLException;
 
+    /**
+     * Check out a book atomically: reserve one of the reader's borrow slots,
+     * take one available copy and create the record in a single transaction.
+     * @param readerId Reader ID
+     * @param isbn Book ISBN
+     * @return Result with the new record, or the reason the checkout was refused
+     * @throws SQLException if the transaction fails
+     */
+    CheckoutResult checkout(String readerId, String isbn) throws SQLException;
+
+    /**
+     * Return a book atomically: mark the record RETURNED with its fine, give the
+     * copy back and free the reader's slot in a single transaction.
+     * @param recordId ID of the record being returned
+     * @param finePerDay Fine charged for each day past the due date
+     * @return Result of the return, or null if the record is not BORROWED/OVERDUE
+     * @throws SQLException if the transaction fails
+     */
+    ReturnResult returnRecord(String recordId, double finePerDay) throws SQLException;
+
     /**
      * Update existing borrow record
      * @param record BorrowRecord with updated data
@@ -43,6 +67,41 @@ public interface BorrowRecordDAO {
      */
     List<BorrowRecord> findAll() throws SQLException;
 
+    /**
+     * Get one page of borrow records, newest borrow date first, then record ID
+     * @param pageSize Maximum number of records to return (at least 1)
+     * @param after Cursor from the previous page, or null for the first page
+     * @return Page of records with the cursor of the next page
+     * @throws SQLException if query fails
+     */
+    Page<BorrowRecord> findPage(int pageSize, String after) throws SQLException;
+
+    /**
+     * Get one page of borrow records in the query's order.
+     * Sort columns: borrowDate (default, newest first), dueDate, recordId, title, reader.
+     * Filters: readerId; status (a BorrowStatus name, or OPEN for borrowed and overdue).
+     * The search text matches record ID, reader ID, reader name or book title.
+     * @param after Cursor from the previous page of the same query, or null for the first page
+     * @throws IllegalArgumentException for an unknown sort column, filter or status
+     * @throws SQLException if query fails
+     */
+    Page<BorrowRecord> findPage(PageQuery query, int pageSize, String after) throws SQLException;
+
+    /**
+     * Stream all borrow records ordered by record ID through a server-side
+     * cursor. The stream holds a connection and must be closed (try-with-resources).
+     * @param fetchSize Number of rows fetched per round trip
+     * @return Lazily mapped stream of records
+     * @throws SQLException if the query cannot be started
+     */
+    Stream<BorrowRecord> streamAll(int fetchSize) throws SQLException;
+
+    /**
+     * Stream all borrow records using the configured db.fetchSize
+     * @see #streamAll(int)
+     */
+    Stream<BorrowRecord> streamAll() throws SQLException;
+
     /**
      * Find all borrow records for a reader
      * @param readerId Reader ID
@@ -60,14 +119,37 @@ public interface BorrowRecordDAO {
     List<BorrowRecord> findByISBN(String isbn) throws SQLException;
 
     /**
-     * Get all overdue records
+     * Get all overdue records (status OVERDUE, set by markOverdue)
      * @return List of overdue records
      * @throws SQLException if query fails
      */
     List<BorrowRecord> findOverdue() throws SQLException;
 
     /**
-     * Get all active (borrowed) records
+     * Get one page of overdue records, oldest due date first, then record ID
+     * @param pageSize Maximum number of records to return (at least 1)
+     * @param after Cursor from the previous page, or null for the first page
+     * @return Page of records with the cursor of the next page
+     * @throws SQLException if query fails
+     */
+    Page<BorrowRecord> findOverduePage(int pageSize, String after) throws SQLException;
+
+    /**
+     * Get overdue record count
+     * @return Number of records with status OVERDUE
+     * @throws SQLException if query fails
+     */
+    int getOverdueCount() throws SQLException;
+
+    /**
+     * Get the sum of fines-to-date of all overdue records
+     * @return Total fines
+     * @throws SQLException if query fails
+     */
+    double getOverdueFineTotal() throws SQLException;
+
+    /**
+     * Get all active (borrowed or overdue) records
      * @return List of active borrow records
      * @throws SQLException if query fails
      */
@@ -90,8 +172,18 @@ public interface BorrowRecordDAO {
 
     /**
      * Get active borrow count
-     * @return Number of currently borrowed books
+     * @return Number of books currently on loan (BORROWED or OVERDUE)
      * @throws SQLException if query fails
      */
     int getActiveCount() throws SQLException;
+
+    /**
+     * Move loans past their due date to OVERDUE and bring the fine of every
+     * overdue loan up to today, in chunks of at most chunkSize rows
+     * @param finePerDay Fine charged for each day past the due date
+     * @param chunkSize Rows updated per transaction
+     * @return Sweep outcome, or null if another desk is already sweeping
+     * @throws SQLException if the update fails
+     */
+    OverdueSweepResult markOverdue(double finePerDay, int chunkSize) throws SQLException;
 }
@@ -0,0 +1,33 @@
+package database.dao;
+
+import models.CirculationCounters;
+import models.DashboardSummary;
+
+import java.sql.SQLException;
+
+public interface CirculationCounterDAO {
+
+    /**
+     * Read all circulation counters in one query. Counters are maintained by
+     * triggers, so this does not scan books, readers or borrow_records.
+     * Rebuilds the counters first if they were never initialized.
+     * @return Current counter values
+     * @throws SQLException if query fails
+     */
+    CirculationCounters getSnapshot() throws SQLException;
+
+    /**
+     * Read the counters together with the user account counts in one query,
+     * for the dashboard cards (busiest day is not included).
+     * @return Current headline numbers
+     * @throws SQLException if query fails
+     */
+    DashboardSummary getDashboardSummary() throws SQLException;
+
+    /**
+     * Recompute every counter from the source tables (repair job) and correct
+     * any drift. Reads a snapshot, so it does not block writes.
+     * @throws SQLException if rebuild fails
+     */
+    void rebuild() throws SQLException;
+}
@@ -0,0 +1,22 @@
+package database.dao;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list.
+ * nextCursor is an opaque token to pass as "after" for the following page,
+ * or null when this is the last page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,63 @@
+package database.dao;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sort, search text and filters of a keyset-paginated list.
+ *
+ * Immutable; the with... methods return a modified copy. Sort columns and
+ * filter names are defined by the DAO method that takes the query; unknown
+ * ones are rejected there. A null sort column means the DAO's default order.
+ */
+public final class PageQuery {
+
+    public static final PageQuery DEFAULT = new PageQuery(null, true, null, Map.of());
+
+    private final String sortBy;
+    private final boolean descending;
+    private final String search;
+    private final Map<String, String> filters;
+
+    private PageQuery(String sortBy, boolean descending, String search, Map<String, String> filters) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.search = search;
+        this.filters = filters;
+    }
+
+    public PageQuery withSort(String sortBy, boolean descending) {
+        return new PageQuery(sortBy, descending, search, filters);
+    }
+
+    /**
+     * @param search Text to look for (accent- and case-insensitive), blank for none
+     */
+    public PageQuery withSearch(String search) {
+        String trimmed = search != null ? search.trim() : "";
+        return new PageQuery(sortBy, descending, trimmed.isEmpty() ? null : trimmed, filters);
+    }
+
+    /**
+     * @param value Required value, or null to drop the filter
+     */
+    public PageQuery withFilter(String name, String value) {
+        Map<String, String> copy = new HashMap<>(filters);
+        if (value == null) {
+            copy.remove(name);
+        } else {
+            copy.put(name, value);
+        }
+        return new PageQuery(sortBy, descending, search, Collections.unmodifiableMap(copy));
+    }
+
+    public String getSortBy() { return sortBy; }
+    public boolean isDescending() { return descending; }
+    public String getSearch() { return search; }
+    public Map<String, String> getFilters() { return filters; }
+
+    public String getFilter(String name) {
+        return filters.get(name);
+    }
+}
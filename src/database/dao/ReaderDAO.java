@@ -43,6 +43,15 @@ public interface ReaderDAO {
      */
     List<Reader> findAll() throws SQLException;
 
+    /**
+     * Get one page of active readers ordered by name, then reader ID
+     * @param pageSize Maximum number of readers to return (at least 1)
+     * @param after Cursor from the previous page, or null for the first page
+     * @return Page of readers with the cursor of the next page
+     * @throws SQLException if query fails
+     */
+    Page<Reader> findPage(int pageSize, String after) throws SQLException;
+
     /**
      * Find readers by membership type
      * @param membershipType Membership type to search
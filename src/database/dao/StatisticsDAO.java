@@ -0,0 +1,61 @@
+package database.dao;
+
+import models.BookStatistics;
+import models.ReaderStatistics;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+public interface StatisticsDAO {
+    String BOOK_STATISTICS = "mv_book_statistics";
+    String READER_STATISTICS = "mv_reader_statistics";
+
+    /**
+     * Most borrowed books, read from mv_book_statistics
+     * @param limit Maximum number of books
+     * @return Books ordered by total borrows, with the time they were computed
+     * @throws SQLException if query fails
+     */
+    StatisticsSnapshot<List<BookStatistics>> findTopBooks(int limit) throws SQLException;
+
+    /**
+     * Statistics of one book
+     * @param isbn ISBN of the book
+     * @return Statistics (data is null if the book is not in the last refresh)
+     * @throws SQLException if query fails
+     */
+    StatisticsSnapshot<BookStatistics> findBookStatistics(String isbn) throws SQLException;
+
+    /**
+     * Readers who borrowed the most, read from mv_reader_statistics
+     * @param limit Maximum number of readers
+     * @return Readers ordered by total borrowed, with the time they were computed
+     * @throws SQLException if query fails
+     */
+    StatisticsSnapshot<List<ReaderStatistics>> findTopReaders(int limit) throws SQLException;
+
+    /**
+     * Statistics of one reader
+     * @param readerId ID of the reader
+     * @return Statistics (data is null if the reader is not in the last refresh)
+     * @throws SQLException if query fails
+     */
+    StatisticsSnapshot<ReaderStatistics> findReaderStatistics(String readerId) throws SQLException;
+
+    /**
+     * Total borrows of every book borrowed at least once, read from mv_book_statistics
+     * @return Borrows by ISBN
+     * @throws SQLException if query fails
+     */
+    Map<String, Long> findBorrowCounts() throws SQLException;
+
+    /**
+     * Refresh one materialized view with REFRESH ... CONCURRENTLY, unless
+     * another desk is already refreshing it
+     * @param viewName BOOK_STATISTICS or READER_STATISTICS
+     * @return true if refreshed here, false if another instance holds the refresh
+     * @throws SQLException if refresh fails
+     */
+    boolean refresh(String viewName) throws SQLException;
+}
@@ -0,0 +1,37 @@
+package database.dao;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Data read from a periodically refreshed materialized view, together with
+ * when it was computed. Changes made after refreshedAt are not reflected;
+ * getMaxStaleness() is the longest that can normally be while the refresh
+ * schedule is running.
+ */
+public class StatisticsSnapshot<T> {
+    private final T data;
+    private final LocalDateTime refreshedAt;
+    private final Duration refreshInterval;
+
+    public StatisticsSnapshot(T data, LocalDateTime refreshedAt, Duration refreshInterval) {
+        this.data = data;
+        this.refreshedAt = refreshedAt;
+        this.refreshInterval = refreshInterval;
+    }
+
+    public T getData() { return data; }
+    public LocalDateTime getRefreshedAt() { return refreshedAt; }
+    public Duration getMaxStaleness() { return refreshInterval; }
+
+    /** Time since the data was computed */
+    public Duration getAge() {
+        return refreshedAt != null ? Duration.between(refreshedAt, LocalDateTime.now()) : null;
+    }
+
+    /** True if the scheduled refresh is late (e.g. no desk has been running it) */
+    public boolean isOverdue() {
+        Duration age = getAge();
+        return age == null || age.compareTo(refreshInterval.multipliedBy(2)) > 0;
+    }
+}
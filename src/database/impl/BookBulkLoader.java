@@ -0,0 +1,356 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import models.books.Book;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk catalog ingestion.
+ *
+ * Books are written in chunks, each chunk as one multi-row INSERT plus one
+ * multi-row INSERT of the matching book_inventory_logs rows, in a single
+ * transaction. A row that breaks a constraint does not abort the load: the
+ * chunk is replayed row by row behind savepoints and only the bad rows are
+ * reported as rejects. Any other error (timeout, deadlock, lost connection)
+ * fails the chunk as a whole, so it can be loaded again.
+ *
+ * In upsert mode an existing ISBN gets its details replaced and the incoming
+ * copies added to its stock (same meaning as addOrUpdateBookInventory);
+ * otherwise existing ISBNs are rejected.
+ */
+public class BookBulkLoader {
+
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int BOOK_COLUMNS = 11;
+    private static final int LOG_COLUMNS = 7;
+    private static final int MAX_CHUNK_SIZE = 65535 / BOOK_COLUMNS;
+
+    private static final String INSERT_PREFIX = "INSERT INTO books (isbn, title, author, publisher, publish_year, " +
+            "category, total_copies, available_copies, price, book_type, extra_info) VALUES ";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb)";
+    private static final String ON_CONFLICT_SKIP = " ON CONFLICT (isbn) DO NOTHING";
+    private static final String ON_CONFLICT_UPSERT = " ON CONFLICT (isbn) DO UPDATE SET " +
+            "title = EXCLUDED.title, author = EXCLUDED.author, publisher = EXCLUDED.publisher, " +
+            "publish_year = EXCLUDED.publish_year, category = EXCLUDED.category, price = EXCLUDED.price, " +
+            "extra_info = EXCLUDED.extra_info, " +
+            "total_copies = books.total_copies + EXCLUDED.total_copies, " +
+            "available_copies = books.available_copies + EXCLUDED.total_copies";
+    // xmax = 0 only for freshly inserted rows, which tells inserts from upserted updates
+    private static final String RETURNING = " RETURNING isbn, total_copies, (xmax = 0) AS inserted";
+
+    private static final String LOG_PREFIX = "INSERT INTO book_inventory_logs (isbn, quantity_change, " +
+            "total_copies_after, action_type, performed_by, timestamp, notes) VALUES ";
+    private static final String LOG_VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final String LOG_NOTES = "Nhập danh mục hàng loạt";
+
+    private final int chunkSize;
+    private final boolean upsert;
+    private final String performedBy;
+
+    /**
+     * @param chunkSize Rows written per transaction (capped by the bind parameter limit)
+     * @param upsert Add copies to existing ISBNs instead of rejecting them
+     * @param performedBy Librarian ID written to the inventory logs
+     */
+    public BookBulkLoader(int chunkSize, boolean upsert, String performedBy) {
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        this.upsert = upsert;
+        this.performedBy = performedBy;
+    }
+
+    /**
+     * Load all books, one chunk at a time.
+     * @param books Books to load; consumed lazily, so a Stream::iterator works
+     * @param progress Called after each chunk with its statistics (may be null)
+     * @return Totals and every rejected row
+     * @throws SQLException if the database becomes unusable (not for bad rows)
+     */
+    public Result load(Iterable<Book> books, Consumer<ChunkStats> progress) throws SQLException {
+        Result result = new Result();
+        Iterator<Book> it = books.iterator();
+        int chunkNumber = 0;
+
+        while (it.hasNext()) {
+            List<Book> chunk = new ArrayList<>(chunkSize);
+            while (it.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(it.next());
+            }
+
+            ChunkStats stats = loadChunk(++chunkNumber, chunk, result.rejects);
+            result.add(stats);
+            if (progress != null) {
+                progress.accept(stats);
+            }
+        }
+
+        return result;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private ChunkStats loadChunk(int chunkNumber, List<Book> chunk, List<Reject> rejects) throws SQLException {
+        long start = System.nanoTime();
+        int rejectsBefore = rejects.size();
+        List<Book> valid = validate(chunk, rejects);
+        List<WrittenRow> written;
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try {
+                    written = insertBooks(conn, valid);
+                } catch (SQLException e) {
+                    // Timeouts, deadlocks and lost connections fail the whole chunk, to be retried
+                    if (!SqlStates.has(e, SqlStates.INTEGRITY_VIOLATION_CLASS)) {
+                        throw e;
+                    }
+                    // Some row broke a constraint: replay one by one to isolate it
+                    conn.rollback();
+                    written = insertRowByRow(conn, valid, rejects);
+                }
+
+                if (!upsert) {
+                    rejectSkipped(valid, written, rejects, rejectsBefore);
+                }
+                insertLogs(conn, written);
+                conn.commit();
+
+                for (WrittenRow row : written) {
+                    BookCache.getInstance().invalidate(row.book.getISBN());
+                }
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            // Nothing of the chunk was committed, so none of its rows counts as rejected
+            rejects.subList(rejectsBefore, rejects.size()).clear();
+            throw new SQLException("Error loading chunk " + chunkNumber + ": " + e.getMessage(), e);
+        }
+
+        int inserted = 0;
+        for (WrittenRow row : written) {
+            if (row.inserted) inserted++;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new ChunkStats(chunkNumber, chunk.size(), inserted, written.size() - inserted,
+                rejects.size() - rejectsBefore, elapsedNanos / 1_000_000);
+    }
+
+    private List<Book> validate(List<Book> chunk, List<Reject> rejects) {
+        List<Book> valid = new ArrayList<>(chunk.size());
+        Set<String> seen = new HashSet<>();
+
+        for (Book book : chunk) {
+            String reason = null;
+            if (book == null) {
+                reason = "Empty row";
+            } else if (book.getISBN() == null || book.getISBN().isBlank()) {
+                reason = "Missing ISBN";
+            } else if (book.getTitle() == null || book.getAuthor() == null) {
+                reason = "Missing title or author";
+            } else if (book.getTotalCopies() < 0 || book.getAvailableCopies() < 0
+                    || book.getAvailableCopies() > book.getTotalCopies()) {
+                reason = "Invalid copy counts";
+            } else if (!seen.add(book.getISBN())) {
+                // ON CONFLICT cannot touch the same row twice in one statement
+                reason = "Duplicate ISBN in the same chunk";
+            }
+
+            if (reason != null) {
+                rejects.add(new Reject(book != null ? book.getISBN() : null, reason));
+            } else {
+                valid.add(book);
+            }
+        }
+        return valid;
+    }
+
+    private List<WrittenRow> insertBooks(Connection conn, List<Book> books) throws SQLException {
+        List<WrittenRow> written = new ArrayList<>(books.size());
+        if (books.isEmpty()) {
+            return written;
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW_VALUES);
+        }
+        sql.append(upsert ? ON_CONFLICT_UPSERT : ON_CONFLICT_SKIP).append(RETURNING);
+
+        Map<String, Book> byIsbn = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                BookDAOImpl.setBookParameters(pstmt, i * BOOK_COLUMNS, book);
+                byIsbn.put(book.getISBN(), book);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = byIsbn.get(rs.getString("isbn"));
+                    written.add(new WrittenRow(book, rs.getInt("total_copies"), rs.getBoolean("inserted")));
+                }
+            }
+        }
+        return written;
+    }
+
+    private List<WrittenRow> insertRowByRow(Connection conn, List<Book> books, List<Reject> rejects) throws SQLException {
+        List<WrittenRow> written = new ArrayList<>(books.size());
+
+        for (Book book : books) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                written.addAll(insertBooks(conn, List.of(book)));
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                if (!SqlStates.has(e, SqlStates.INTEGRITY_VIOLATION_CLASS)) {
+                    throw e;
+                }
+                conn.rollback(savepoint);
+                rejects.add(new Reject(book.getISBN(), e.getMessage()));
+            }
+        }
+        return written;
+    }
+
+    private void rejectSkipped(List<Book> valid, List<WrittenRow> written, List<Reject> rejects, int rejectsBefore) {
+        // Rows neither written nor already rejected in this chunk were skipped by ON CONFLICT
+        Set<String> handled = new HashSet<>();
+        for (WrittenRow row : written) {
+            handled.add(row.book.getISBN());
+        }
+        for (Reject reject : rejects.subList(rejectsBefore, rejects.size())) {
+            handled.add(reject.getIsbn());
+        }
+        for (Book book : valid) {
+            if (!handled.contains(book.getISBN())) {
+                rejects.add(new Reject(book.getISBN(), "ISBN already exists"));
+            }
+        }
+    }
+
+    private void insertLogs(Connection conn, List<WrittenRow> written) throws SQLException {
+        if (written.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(LOG_PREFIX);
+        for (int i = 0; i < written.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(LOG_VALUES);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < written.size(); i++) {
+                WrittenRow row = written.get(i);
+                int offset = i * LOG_COLUMNS;
+                pstmt.setString(offset + 1, row.book.getISBN());
+                pstmt.setInt(offset + 2, row.book.getTotalCopies());
+                pstmt.setInt(offset + 3, row.totalAfter);
+                pstmt.setString(offset + 4, row.inserted ? "ADD_NEW" : "INCREASE_STOCK");
+                pstmt.setString(offset + 5, performedBy);
+                pstmt.setTimestamp(offset + 6, now);
+                pstmt.setString(offset + 7, LOG_NOTES);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static class WrittenRow {
+        private final Book book;
+        private final int totalAfter;
+        private final boolean inserted;
+
+        WrittenRow(Book book, int totalAfter, boolean inserted) {
+            this.book = book;
+            this.totalAfter = totalAfter;
+            this.inserted = inserted;
+        }
+    }
+
+    // ========== RESULT TYPES ==========
+
+    public static class ChunkStats {
+        private final int chunkNumber;
+        private final int rows;
+        private final int inserted;
+        private final int updated;
+        private final int rejected;
+        private final long elapsedMs;
+
+        ChunkStats(int chunkNumber, int rows, int inserted, int updated, int rejected, long elapsedMs) {
+            this.chunkNumber = chunkNumber;
+            this.rows = rows;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.rejected = rejected;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMs > 0 ? rows * 1000.0 / elapsedMs : rows;
+        }
+
+        public int getChunkNumber() { return chunkNumber; }
+        public int getRows() { return rows; }
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getRejected() { return rejected; }
+        public long getElapsedMs() { return elapsedMs; }
+    }
+
+    public static class Reject {
+        private final String isbn;
+        private final String reason;
+
+        Reject(String isbn, String reason) {
+            this.isbn = isbn;
+            this.reason = reason;
+        }
+
+        public String getIsbn() { return isbn; }
+        public String getReason() { return reason; }
+    }
+
+    public static class Result {
+        private final List<ChunkStats> chunks = new ArrayList<>();
+        private final List<Reject> rejects = new ArrayList<>();
+        private int inserted;
+        private int updated;
+        private long elapsedMs;
+
+        private void add(ChunkStats stats) {
+            chunks.add(stats);
+            inserted += stats.getInserted();
+            updated += stats.getUpdated();
+            elapsedMs += stats.getElapsedMs();
+        }
+
+        public List<ChunkStats> getChunks() { return chunks; }
+        public List<Reject> getRejects() { return rejects; }
+        public int getInserted() { return inserted; }
+        public int getUpdated() { return updated; }
+        public int getRejected() { return rejects.size(); }
+        public long getElapsedMs() { return elapsedMs; }
+    }
+}
@@ -0,0 +1,282 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import models.books.Book;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Process-wide cache of books by ISBN, used by {@link CachingBookDAO}.
+ *
+ * Entries expire after db.bookCache.ttlMs, which bounds how long an
+ * availability count can be stale even if a notification is lost. Changes
+ * made by other desk instances arrive through LISTEN books_changed (see the
+ * books_notify_change trigger in Script.sql) on a dedicated connection;
+ * while that connection is down the cache is cleared and stays bypassed.
+ * Other in-memory copies of books (BookSearchService) can follow the same
+ * notifications with addChangeListener.
+ */
+public class BookCache {
+
+    private static final String CHANNEL = "books_changed";
+    private static final long RECONNECT_DELAY_MS = 5_000;
+    private static final int POLL_TIMEOUT_MS = 1_000;
+
+    private static final BookCache INSTANCE = new BookCache();
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load racing with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile boolean listening = false;
+    private volatile Thread listener;
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private BookCache() {
+        this.enabled = Boolean.parseBoolean(DatabaseConfig.getProperty("db.bookCache.enabled", "true"));
+        this.maxSize = Math.max(1, Integer.parseInt(DatabaseConfig.getProperty("db.bookCache.maxSize", "2000").trim()));
+        this.ttlMs = Long.parseLong(DatabaseConfig.getProperty("db.bookCache.ttlMs", "5000").trim());
+    }
+
+    public static BookCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start listening for changes from other instances. Until the listener is
+     * connected, lookups bypass the cache.
+     */
+    public synchronized void start() {
+        if (!enabled || listener != null) {
+            return;
+        }
+        listener = new Thread(this::listenLoop, "book-cache-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Be told about books changed by any instance. Called on the listener
+     * thread, so it must return quickly, with the ISBN, or with null when any
+     * book may have changed (table truncated, or notifications missed while
+     * reconnecting).
+     */
+    public void addChangeListener(Consumer<String> changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    public synchronized void stop() {
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+        listening = false;
+        clear();
+    }
+
+    /**
+     * Cached copy of a book, or null on a miss
+     */
+    Book get(String isbn) {
+        if (!isActive() || isbn == null) {
+            return null;
+        }
+        Entry entry = entries.get(isbn);
+        if (entry == null || entry.isExpired()) {
+            if (entry != null) {
+                entries.remove(isbn, entry);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return BookDAOImpl.copyOf(entry.book);
+    }
+
+    /**
+     * Generation to pass to {@link #put} after loading from the database
+     */
+    long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Cache a freshly loaded book, unless something was invalidated since the
+     * load started (the loaded row may then already be stale)
+     */
+    void put(Book book, long loadedAtGeneration) {
+        if (!isActive() || book == null || generation.get() != loadedAtGeneration) {
+            return;
+        }
+        String isbn = book.getISBN();
+        entries.put(isbn, new Entry(BookDAOImpl.copyOf(book), System.currentTimeMillis() + ttlMs));
+        // A concurrent invalidation may have landed between the check and the put
+        if (generation.get() != loadedAtGeneration) {
+            entries.remove(isbn);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Drop one book, after it was changed by this process or another one
+     */
+    public void invalidate(String isbn) {
+        if (isbn == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.remove(isbn);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getInvalidations() { return invalidations.get(); }
+    public int getSize() { return entries.size(); }
+    public boolean isListening() { return listening; }
+
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private boolean isActive() {
+        return enabled && listening;
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.size() <= maxSize) {
+                return;
+            }
+            entries.entrySet().removeIf(e -> e.getValue().isExpired());
+
+            // Still full: drop the oldest tenth in one pass so eviction is not paid on every put
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess > 0) {
+                entries.entrySet().stream()
+                        .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList())
+                        .forEach(isbn -> {
+                            if (entries.remove(isbn) != null) {
+                                evictions.incrementAndGet();
+                            }
+                        });
+            }
+        }
+    }
+
+    private void listenLoop() {
+        boolean reconnecting = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = DatabaseConfig.openDedicatedConnection()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+
+                // Anything changed while we were not listening is unknown
+                clear();
+                listening = true;
+                if (reconnecting) {
+                    fireChanged(null);
+                }
+                reconnecting = true;
+
+                // Driver classes are only available at runtime, so go through reflection
+                Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection");
+                Object pgConn = conn.unwrap(pgConnectionClass);
+                Method getNotifications = pgConnectionClass.getMethod("getNotifications", int.class);
+                Method getParameter = Class.forName("org.postgresql.PGNotification").getMethod("getParameter");
+
+                while (!Thread.currentThread().isInterrupted()) {
+                    Object notifications = getNotifications.invoke(pgConn, POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < Array.getLength(notifications); i++) {
+                        Object notification = Array.get(notifications, i);
+                        String payload = (String) getParameter.invoke(notification);
+                        if (payload == null || payload.isEmpty() || "*".equals(payload)) {
+                            clear();
+                            fireChanged(null);
+                        } else {
+                            invalidate(payload);
+                            fireChanged(payload);
+                        }
+                    }
+                }
+
+            } catch (SQLException | ReflectiveOperationException e) {
+                System.err.println("Book cache listener disconnected: " + e.getMessage());
+            } finally {
+                listening = false;
+                clear();
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void fireChanged(String isbn) {
+        for (Consumer<String> changeListener : changeListeners) {
+            try {
+                changeListener.accept(isbn);
+            } catch (RuntimeException e) {
+                System.err.println("Book change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Book book;
+        private final long expiresAt;
+
+        Entry(Book book, long expiresAt) {
+            this.book = book;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
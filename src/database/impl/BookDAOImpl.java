@@ -2,11 +2,15 @@ package database.impl;
 
 import database.config.DatabaseConfig;
 import database.dao.BookDAO;
+import database.dao.Page;
 import models.books.*;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class BookDAOImpl implements BookDAO {
 
@@ -82,7 +86,7 @@ public class BookDAOImpl implements BookDAO {
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                return mapResultSetToBook(rs);
+                return mapResultSetToBook(rs, "");
             }
             return null;
 
@@ -91,6 +95,41 @@ public class BookDAOImpl implements BookDAO {
         }
     }
 
+    @Override
+    public List<Book> findByISBNs(List<String> isbns) throws SQLException {
+        if (isbns.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM books WHERE isbn = ANY(?)";
+        Map<String, Book> found = new HashMap<>();
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setArray(1, conn.createArrayOf("varchar", isbns.toArray()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                BookRowMapper mapper = new BookRowMapper("");
+                while (rs.next()) {
+                    Book book = mapper.map(rs);
+                    found.put(book.getISBN(), book);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error finding books: " + e.getMessage(), e);
+        }
+
+        List<Book> books = new ArrayList<>(found.size());
+        for (String isbn : isbns) {
+            Book book = found.get(isbn);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
     @Override
     public List<Book> findAll() throws SQLException {
         String sql = "SELECT * FROM books ORDER BY title";
@@ -100,8 +139,9 @@ public class BookDAOImpl implements BookDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            BookRowMapper mapper = new BookRowMapper("");
             while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
+                books.add(mapper.map(rs));
             }
 
         } catch (SQLException e) {
@@ -111,37 +151,105 @@ public class BookDAOImpl implements BookDAO {
         return books;
     }
 
+    @Override
+    public Page<Book> findPage(int pageSize, String after) throws SQLException {
+        KeysetCursor.checkPageSize(pageSize);
+        String[] key = null;
+        if (after != null) {
+            try {
+                key = KeysetCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw KeysetCursor.invalid("Error fetching book page: ", e);
+            }
+        }
+        String sql = after == null
+                ? "SELECT * FROM books ORDER BY title, isbn LIMIT ?"
+                : "SELECT * FROM books WHERE (title, isbn) > (?, ?) ORDER BY title, isbn LIMIT ?";
+        List<Book> books = new ArrayList<>();
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (key != null) {
+                pstmt.setString(index++, key[0]);
+                pstmt.setString(index++, key[1]);
+            }
+            // One extra row tells whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                BookRowMapper mapper = new BookRowMapper("");
+                while (rs.next()) {
+                    books.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching book page: " + e.getMessage(), e);
+        }
+
+        if (books.size() <= pageSize) {
+            return new Page<>(books, null);
+        }
+        books = books.subList(0, pageSize);
+        Book last = books.get(pageSize - 1);
+        return new Page<>(books, KeysetCursor.encode(last.getTitle(), last.getISBN()));
+    }
+
+    @Override
+    public Stream<Book> streamAll(int fetchSize) throws SQLException {
+        try {
+            return ResultSetStream.open("SELECT * FROM books ORDER BY isbn", fetchSize, new BookRowMapper(""));
+        } catch (SQLException e) {
+            throw new SQLException("Error streaming books: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Stream<Book> streamAll() throws SQLException {
+        return streamAll(ResultSetStream.defaultFetchSize());
+    }
+
+    // Substring searches compare unaccented lower-case text, backed by trigram indexes
+
     @Override
     public List<Book> searchByTitle(String title) throws SQLException {
-        String sql = "SELECT * FROM books WHERE LOWER(title) LIKE LOWER(?) ORDER BY title";
+        String sql = "SELECT * FROM books WHERE f_unaccent(lower(title)) LIKE f_unaccent(lower(?)) ORDER BY title";
         return searchBooks(sql, "%" + title + "%");
     }
 
     @Override
     public List<Book> searchByAuthor(String author) throws SQLException {
-        String sql = "SELECT * FROM books WHERE LOWER(author) LIKE LOWER(?) ORDER BY title";
+        String sql = "SELECT * FROM books WHERE f_unaccent(lower(author)) LIKE f_unaccent(lower(?)) ORDER BY title";
         return searchBooks(sql, "%" + author + "%");
     }
 
     @Override
     public List<Book> searchByCategory(String category) throws SQLException {
-        String sql = "SELECT * FROM books WHERE LOWER(category) LIKE LOWER(?) ORDER BY title";
+        String sql = "SELECT * FROM books WHERE f_unaccent(lower(category)) LIKE f_unaccent(lower(?)) ORDER BY title";
         return searchBooks(sql, "%" + category + "%");
     }
 
     @Override
-    public int getAvailableCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM books WHERE available_copies > 0";
+    public List<Book> searchByTitle(String title, int limit) throws SQLException {
+        return searchRanked("title", title, limit);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    @Override
+    public List<Book> searchByAuthor(String author, int limit) throws SQLException {
+        return searchRanked("author", author, limit);
+    }
 
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            return 0;
+    @Override
+    public List<Book> searchByCategory(String category, int limit) throws SQLException {
+        return searchRanked("category", category, limit);
+    }
 
+    @Override
+    public int getAvailableCount() throws SQLException {
+        try {
+            return (int) CirculationCounterDAOImpl.readLevel("books_available");
         } catch (SQLException e) {
             throw new SQLException("Error counting available books: " + e.getMessage(), e);
         }
@@ -158,8 +266,9 @@ public class BookDAOImpl implements BookDAO {
             pstmt.setString(1, param);
             ResultSet rs = pstmt.executeQuery();
 
+            BookRowMapper mapper = new BookRowMapper("");
             while (rs.next()) {
-                books.add(mapResultSetToBook(rs));
+                books.add(mapper.map(rs));
             }
 
         } catch (SQLException e) {
@@ -169,76 +278,128 @@ public class BookDAOImpl implements BookDAO {
         return books;
     }
 
-    private void setBookParameters(PreparedStatement pstmt, Book book) throws SQLException {
-        pstmt.setString(1, book.getISBN());
-        pstmt.setString(2, book.getTitle());
-        pstmt.setString(3, book.getAuthor());
-        pstmt.setString(4, book.getPublisher());
-        pstmt.setInt(5, book.getPublishYear());
-        pstmt.setString(6, book.getCategory());
-        pstmt.setInt(7, book.getTotalCopies());
-        pstmt.setInt(8, book.getAvailableCopies());
-        pstmt.setDouble(9, book.getPrice());
-        pstmt.setString(10, getBookType(book));
-        pstmt.setString(11, getExtraInfo(book));
+    /**
+     * Full-text search on one column. The expression must match the
+     * idx_books_*_search indexes in Script.sql for the index to be used.
+     */
+    private List<Book> searchRanked(String column, String text, int limit) throws SQLException {
+        String tsQuery = toPrefixTsQuery(text);
+        if (tsQuery.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String document = "to_tsvector('simple', f_unaccent(" + column + "))";
+        String sql = "SELECT b.*, ts_rank(" + document + ", q) AS rank " +
+                "FROM books b, to_tsquery('simple', f_unaccent(?)) q " +
+                "WHERE " + document + " @@ q " +
+                "ORDER BY rank DESC, title LIMIT ?";
+        List<Book> books = new ArrayList<>();
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, tsQuery);
+            pstmt.setInt(2, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                BookRowMapper mapper = new BookRowMapper("");
+                while (rs.next()) {
+                    books.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error searching books: " + e.getMessage(), e);
+        }
+
+        return books;
     }
 
-    private Book mapResultSetToBook(ResultSet rs) throws SQLException {
-        String bookType = rs.getString("book_type");
-        String isbn = rs.getString("isbn");
-        String title = rs.getString("title");
-        String author = rs.getString("author");
-        int totalCopies = rs.getInt("total_copies");
-        int availableCopies = rs.getInt("available_copies");
-
-        Book book = null;
-        String extraInfo = rs.getString("extra_info");
-
-        // Create appropriate book type
-        switch (bookType) {
-            case "TextBook":
-                String subject = extractFromJSON(extraInfo, "subject");
-                int grade = Integer.parseInt(extractFromJSON(extraInfo, "grade"));
-                book = new TextBook(isbn, title, author, totalCopies, subject, grade);
-                break;
-
-            case "ReferenceBook":
-                String topic = extractFromJSON(extraInfo, "topic");
-                book = new ReferenceBook(isbn, title, author, totalCopies, topic);
-                break;
-
-            case "Magazine":
-                int issueNumber = Integer.parseInt(extractFromJSON(extraInfo, "issueNumber"));
-                book = new Magazine(isbn, title, author, totalCopies, issueNumber);
-                break;
-
-            default:
-                throw new SQLException("Unknown book type: " + bookType);
+    /**
+     * Turn free text into a tsquery where every word must match as a prefix,
+     * e.g. "lap trinh" -> "lap:* & trinh:*". Only letters and digits are kept,
+     * so user input cannot inject tsquery operators.
+     */
+    private static String toPrefixTsQuery(String text) {
+        if (text == null) return "";
+
+        StringBuilder query = new StringBuilder();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (query.length() > 0) query.append(" & ");
+            query.append(word).append(":*");
         }
+        return query.toString();
+    }
 
-        // Set common properties
-        book.setPublisher(rs.getString("publisher"));
-        book.setPublishYear(rs.getInt("publish_year"));
-        book.setPrice(rs.getDouble("price"));
+    private void setBookParameters(PreparedStatement pstmt, Book book) throws SQLException {
+        setBookParameters(pstmt, 0, book);
+    }
+
+    /**
+     * Bind the 11 INSERT columns of a book starting after the given parameter offset,
+     * so several books can be bound into one multi-row INSERT.
+     */
+    static void setBookParameters(PreparedStatement pstmt, int offset, Book book) throws SQLException {
+        pstmt.setString(offset + 1, book.getISBN());
+        pstmt.setString(offset + 2, book.getTitle());
+        pstmt.setString(offset + 3, book.getAuthor());
+        pstmt.setString(offset + 4, book.getPublisher());
+        pstmt.setInt(offset + 5, book.getPublishYear());
+        pstmt.setString(offset + 6, book.getCategory());
+        pstmt.setInt(offset + 7, book.getTotalCopies());
+        pstmt.setInt(offset + 8, book.getAvailableCopies());
+        pstmt.setDouble(offset + 9, book.getPrice());
+        pstmt.setString(offset + 10, getBookType(book));
+        pstmt.setString(offset + 11, getExtraInfo(book));
+    }
+
+    /**
+     * Map a single book from columns named with the given prefix (e.g. "b_").
+     * Loops over many rows should reuse one {@link BookRowMapper} instead.
+     */
+    static Book mapResultSetToBook(ResultSet rs, String prefix) throws SQLException {
+        return new BookRowMapper(prefix).map(rs);
+    }
 
-        // CRITICAL FIX: Set available copies correctly
-        // Calculate how many times to call borrowBook() to match DB state
-        int borrowed = totalCopies - availableCopies;
-        for (int i = 0; i < borrowed; i++) {
-            book.borrowBook();
+    /**
+     * Independent copy of a book, so cached instances are never shared with callers
+     */
+    static Book copyOf(Book book) {
+        Book copy;
+        if (book instanceof TextBook) {
+            TextBook tb = (TextBook) book;
+            copy = new TextBook(tb.getISBN(), tb.getTitle(), tb.getAuthor(), tb.getTotalCopies(),
+                    tb.getSubject(), tb.getGrade());
+        } else if (book instanceof ReferenceBook) {
+            ReferenceBook rb = (ReferenceBook) book;
+            ReferenceBook ref = new ReferenceBook(rb.getISBN(), rb.getTitle(), rb.getAuthor(),
+                    rb.getTotalCopies(), rb.getTopic());
+            ref.setCanBorrow(rb.canBeBorrowed());
+            copy = ref;
+        } else if (book instanceof Magazine) {
+            Magazine m = (Magazine) book;
+            copy = new Magazine(m.getISBN(), m.getTitle(), m.getAuthor(), m.getTotalCopies(), m.getIssueNumber());
+        } else {
+            throw new IllegalArgumentException("Unknown book type: " + book.getClass().getSimpleName());
         }
 
-        return book;
+        copy.setCategory(book.getCategory());
+        copy.setPublisher(book.getPublisher());
+        copy.setPublishYear(book.getPublishYear());
+        copy.setPrice(book.getPrice());
+        copy.setAvailableCopies(book.getAvailableCopies());
+        return copy;
     }
 
-    private String getBookType(Book book) {
+    static String getBookType(Book book) {
         if (book instanceof TextBook) return "TextBook";
         if (book instanceof ReferenceBook) return "ReferenceBook";
         if (book instanceof Magazine) return "Magazine";
         return "Book";
     }
 
-    private String getExtraInfo(Book book) {
+    static String getExtraInfo(Book book) {
         if (book instanceof TextBook) {
             TextBook tb = (TextBook) book;
             return String.format("{\"subject\":\"%s\",\"grade\":%d}",
@@ -254,22 +415,8 @@ public class BookDAOImpl implements BookDAO {
         return "{}";
     }
 
-    private String extractFromJSON(String json, String key) {
-        if (json == null || json.isEmpty()) return "";
-
-        // Handle both quoted and unquoted values
-        String pattern = "\"" + key + "\"\\s*:\\s*\"?([^,}\"]+)\"?";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-
-        if (m.find()) {
-            return m.group(1).trim();
-        }
-        return "";
-    }
-
-    private String escapeJson(String value) {
+    private static String escapeJson(String value) {
         if (value == null) return "";
-        return value.replace("\"", "\\\"").replace("\n", "\\n");
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
     }
 }
\ No newline at end of file
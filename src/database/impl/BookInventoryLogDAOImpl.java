@@ -2,30 +2,37 @@ package database.impl;
 
 import database.config.DatabaseConfig;
 import database.dao.BookInventoryLogDAO;
+import database.dao.Page;
+import database.dao.PageQuery;
 import models.BookInventoryLog;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class BookInventoryLogDAOImpl implements BookInventoryLogDAO {
 
+    // Sort columns of findPage(PageQuery, ...)
+    private static final Map<String, KeysetSort<BookInventoryLog>> LOG_SORTS = Map.of(
+            "timestamp", new KeysetSort<>("timestamp",
+                    key -> Timestamp.valueOf(LocalDateTime.parse(key)), log -> log.getTimestamp().toString()),
+            "isbn", new KeysetSort<>("isbn", key -> key, BookInventoryLog::getIsbn),
+            "actionType", new KeysetSort<>("action_type", key -> key, BookInventoryLog::getActionType),
+            "quantityChange", new KeysetSort<>("quantity_change",
+                    Integer::valueOf, log -> String.valueOf(log.getQuantityChange())));
+
+    private static final String INSERT_SQL = "INSERT INTO book_inventory_logs (isbn, quantity_change, " +
+            "total_copies_after, action_type, performed_by, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     @Override
     public void save(BookInventoryLog log) throws SQLException {
-        String sql = "INSERT INTO book_inventory_logs (isbn, quantity_change, total_copies_after, " +
-                "action_type, performed_by, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setString(1, log.getIsbn());
-            pstmt.setInt(2, log.getQuantityChange());
-            pstmt.setInt(3, log.getTotalCopiesAfter());
-            pstmt.setString(4, log.getActionType());
-            pstmt.setString(5, log.getPerformedBy());
-            pstmt.setTimestamp(6, Timestamp.valueOf(log.getTimestamp()));
-            pstmt.setString(7, log.getNotes());
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
+            setLogParameters(pstmt, log);
             pstmt.executeUpdate();
 
             // Get generated log_id
@@ -39,6 +46,31 @@ public class BookInventoryLogDAOImpl implements BookInventoryLogDAO {
         }
     }
 
+    @Override
+    public void saveAll(List<BookInventoryLog> logs) throws SQLException {
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                for (BookInventoryLog log : logs) {
+                    setLogParameters(pstmt, log);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Error saving inventory logs: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<BookInventoryLog> findByISBN(String isbn) throws SQLException {
         String sql = "SELECT * FROM book_inventory_logs WHERE isbn = ? ORDER BY timestamp DESC";
@@ -105,6 +137,28 @@ public class BookInventoryLogDAOImpl implements BookInventoryLogDAO {
         return logs;
     }
 
+    @Override
+    public long countSince(LocalDateTime since) throws SQLException {
+        String sql = since == null
+                ? "SELECT COUNT(*) FROM book_inventory_logs"
+                : "SELECT COUNT(*) FROM book_inventory_logs WHERE timestamp >= ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            if (since != null) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error counting logs: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<BookInventoryLog> findAll() throws SQLException {
         String sql = "SELECT * FROM book_inventory_logs ORDER BY timestamp DESC";
@@ -125,7 +179,101 @@ public class BookInventoryLogDAOImpl implements BookInventoryLogDAO {
         return logs;
     }
 
+    @Override
+    public Page<BookInventoryLog> findPage(int pageSize, String after) throws SQLException {
+        return findPage(PageQuery.DEFAULT, pageSize, after);
+    }
+
+    @Override
+    public Page<BookInventoryLog> findPage(PageQuery query, int pageSize, String after) throws SQLException {
+        KeysetCursor.checkPageSize(pageSize);
+        KeysetSort<BookInventoryLog> sort = KeysetSort.resolve(LOG_SORTS, query.getSortBy(), "timestamp");
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        for (Map.Entry<String, String> filter : query.getFilters().entrySet()) {
+            switch (filter.getKey()) {
+                case "actionType":
+                    conditions.add("action_type = ?");
+                    break;
+                case "isbn":
+                    conditions.add("isbn = ?");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown inventory log filter: " + filter.getKey());
+            }
+            params.add(filter.getValue());
+        }
+
+        if (query.getSearch() != null) {
+            conditions.add("(isbn ILIKE ? OR performed_by ILIKE ? OR f_unaccent(lower(notes)) LIKE f_unaccent(lower(?)))");
+            String pattern = "%" + query.getSearch() + "%";
+            params.addAll(List.of(pattern, pattern, pattern));
+        }
+
+        if (after != null) {
+            try {
+                String[] key = KeysetCursor.decode(after);
+                params.add(sort.parseKey(key[0]));
+                params.add(Long.parseLong(key[1]));
+            } catch (IllegalArgumentException e) {
+                throw KeysetCursor.invalid("Error fetching log page: ", e);
+            }
+            conditions.add(sort.seekCondition("log_id", query.isDescending()));
+        }
+
+        String sql = "SELECT * FROM book_inventory_logs"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + sort.orderBy("log_id", query.isDescending()) + " LIMIT ?";
+        params.add(pageSize + 1);
+
+        List<BookInventoryLog> logs = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    logs.add(mapResultSetToLog(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching log page: " + e.getMessage(), e);
+        }
+
+        return sort.toPage(logs, pageSize, log -> String.valueOf(log.getLogId()));
+    }
+
+    @Override
+    public Stream<BookInventoryLog> streamAll(int fetchSize) throws SQLException {
+        try {
+            return ResultSetStream.open("SELECT * FROM book_inventory_logs ORDER BY log_id",
+                    fetchSize, this::mapResultSetToLog);
+        } catch (SQLException e) {
+            throw new SQLException("Error streaming logs: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Stream<BookInventoryLog> streamAll() throws SQLException {
+        return streamAll(ResultSetStream.defaultFetchSize());
+    }
+
     // Helper method
+    private void setLogParameters(PreparedStatement pstmt, BookInventoryLog log) throws SQLException {
+        pstmt.setString(1, log.getIsbn());
+        pstmt.setInt(2, log.getQuantityChange());
+        pstmt.setInt(3, log.getTotalCopiesAfter());
+        pstmt.setString(4, log.getActionType());
+        pstmt.setString(5, log.getPerformedBy());
+        pstmt.setTimestamp(6, Timestamp.valueOf(log.getTimestamp()));
+        pstmt.setString(7, log.getNotes());
+    }
+
     private BookInventoryLog mapResultSetToLog(ResultSet rs) throws SQLException {
         return new BookInventoryLog(
                 rs.getLong("log_id"),
@@ -0,0 +1,253 @@
+package database.impl;
+
+import models.books.Book;
+import models.books.Magazine;
+import models.books.ReferenceBook;
+import models.books.TextBook;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the books table (or columns of a join, using a prefix such as
+ * "b_") to Book objects.
+ *
+ * Column indices are looked up once per result set instead of by name on every
+ * row, and extra_info is read in place without regex or intermediate strings.
+ * One mapper is meant to be used for one query; it re-resolves the columns if
+ * handed a different result set.
+ */
+class BookRowMapper implements ResultSetStream.RowMapper<Book> {
+    private final String prefix;
+
+    private ResultSet resolvedFor;
+    private int isbnCol;
+    private int titleCol;
+    private int authorCol;
+    private int publisherCol;
+    private int publishYearCol;
+    private int totalCopiesCol;
+    private int availableCopiesCol;
+    private int priceCol;
+    private int bookTypeCol;
+    private int extraInfoCol;
+
+    BookRowMapper(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Book map(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            resolveColumns(rs);
+        }
+
+        String bookType = rs.getString(bookTypeCol);
+        String isbn = rs.getString(isbnCol);
+        String title = rs.getString(titleCol);
+        String author = rs.getString(authorCol);
+        int totalCopies = rs.getInt(totalCopiesCol);
+        int availableCopies = rs.getInt(availableCopiesCol);
+        String extraInfo = rs.getString(extraInfoCol);
+
+        Book book;
+        switch (bookType) {
+            case "TextBook":
+                book = new TextBook(isbn, title, author, totalCopies,
+                        stringValue(extraInfo, "subject"), intValue(extraInfo, "grade"));
+                break;
+
+            case "ReferenceBook":
+                ReferenceBook ref = new ReferenceBook(isbn, title, author, totalCopies,
+                        stringValue(extraInfo, "topic"));
+                ref.setCanBorrow(booleanValue(extraInfo, "canBorrow", true));
+                book = ref;
+                break;
+
+            case "Magazine":
+                book = new Magazine(isbn, title, author, totalCopies, intValue(extraInfo, "issueNumber"));
+                break;
+
+            default:
+                throw new SQLException("Unknown book type: " + bookType);
+        }
+
+        book.setPublisher(rs.getString(publisherCol));
+        book.setPublishYear(rs.getInt(publishYearCol));
+        book.setPrice(rs.getDouble(priceCol));
+        // Same bounds the entity enforces through borrowBook()/returnBook()
+        book.setAvailableCopies(Math.max(0, Math.min(availableCopies, totalCopies)));
+
+        return book;
+    }
+
+    private void resolveColumns(ResultSet rs) throws SQLException {
+        isbnCol = rs.findColumn(prefix + "isbn");
+        titleCol = rs.findColumn(prefix + "title");
+        authorCol = rs.findColumn(prefix + "author");
+        publisherCol = rs.findColumn(prefix + "publisher");
+        publishYearCol = rs.findColumn(prefix + "publish_year");
+        totalCopiesCol = rs.findColumn(prefix + "total_copies");
+        availableCopiesCol = rs.findColumn(prefix + "available_copies");
+        priceCol = rs.findColumn(prefix + "price");
+        bookTypeCol = rs.findColumn(prefix + "book_type");
+        extraInfoCol = rs.findColumn(prefix + "extra_info");
+        resolvedFor = rs;
+    }
+
+    // ========== EXTRA_INFO PARSING ==========
+    // extra_info is a flat JSON object written by BookDAOImpl.getExtraInfo
+
+    /**
+     * String value of a key, or "" if missing
+     */
+    static String stringValue(String json, String key) {
+        int start = valueStart(json, key);
+        if (start < 0) return "";
+
+        if (json.charAt(start) != '"') {
+            // Unquoted scalar, kept as written
+            int end = scalarEnd(json, start);
+            return json.substring(start, end).trim();
+        }
+
+        int end = start + 1;
+        while (end < json.length() && json.charAt(end) != '"') {
+            if (json.charAt(end) == '\\') {
+                return unescape(json, start + 1);
+            }
+            end++;
+        }
+        return json.substring(start + 1, end);
+    }
+
+    /**
+     * Integer value of a key (quoted or not), or 0 if missing
+     */
+    static int intValue(String json, String key) {
+        int i = valueStart(json, key);
+        if (i < 0) return 0;
+        if (json.charAt(i) == '"') i++;
+
+        boolean negative = i < json.length() && json.charAt(i) == '-';
+        if (negative) i++;
+
+        int value = 0;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    static boolean booleanValue(String json, String key, boolean defaultValue) {
+        int i = valueStart(json, key);
+        if (i < 0) return defaultValue;
+        if (json.startsWith("true", i)) return true;
+        if (json.startsWith("false", i)) return false;
+        return defaultValue;
+    }
+
+    /**
+     * Index of the first character of the value stored under key, or -1.
+     * Walks the top-level members and compares keys in place.
+     */
+    private static int valueStart(String json, String key) {
+        if (json == null) return -1;
+        int length = json.length();
+        int i = skipWhitespace(json, 0);
+        if (i >= length || json.charAt(i) != '{') return -1;
+        i++;
+
+        while (true) {
+            i = skipWhitespace(json, i);
+            if (i >= length || json.charAt(i) != '"') return -1;
+
+            int keyStart = i + 1;
+            int keyEnd = stringEnd(json, keyStart);
+            if (keyEnd >= length) return -1;
+
+            i = skipWhitespace(json, keyEnd + 1);
+            if (i >= length || json.charAt(i) != ':') return -1;
+            i = skipWhitespace(json, i + 1);
+            if (i >= length) return -1;
+
+            if (keyEnd - keyStart == key.length() && json.regionMatches(keyStart, key, 0, key.length())) {
+                return i;
+            }
+
+            // Skip this value and the following comma
+            i = json.charAt(i) == '"' ? stringEnd(json, i + 1) + 1 : scalarEnd(json, i);
+            i = skipWhitespace(json, i);
+            if (i >= length || json.charAt(i) != ',') return -1;
+            i++;
+        }
+    }
+
+    /**
+     * Index of the closing quote of a string whose content starts at start
+     */
+    private static int stringEnd(String json, int start) {
+        int i = start;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return json.length();
+    }
+
+    private static int scalarEnd(String json, int start) {
+        int i = start;
+        while (i < json.length() && json.charAt(i) != ',' && json.charAt(i) != '}') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Slow path for strings that contain escape sequences
+     */
+    private static String unescape(String json, int start) {
+        StringBuilder sb = new StringBuilder();
+        int i = start;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') break;
+            if (c != '\\' || i >= json.length()) {
+                sb.append(c);
+                continue;
+            }
+
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 <= json.length()) {
+                        sb.append((char) Integer.parseInt(json, i, i + 4, 16));
+                        i += 4;
+                    }
+                    break;
+                default: sb.append(escaped); break;
+            }
+        }
+        return sb.toString();
+    }
+}
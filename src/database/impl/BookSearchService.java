@@ -0,0 +1,291 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import models.books.Book;
+import search.BookSearchIndex;
+import search.Completion;
+import search.CompletionTrie;
+import search.SearchField;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the process-wide search structures in step with the books table:
+ * the BookSearchIndex and the title and author CompletionTries, whose
+ * completions are weighted by how often the books were borrowed.
+ *
+ * They are built from one streaming scan of books (plus the borrow counts of
+ * mv_book_statistics) on the maintenance thread, and rebuilt every
+ * db.searchIndex.rebuildHours as a safety net. Books added, updated or removed
+ * and checkouts made through this process are applied right away; books
+ * changed on other desks are re-read by ISBN when their books_changed
+ * notification arrives (through BookCache's listener, so only while the book
+ * cache is enabled). Changes made while a rebuild scans are replayed on the
+ * new structures before they replace the old ones. Until the first build
+ * finishes, search returns null and callers fall back to the database.
+ */
+public class BookSearchService {
+
+    private static final BookSearchService INSTANCE = new BookSearchService();
+
+    // Score factor per e-fold of borrows in fuzzy search: 100 borrows weigh about 1.5x
+    private static final double POPULARITY_BOOST = 0.1;
+
+    private final boolean enabled;
+    private final long rebuildHours;
+
+    private volatile Indexes indexes;
+    // ISBNs notified as changed elsewhere, re-read together by one maintenance job
+    private final Set<String> changedIsbns = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    // Guarded by this; non-null while a rebuild scan runs
+    private List<Consumer<Indexes>> pending;
+
+    private BookSearchService() {
+        this.enabled = Boolean.parseBoolean(DatabaseConfig.getProperty("db.searchIndex.enabled", "true"));
+        this.rebuildHours = Math.max(1, Long.parseLong(DatabaseConfig.getProperty("db.searchIndex.rebuildHours", "6").trim()));
+    }
+
+    public static BookSearchService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule the build on the maintenance thread (runs immediately, then
+     * every db.searchIndex.rebuildHours). Requires a started MaintenanceScheduler.
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        MaintenanceScheduler.getInstance().schedule(this::rebuild, 0, rebuildHours, TimeUnit.HOURS);
+        BookCache.getInstance().addChangeListener(this::bookChanged);
+    }
+
+    /**
+     * Build new structures from the books table and swap them in
+     */
+    public void rebuild() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        long start = System.currentTimeMillis();
+        Indexes fresh;
+        try {
+            fresh = new Indexes(new StatisticsDAOImpl().findBorrowCounts());
+            try (Stream<Book> books = new BookDAOImpl().streamAll()) {
+                books.forEach(fresh::add);
+            }
+        } catch (Exception e) {
+            System.err.println("Error building search index: " + e.getMessage());
+            synchronized (this) {
+                pending = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            // Saves and removals replace what is indexed for the ISBN, so replaying one the scan already saw is harmless
+            for (Consumer<Indexes> change : pending) {
+                change.accept(fresh);
+            }
+            pending = null;
+            indexes = fresh;
+        }
+        System.out.println(" Đã lập chỉ mục tìm kiếm cho " + fresh.books.size() + " sách (" +
+                (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Index a book that was added or updated, replacing what was indexed for its ISBN
+     */
+    public void bookSaved(Book book) {
+        apply(target -> target.add(book));
+    }
+
+    public void bookRemoved(String isbn) {
+        apply(target -> target.remove(isbn));
+    }
+
+    /**
+     * A books_changed notification: re-read the book on the maintenance thread
+     * @param isbn Changed book, or null if any book may have changed
+     */
+    void bookChanged(String isbn) {
+        if (isbn == null) {
+            MaintenanceScheduler.getInstance().submit(this::rebuild);
+            return;
+        }
+        changedIsbns.add(isbn);
+        if (reloadQueued.compareAndSet(false, true)) {
+            MaintenanceScheduler.getInstance().submit(this::reloadChanged);
+        }
+    }
+
+    /**
+     * Count a committed checkout in the completion weights
+     */
+    public void recordCheckout(Book book) {
+        if (book != null) {
+            apply(target -> target.recordCheckout(book));
+        }
+    }
+
+    /**
+     * Ranked ISBNs matching every word of the query (see BookSearchIndex.search)
+     * @param field Field to search in, or null for all fields
+     * @return ISBNs, best match first, or null if the index is not built yet
+     */
+    public List<String> search(String query, SearchField field, int limit) {
+        Indexes current = indexes;
+        return current != null ? current.books.search(query, field, limit) : null;
+    }
+
+    /**
+     * Typo-tolerant search (see BookSearchIndex.searchFuzzy); more borrowed
+     * books rank higher among similar matches
+     * @param field Field to search in, or null for all fields
+     * @return ISBNs, best match first, or null if the index is not built yet
+     */
+    public List<String> searchFuzzy(String query, SearchField field, int limit) {
+        Indexes current = indexes;
+        if (current == null) {
+            return null;
+        }
+        Map<String, Long> borrows = current.borrows;
+        return current.books.searchFuzzy(query, field, limit,
+                isbn -> 1 + POPULARITY_BOOST * Math.log1p(borrows.getOrDefault(isbn, 0L)));
+    }
+
+    /**
+     * Most borrowed titles and authors starting with the prefix
+     * @param field TITLE, AUTHOR, or null for both
+     * @param limit At most CompletionTrie.TOP_K
+     * @return Completions, most borrowed first (empty until the first build)
+     */
+    public List<Completion> complete(String prefix, SearchField field, int limit) {
+        Indexes current = indexes;
+        if (current == null) {
+            return List.of();
+        }
+        if (field == SearchField.TITLE) {
+            return current.titles.complete(prefix, limit);
+        }
+        if (field == SearchField.AUTHOR) {
+            return current.authors.complete(prefix, limit);
+        }
+
+        List<Completion> merged = new ArrayList<>(current.titles.complete(prefix, limit));
+        merged.addAll(current.authors.complete(prefix, limit));
+        merged.sort((a, b) -> Long.compare(b.getWeight(), a.getWeight()));
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    public boolean isReady() {
+        return indexes != null;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void reloadChanged() {
+        reloadQueued.set(false);
+        List<String> isbns = new ArrayList<>(changedIsbns);
+        changedIsbns.removeAll(isbns);
+        if (isbns.isEmpty()) {
+            return;
+        }
+
+        List<Book> books;
+        try {
+            // Straight from the table: the book cache may not have dropped its copy yet
+            books = new BookDAOImpl().findByISBNs(isbns);
+        } catch (SQLException e) {
+            // The next rebuild picks them up
+            System.err.println("Error reloading changed books: " + e.getMessage());
+            return;
+        }
+
+        Set<String> found = new HashSet<>();
+        for (Book book : books) {
+            found.add(book.getISBN());
+            bookSaved(book);
+        }
+        for (String isbn : isbns) {
+            if (!found.contains(isbn)) {
+                bookRemoved(isbn);
+            }
+        }
+    }
+
+    private synchronized void apply(Consumer<Indexes> change) {
+        if (!enabled) {
+            return;
+        }
+        Indexes current = indexes;
+        if (current != null) {
+            change.accept(current);
+        }
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * One generation of search structures, replaced as a whole by rebuild
+     */
+    private static final class Indexes {
+        private final BookSearchIndex books = new BookSearchIndex();
+        private final CompletionTrie titles = new CompletionTrie(SearchField.TITLE);
+        private final CompletionTrie authors = new CompletionTrie(SearchField.AUTHOR);
+        // Borrows of the books borrowed at least once; read by fuzzy searches
+        private final Map<String, Long> borrows;
+        // Title and author each book was indexed with (callers may edit the Book object itself later)
+        private final Map<String, String[]> indexed = new HashMap<>();
+
+        Indexes(Map<String, Long> borrows) {
+            this.borrows = new ConcurrentHashMap<>(borrows);
+        }
+
+        void add(Book book) {
+            remove(book.getISBN());
+            indexed.put(book.getISBN(), new String[]{book.getTitle(), book.getAuthor()});
+            long weight = borrows.getOrDefault(book.getISBN(), 0L);
+            books.put(book);
+            titles.add(book.getTitle(), weight);
+            authors.add(book.getAuthor(), weight);
+        }
+
+        void remove(String isbn) {
+            String[] old = indexed.remove(isbn);
+            if (old == null) {
+                return;
+            }
+            // The weight it was added with, plus the checkouts counted since
+            long weight = borrows.getOrDefault(isbn, 0L);
+            books.remove(isbn);
+            titles.remove(old[0], weight);
+            authors.remove(old[1], weight);
+        }
+
+        void recordCheckout(Book book) {
+            borrows.merge(book.getISBN(), 1L, Long::sum);
+            String[] current = indexed.get(book.getISBN());
+            if (current != null) {
+                titles.addWeight(current[0], 1);
+                authors.addWeight(current[1], 1);
+            }
+        }
+    }
+}
@@ -1,27 +1,145 @@
 package database.impl;
 
 import database.config.DatabaseConfig;
-import database.dao.BookDAO;
 import database.dao.BorrowRecordDAO;
-import database.dao.ReaderDAO;
+import database.dao.Page;
+import database.dao.PageQuery;
 import models.BorrowRecord;
+import models.CheckoutResult;
+import models.OverdueSweepResult;
+import models.ReturnResult;
 import models.books.Book;
 import models.enums.BorrowStatus;
+import models.enums.CheckoutStatus;
+import models.enums.MembershipType;
+import models.enums.ReportType;
 import models.people.Reader;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class BorrowRecordDAOImpl implements BorrowRecordDAO {
 
-    private final BookDAO bookDAO;
-    private final ReaderDAO readerDAO;
-
-    public BorrowRecordDAOImpl() {
-        this.bookDAO = new BookDAOImpl();
-        this.readerDAO = new ReaderDAOImpl();
-    }
+    // Sort columns of findPage(PageQuery, ...)
+    private static final Map<String, KeysetSort<BorrowRecord>> RECORD_SORTS = Map.of(
+            "borrowDate", new KeysetSort<>("br.borrow_date", Date::valueOf, r -> r.getBorrowDate().toString()),
+            "dueDate", new KeysetSort<>("br.due_date", Date::valueOf, r -> r.getDueDate().toString()),
+            "recordId", new KeysetSort<>("br.record_id", key -> key, BorrowRecord::getRecordId),
+            "title", new KeysetSort<>("b.title", key -> key, r -> r.getBook().getTitle()),
+            "reader", new KeysetSort<>("r.name", key -> key, r -> r.getReader().getName()));
+
+    /**
+     * Borrow record columns joined with their reader (r_*) and book (b_*) columns,
+     * so a whole list is built from one statement instead of two lookups per row.
+     */
+    private static final String RECORD_SELECT =
+            "SELECT br.record_id, br.reader_id, br.isbn, br.borrow_date, br.due_date, " +
+            "br.return_date, br.status, br.fine, br.renewal_count, " +
+            "r.reader_id AS r_reader_id, r.name AS r_name, r.email AS r_email, r.phone AS r_phone, " +
+            "r.address AS r_address, r.membership_type AS r_membership_type, " +
+            "r.registration_date AS r_registration_date, r.current_borrows AS r_current_borrows, " +
+            "r.total_borrowed AS r_total_borrowed, r.is_active AS r_is_active, r.status AS r_status, " +
+            "b.isbn AS b_isbn, b.title AS b_title, b.author AS b_author, b.publisher AS b_publisher, " +
+            "b.publish_year AS b_publish_year, b.category AS b_category, b.total_copies AS b_total_copies, " +
+            "b.available_copies AS b_available_copies, b.price AS b_price, b.book_type AS b_book_type, " +
+            "b.extra_info AS b_extra_info " +
+            "FROM borrow_records br " +
+            "JOIN readers r ON r.reader_id = br.reader_id " +
+            "JOIN books b ON b.isbn = br.isbn";
+
+    /**
+     * One-statement checkout. The reader update only succeeds while the reader is
+     * active and under the membership limit, the book update only while a copy is
+     * left, and the record is only inserted when both rows were claimed. Row locks
+     * taken by the guarded UPDATEs make concurrent desks queue on the same copy
+     * instead of both taking it.
+     */
+    private static final String CHECKOUT_SQL =
+            "WITH r AS (" +
+            "  UPDATE readers SET current_borrows = current_borrows + 1, total_borrowed = total_borrowed + 1 " +
+            "  WHERE reader_id = ? AND status = 'ACTIVE' AND is_active " +
+            "  AND current_borrows < " + borrowLimitSql() +
+            "  RETURNING reader_id AS r_reader_id, name AS r_name, email AS r_email, phone AS r_phone, " +
+            "  address AS r_address, membership_type AS r_membership_type, " +
+            "  registration_date AS r_registration_date, current_borrows AS r_current_borrows, " +
+            "  total_borrowed AS r_total_borrowed, is_active AS r_is_active, status AS r_status" +
+            "), b AS (" +
+            "  UPDATE books SET available_copies = available_copies - 1 " +
+            "  WHERE isbn = ? AND available_copies > 0 AND EXISTS (SELECT 1 FROM r) " +
+            "  RETURNING isbn AS b_isbn, title AS b_title, author AS b_author, publisher AS b_publisher, " +
+            "  publish_year AS b_publish_year, category AS b_category, total_copies AS b_total_copies, " +
+            "  available_copies AS b_available_copies, price AS b_price, book_type AS b_book_type, " +
+            "  extra_info AS b_extra_info" +
+            "), ins AS (" +
+            "  INSERT INTO borrow_records (record_id, reader_id, isbn, borrow_date, due_date, status, fine, renewal_count) " +
+            "  SELECT ?, r.r_reader_id, b.b_isbn, ?, ?, 'BORROWED', 0, 0 FROM r CROSS JOIN b " +
+            "  RETURNING record_id" +
+            ") " +
+            "SELECT r.*, b.*, ins.record_id FROM r LEFT JOIN b ON TRUE LEFT JOIN ins ON TRUE";
+
+    /**
+     * One-statement return touching only the columns that change. Copy and
+     * borrow-slot updates are driven by the record row, so they only happen
+     * when the record really was BORROWED/OVERDUE. books_updated is 0 when the
+     * copy could not be given back (book or reader row missing); the caller
+     * then rolls the return back.
+     */
+    private static final String RETURN_SQL =
+            "WITH br AS (" +
+            "  UPDATE borrow_records SET status = 'RETURNED', return_date = ?, " +
+            "  fine = GREATEST(0, ?::date - due_date) * ? " +
+            "  WHERE record_id = ? AND status IN ('BORROWED', 'OVERDUE') " +
+            "  RETURNING record_id, reader_id, isbn, return_date, fine, " +
+            "  GREATEST(0, return_date - due_date) AS days_late" +
+            "), r AS (" +
+            "  UPDATE readers SET current_borrows = GREATEST(0, readers.current_borrows - 1) " +
+            "  FROM br WHERE readers.reader_id = br.reader_id " +
+            "  RETURNING readers.reader_id" +
+            "), b AS (" +
+            "  UPDATE books SET available_copies = LEAST(books.total_copies, books.available_copies + 1) " +
+            "  FROM br WHERE books.isbn = br.isbn AND EXISTS (SELECT 1 FROM r) " +
+            "  RETURNING books.isbn" +
+            ") " +
+            "SELECT br.*, (SELECT COUNT(*) FROM b) AS books_updated FROM br";
+
+    /**
+     * One chunk of the overdue sweep. Rows a desk transaction holds are
+     * skipped rather than waited for; the next chunk or sweep gets them.
+     * Only rows whose status or fine actually changes are touched, so the
+     * sweep ends once everything is up to date.
+     */
+    private static final String OVERDUE_CHUNK_SQL =
+            "WITH due AS (" +
+            "  SELECT record_id, status AS old_status FROM borrow_records " +
+            "  WHERE status IN ('BORROWED', 'OVERDUE') AND due_date < CURRENT_DATE " +
+            "  AND (status = 'BORROWED' OR fine IS DISTINCT FROM (CURRENT_DATE - due_date) * ?::numeric) " +
+            "  ORDER BY due_date LIMIT ? FOR UPDATE SKIP LOCKED" +
+            ") " +
+            "UPDATE borrow_records br SET status = 'OVERDUE', " +
+            "fine = (CURRENT_DATE - br.due_date) * ?::numeric " +
+            "FROM due WHERE br.record_id = due.record_id " +
+            "RETURNING due.old_status";
+
+    private static final int STREAM_IDENTITY_CACHE_SIZE = 1024;
+
+    // Checkout and return lock the books and borrow_records counter rows in
+    // opposite orders (see bump_counter in Script.sql); a deadlock rolls the
+    // whole transaction back, so it is simply run again
+    private static final int DEADLOCK_ATTEMPTS = 3;
+
+    private static final String CHECKOUT_DIAGNOSE_SQL =
+            "SELECT r.reader_id, r.status, r.is_active, r.current_borrows, r.membership_type, " +
+            "b.isbn, b.available_copies " +
+            "FROM (SELECT 1) x " +
+            "LEFT JOIN readers r ON r.reader_id = ? " +
+            "LEFT JOIN books b ON b.isbn = ?";
 
     @Override
     public void save(BorrowRecord record) throws SQLException {
@@ -49,6 +167,33 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
         }
     }
 
+    @Override
+    public CheckoutResult checkout(String readerId, String isbn) throws SQLException {
+        String recordId = IdAllocator.records().nextId();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return checkoutOnce(readerId, isbn, recordId);
+            } catch (SQLException e) {
+                if (attempt == DEADLOCK_ATTEMPTS || !SqlStates.has(e, SqlStates.DEADLOCK_DETECTED)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public ReturnResult returnRecord(String recordId, double finePerDay) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return returnRecordOnce(recordId, finePerDay);
+            } catch (SQLException e) {
+                if (attempt == DEADLOCK_ATTEMPTS || !SqlStates.has(e, SqlStates.DEADLOCK_DETECTED)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
     @Override
     public void update(BorrowRecord record) throws SQLException {
         String sql = "UPDATE borrow_records SET return_date = ?, status = ?, " +
@@ -65,6 +210,7 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
             pstmt.setString(6, record.getRecordId());
 
             pstmt.executeUpdate();
+            invalidateCirculationReports();
 
         } catch (SQLException e) {
             throw new SQLException("Error updating borrow record: " + e.getMessage(), e);
@@ -89,198 +235,449 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
 
     @Override
     public BorrowRecord findById(String recordId) throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE record_id = ?";
+        String sql = RECORD_SELECT + " WHERE br.record_id = ?";
+        List<BorrowRecord> records = queryRecords(sql, "Error finding borrow record: ", recordId);
+        return records.isEmpty() ? null : records.get(0);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    @Override
+    public List<BorrowRecord> findAll() throws SQLException {
+        String sql = RECORD_SELECT + " ORDER BY br.borrow_date DESC";
+        return queryRecords(sql, "Error fetching borrow records: ");
+    }
 
-            pstmt.setString(1, recordId);
-            ResultSet rs = pstmt.executeQuery();
+    @Override
+    public Page<BorrowRecord> findPage(int pageSize, String after) throws SQLException {
+        return findPage(PageQuery.DEFAULT, pageSize, after);
+    }
 
-            if (rs.next()) {
-                return mapResultSetToRecord(rs);
+    @Override
+    public Page<BorrowRecord> findPage(PageQuery query, int pageSize, String after) throws SQLException {
+        KeysetCursor.checkPageSize(pageSize);
+        KeysetSort<BorrowRecord> sort = KeysetSort.resolve(RECORD_SORTS, query.getSortBy(), "borrowDate");
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        for (Map.Entry<String, String> filter : query.getFilters().entrySet()) {
+            switch (filter.getKey()) {
+                case "readerId":
+                    conditions.add("br.reader_id = ?");
+                    params.add(filter.getValue());
+                    break;
+                case "status":
+                    if ("OPEN".equals(filter.getValue())) {
+                        conditions.add("br.status IN ('BORROWED', 'OVERDUE')");
+                    } else {
+                        conditions.add("br.status = ?");
+                        params.add(BorrowStatus.valueOf(filter.getValue()).name());
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown borrow record filter: " + filter.getKey());
             }
-            return null;
+        }
 
-        } catch (SQLException e) {
-            throw new SQLException("Error finding borrow record: " + e.getMessage(), e);
+        if (query.getSearch() != null) {
+            conditions.add("(br.record_id ILIKE ? OR br.reader_id ILIKE ? " +
+                    "OR f_unaccent(lower(r.name)) LIKE f_unaccent(lower(?)) " +
+                    "OR f_unaccent(lower(b.title)) LIKE f_unaccent(lower(?)))");
+            String pattern = "%" + query.getSearch() + "%";
+            params.addAll(List.of(pattern, pattern, pattern, pattern));
         }
-    }
 
-    @Override
-    public List<BorrowRecord> findAll() throws SQLException {
-        String sql = "SELECT * FROM borrow_records ORDER BY borrow_date DESC";
-        List<BorrowRecord> records = new ArrayList<>();
+        if (after != null) {
+            try {
+                String[] key = KeysetCursor.decode(after);
+                params.add(sort.parseKey(key[0]));
+                params.add(key[1]);
+            } catch (IllegalArgumentException e) {
+                throw KeysetCursor.invalid("Error fetching borrow record page: ", e);
+            }
+            conditions.add(sort.seekCondition("br.record_id", query.isDescending()));
+        }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        String sql = RECORD_SELECT
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + sort.orderBy("br.record_id", query.isDescending()) + " LIMIT ?";
+        params.add(pageSize + 1);
 
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
-            }
+        List<BorrowRecord> records = queryRecords(sql, "Error fetching borrow record page: ", params.toArray());
+        return sort.toPage(records, pageSize, BorrowRecord::getRecordId);
+    }
 
+    @Override
+    public Stream<BorrowRecord> streamAll(int fetchSize) throws SQLException {
+        // Bounded identity maps keep sharing for hot readers/books without growing with the scan
+        Map<String, Reader> readers = boundedMap(STREAM_IDENTITY_CACHE_SIZE);
+        Map<String, Book> books = boundedMap(STREAM_IDENTITY_CACHE_SIZE);
+        BookRowMapper bookMapper = new BookRowMapper("b_");
+
+        try {
+            return ResultSetStream.open(RECORD_SELECT + " ORDER BY br.record_id", fetchSize,
+                    rs -> mapResultSetToRecord(rs, readers, books, bookMapper));
         } catch (SQLException e) {
-            throw new SQLException("Error fetching borrow records: " + e.getMessage(), e);
+            throw new SQLException("Error streaming borrow records: " + e.getMessage(), e);
         }
+    }
 
-        return records;
+    @Override
+    public Stream<BorrowRecord> streamAll() throws SQLException {
+        return streamAll(ResultSetStream.defaultFetchSize());
     }
 
     @Override
     public List<BorrowRecord> findByReaderId(String readerId) throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE reader_id = ? ORDER BY borrow_date DESC";
-        List<BorrowRecord> records = new ArrayList<>();
+        String sql = RECORD_SELECT + " WHERE br.reader_id = ? ORDER BY br.borrow_date DESC";
+        return queryRecords(sql, "Error finding records by reader: ", readerId);
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    @Override
+    public List<BorrowRecord> findByISBN(String isbn) throws SQLException {
+        String sql = RECORD_SELECT + " WHERE br.isbn = ? ORDER BY br.borrow_date DESC";
+        return queryRecords(sql, "Error finding records by ISBN: ", isbn);
+    }
 
-            pstmt.setString(1, readerId);
-            ResultSet rs = pstmt.executeQuery();
+    @Override
+    public List<BorrowRecord> findOverdue() throws SQLException {
+        String sql = RECORD_SELECT + " WHERE br.status = 'OVERDUE' ORDER BY br.due_date";
+        return queryRecords(sql, "Error finding overdue records: ");
+    }
 
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
+    @Override
+    public Page<BorrowRecord> findOverduePage(int pageSize, String after) throws SQLException {
+        KeysetCursor.checkPageSize(pageSize);
+        List<BorrowRecord> records;
+        if (after == null) {
+            String sql = RECORD_SELECT + " WHERE br.status = 'OVERDUE' " +
+                    "ORDER BY br.due_date, br.record_id LIMIT ?";
+            records = queryRecords(sql, "Error fetching overdue page: ", pageSize + 1);
+        } else {
+            String[] key;
+            Date dueDate;
+            try {
+                key = KeysetCursor.decode(after);
+                dueDate = Date.valueOf(key[0]);
+            } catch (IllegalArgumentException e) {
+                throw KeysetCursor.invalid("Error fetching overdue page: ", e);
             }
-
-        } catch (SQLException e) {
-            throw new SQLException("Error finding records by reader: " + e.getMessage(), e);
+            String sql = RECORD_SELECT + " WHERE br.status = 'OVERDUE' AND (br.due_date, br.record_id) > (?, ?) " +
+                    "ORDER BY br.due_date, br.record_id LIMIT ?";
+            records = queryRecords(sql, "Error fetching overdue page: ", dueDate, key[1], pageSize + 1);
         }
 
-        return records;
+        if (records.size() <= pageSize) {
+            return new Page<>(records, null);
+        }
+        records = records.subList(0, pageSize);
+        BorrowRecord last = records.get(pageSize - 1);
+        return new Page<>(records, KeysetCursor.encode(last.getDueDate().toString(), last.getRecordId()));
     }
 
     @Override
-    public List<BorrowRecord> findByISBN(String isbn) throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE isbn = ? ORDER BY borrow_date DESC";
-        List<BorrowRecord> records = new ArrayList<>();
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, isbn);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
-            }
-
+    public int getOverdueCount() throws SQLException {
+        try {
+            return (int) CirculationCounterDAOImpl.readLevel("loans_overdue");
         } catch (SQLException e) {
-            throw new SQLException("Error finding records by ISBN: " + e.getMessage(), e);
+            throw new SQLException("Error counting overdue records: " + e.getMessage(), e);
         }
-
-        return records;
     }
 
     @Override
-    public List<BorrowRecord> findOverdue() throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE status = 'BORROWED' " +
-                "AND due_date < CURRENT_DATE ORDER BY due_date";
-        List<BorrowRecord> records = new ArrayList<>();
+    public double getOverdueFineTotal() throws SQLException {
+        String sql = "SELECT COALESCE(SUM(fine), 0) AS fines FROM borrow_records WHERE status = 'OVERDUE'";
 
         try (Connection conn = DatabaseConfig.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
-            }
+            return rs.next() ? rs.getDouble("fines") : 0;
 
         } catch (SQLException e) {
-            throw new SQLException("Error finding overdue records: " + e.getMessage(), e);
+            throw new SQLException("Error summing overdue fines: " + e.getMessage(), e);
         }
-
-        return records;
     }
 
     @Override
     public List<BorrowRecord> findActive() throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE status = 'BORROWED' ORDER BY due_date";
-        List<BorrowRecord> records = new ArrayList<>();
+        String sql = RECORD_SELECT + " WHERE br.status IN ('BORROWED', 'OVERDUE') ORDER BY br.due_date";
+        return queryRecords(sql, "Error finding active records: ");
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    @Override
+    public List<BorrowRecord> findByStatus(String status) throws SQLException {
+        String sql = RECORD_SELECT + " WHERE br.status = ? ORDER BY br.borrow_date DESC";
+        return queryRecords(sql, "Error finding records by status: ", status);
+    }
+
+    @Override
+    public OverdueSweepResult markOverdue(double finePerDay, int chunkSize) throws SQLException {
+        long start = System.nanoTime();
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // One sweeper at a time across desks; the others skip this round
+            if (!StatisticsDAOImpl.tryAdvisoryLock(conn, "overdue_sweep")) {
+                return null;
+            }
 
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
+            try (PreparedStatement pstmt = conn.prepareStatement(OVERDUE_CHUNK_SQL)) {
+                int markedOverdue = 0;
+                int finesUpdated = 0;
+                int chunks = 0;
+                int updated;
+                do {
+                    pstmt.setDouble(1, finePerDay);
+                    pstmt.setInt(2, chunkSize);
+                    pstmt.setDouble(3, finePerDay);
+
+                    // Auto-commit: each chunk is its own short transaction
+                    updated = 0;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            updated++;
+                            if ("BORROWED".equals(rs.getString("old_status"))) {
+                                markedOverdue++;
+                            } else {
+                                finesUpdated++;
+                            }
+                        }
+                    }
+                    if (updated > 0) {
+                        chunks++;
+                    }
+                } while (updated == chunkSize);
+
+                if (markedOverdue + finesUpdated > 0) {
+                    invalidateCirculationReports();
+                }
+                return new OverdueSweepResult(markedOverdue, finesUpdated, chunks,
+                        LocalDateTime.now(), (System.nanoTime() - start) / 1_000_000);
+
+            } finally {
+                try (PreparedStatement unlock = conn.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+                    unlock.setString(1, "overdue_sweep");
+                    unlock.execute();
+                }
             }
 
         } catch (SQLException e) {
-            throw new SQLException("Error finding active records: " + e.getMessage(), e);
+            throw new SQLException("Error marking overdue records: " + e.getMessage(), e);
         }
-
-        return records;
     }
 
     @Override
-    public List<BorrowRecord> findByStatus(String status) throws SQLException {
-        String sql = "SELECT * FROM borrow_records WHERE status = ? ORDER BY borrow_date DESC";
-        List<BorrowRecord> records = new ArrayList<>();
+    public int getTotalCount() throws SQLException {
+        try {
+            return (int) CirculationCounterDAOImpl.readLevel("loans");
+        } catch (SQLException e) {
+            throw new SQLException("Error counting records: " + e.getMessage(), e);
+        }
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    @Override
+    public int getActiveCount() throws SQLException {
+        try {
+            // Overdue loans are still out on loan
+            return (int) (CirculationCounterDAOImpl.readLevel("loans_borrowed")
+                    + CirculationCounterDAOImpl.readLevel("loans_overdue"));
+        } catch (SQLException e) {
+            throw new SQLException("Error counting active records: " + e.getMessage(), e);
+        }
+    }
 
-            pstmt.setString(1, status);
-            ResultSet rs = pstmt.executeQuery();
+    // ========== HELPER METHODS ==========
 
-            while (rs.next()) {
-                records.add(mapResultSetToRecord(rs));
+    private CheckoutResult checkoutOnce(String readerId, String isbn, String recordId) throws SQLException {
+        LocalDate borrowDate = LocalDate.now();
+        LocalDate dueDate = borrowDate.plusDays(BorrowRecord.MAX_BORROW_DAYS);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                CheckoutResult result = null;
+
+                try (PreparedStatement pstmt = conn.prepareStatement(CHECKOUT_SQL)) {
+                    pstmt.setString(1, readerId);
+                    pstmt.setString(2, isbn);
+                    pstmt.setString(3, recordId);
+                    pstmt.setDate(4, Date.valueOf(borrowDate));
+                    pstmt.setDate(5, Date.valueOf(dueDate));
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next() && rs.getString("record_id") != null) {
+                            Reader reader = ReaderDAOImpl.mapResultSetToReader(rs, "r_");
+                            Book book = BookDAOImpl.mapResultSetToBook(rs, "b_");
+
+                            BorrowRecord record = new BorrowRecord(reader, book);
+                            record.setRecordId(recordId);
+                            record.setBorrowDate(borrowDate);
+                            record.setDueDate(dueDate);
+                            result = CheckoutResult.success(record);
+                        }
+                    }
+                }
+
+                if (result != null) {
+                    conn.commit();
+                    BookCache.getInstance().invalidate(isbn);
+                    invalidateCirculationReports();
+                    PopularityTracker.getInstance().recordCheckout(result.getRecord());
+                    BookSearchService.getInstance().recordCheckout(result.getRecord().getBook());
+                    return result;
+                }
+
+                // Nothing claimed (or only the reader slot): undo and find out why
+                conn.rollback();
+                return CheckoutResult.refused(diagnoseRefusal(conn, readerId, isbn));
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            throw new SQLException("Error checking out book: " + e.getMessage(), e);
+        }
+    }
 
+    private ReturnResult returnRecordOnce(String recordId, double finePerDay) throws SQLException {
+        LocalDate returnDate = LocalDate.now();
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                ReturnResult result = null;
+
+                try (PreparedStatement pstmt = conn.prepareStatement(RETURN_SQL)) {
+                    pstmt.setDate(1, Date.valueOf(returnDate));
+                    pstmt.setDate(2, Date.valueOf(returnDate));
+                    pstmt.setDouble(3, finePerDay);
+                    pstmt.setString(4, recordId);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            // The copy is only given back when both the reader and the book row exist
+                            if (rs.getInt("books_updated") == 0) {
+                                throw new SQLException("Book " + rs.getString("isbn") + " or reader " +
+                                        rs.getString("reader_id") + " not found; return of record " + recordId + " not recorded");
+                            }
+                            result = new ReturnResult(
+                                    rs.getString("record_id"),
+                                    rs.getString("reader_id"),
+                                    rs.getString("isbn"),
+                                    rs.getDate("return_date").toLocalDate(),
+                                    rs.getInt("days_late"),
+                                    rs.getDouble("fine"));
+                        }
+                    }
+                }
+
+                conn.commit();
+                if (result != null) {
+                    BookCache.getInstance().invalidate(result.getIsbn());
+                    invalidateCirculationReports();
+                }
+                return result;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
-            throw new SQLException("Error finding records by status: " + e.getMessage(), e);
+            throw new SQLException("Error returning book: " + e.getMessage(), e);
         }
+    }
 
-        return records;
+    private static void invalidateCirculationReports() {
+        ReportCache.getInstance().invalidate(ReportType.OVERDUE, ReportType.MONTHLY_STATISTICS);
+        DashboardSummaryService.getInstance().invalidate();
     }
 
-    @Override
-    public int getTotalCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM borrow_records";
+    private static <V> Map<String, V> boundedMap(int maxEntries) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    private static String borrowLimitSql() {
+        StringBuilder sql = new StringBuilder("(CASE membership_type");
+        for (MembershipType type : MembershipType.values()) {
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(type.getBorrowLimit());
+        }
+        return sql.append(" ELSE 0 END)").toString();
+    }
 
-            if (rs.next()) {
-                return rs.getInt(1);
+    private CheckoutStatus diagnoseRefusal(Connection conn, String readerId, String isbn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(CHECKOUT_DIAGNOSE_SQL)) {
+            pstmt.setString(1, readerId);
+            pstmt.setString(2, isbn);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                if (rs.getString("reader_id") == null) {
+                    return CheckoutStatus.READER_NOT_FOUND;
+                }
+                if (rs.getString("isbn") == null) {
+                    return CheckoutStatus.BOOK_NOT_FOUND;
+                }
+                if (!"ACTIVE".equals(rs.getString("status")) || !rs.getBoolean("is_active")) {
+                    return CheckoutStatus.READER_INACTIVE;
+                }
+                MembershipType type = MembershipType.valueOf(rs.getString("membership_type"));
+                if (rs.getInt("current_borrows") >= type.getBorrowLimit()) {
+                    return CheckoutStatus.BORROW_LIMIT_REACHED;
+                }
+                return CheckoutStatus.NOT_AVAILABLE;
             }
-            return 0;
-
-        } catch (SQLException e) {
-            throw new SQLException("Error counting records: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public int getActiveCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM borrow_records WHERE status = 'BORROWED'";
+    /**
+     * Run a RECORD_SELECT query and build all records from the single joined
+     * result set. Readers and books appearing in several rows share one instance.
+     */
+    private List<BorrowRecord> queryRecords(String sql, String errorMessage, Object... params) throws SQLException {
+        List<BorrowRecord> records = new ArrayList<>();
+        Map<String, Reader> readers = new HashMap<>();
+        Map<String, Book> books = new HashMap<>();
+        BookRowMapper bookMapper = new BookRowMapper("b_");
 
         try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            if (rs.next()) {
-                return rs.getInt(1);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapResultSetToRecord(rs, readers, books, bookMapper));
+                }
             }
-            return 0;
 
         } catch (SQLException e) {
-            throw new SQLException("Error counting active records: " + e.getMessage(), e);
+            throw new SQLException(errorMessage + e.getMessage(), e);
         }
-    }
 
-    // ========== HELPER METHODS ==========
+        return records;
+    }
 
-    private BorrowRecord mapResultSetToRecord(ResultSet rs) throws SQLException {
+    private BorrowRecord mapResultSetToRecord(ResultSet rs, Map<String, Reader> readers,
+                                              Map<String, Book> books, BookRowMapper bookMapper) throws SQLException {
         String readerId = rs.getString("reader_id");
         String isbn = rs.getString("isbn");
 
-        Reader reader = readerDAO.findById(readerId);
-        Book book = bookDAO.findByISBN(isbn);
+        Reader reader = readers.get(readerId);
+        if (reader == null) {
+            reader = ReaderDAOImpl.mapResultSetToReader(rs, "r_");
+            readers.put(readerId, reader);
+        }
 
-        if (reader == null || book == null) {
-            throw new SQLException("Reader or Book not found for record");
+        Book book = books.get(isbn);
+        if (book == null) {
+            book = bookMapper.map(rs);
+            books.put(isbn, book);
         }
 
         BorrowRecord record = new BorrowRecord(reader, book);
@@ -0,0 +1,161 @@
+package database.impl;
+
+import database.dao.BookDAO;
+import database.dao.Page;
+import models.books.Book;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Read-through {@link BookCache} in front of another BookDAO.
+ * Only findByISBN is cached; writes go to the database first and then drop
+ * the cached entry. Other instances learn about the change from the
+ * books_changed notification sent by the database trigger.
+ */
+public class CachingBookDAO implements BookDAO {
+    private final BookDAO delegate;
+    private final BookCache cache;
+
+    public CachingBookDAO(BookDAO delegate) {
+        this(delegate, BookCache.getInstance());
+    }
+
+    public CachingBookDAO(BookDAO delegate, BookCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Book findByISBN(String isbn) throws SQLException {
+        Book cached = cache.get(isbn);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.currentGeneration();
+        Book book = delegate.findByISBN(isbn);
+        cache.put(book, generation);
+        return book;
+    }
+
+    /**
+     * Cached books are taken from the cache; the others are read in one query
+     */
+    @Override
+    public List<Book> findByISBNs(List<String> isbns) throws SQLException {
+        Map<String, Book> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String isbn : isbns) {
+            Book cached = cache.get(isbn);
+            if (cached != null) {
+                found.put(isbn, cached);
+            } else {
+                missing.add(isbn);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long generation = cache.currentGeneration();
+            for (Book book : delegate.findByISBNs(missing)) {
+                cache.put(book, generation);
+                found.put(book.getISBN(), book);
+            }
+        }
+
+        List<Book> books = new ArrayList<>(found.size());
+        for (String isbn : isbns) {
+            Book book = found.get(isbn);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public void save(Book book) throws SQLException {
+        try {
+            delegate.save(book);
+        } finally {
+            cache.invalidate(book.getISBN());
+        }
+    }
+
+    @Override
+    public void update(Book book) throws SQLException {
+        try {
+            delegate.update(book);
+        } finally {
+            cache.invalidate(book.getISBN());
+        }
+    }
+
+    @Override
+    public boolean delete(String isbn) throws SQLException {
+        try {
+            return delegate.delete(isbn);
+        } finally {
+            cache.invalidate(isbn);
+        }
+    }
+
+    @Override
+    public List<Book> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Page<Book> findPage(int pageSize, String after) throws SQLException {
+        return delegate.findPage(pageSize, after);
+    }
+
+    @Override
+    public Stream<Book> streamAll(int fetchSize) throws SQLException {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Stream<Book> streamAll() throws SQLException {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<Book> searchByTitle(String title) throws SQLException {
+        return delegate.searchByTitle(title);
+    }
+
+    @Override
+    public List<Book> searchByAuthor(String author) throws SQLException {
+        return delegate.searchByAuthor(author);
+    }
+
+    @Override
+    public List<Book> searchByCategory(String category) throws SQLException {
+        return delegate.searchByCategory(category);
+    }
+
+    @Override
+    public List<Book> searchByTitle(String title, int limit) throws SQLException {
+        return delegate.searchByTitle(title, limit);
+    }
+
+    @Override
+    public List<Book> searchByAuthor(String author, int limit) throws SQLException {
+        return delegate.searchByAuthor(author, limit);
+    }
+
+    @Override
+    public List<Book> searchByCategory(String category, int limit) throws SQLException {
+        return delegate.searchByCategory(category, limit);
+    }
+
+    @Override
+    public int getAvailableCount() throws SQLException {
+        return delegate.getAvailableCount();
+    }
+}
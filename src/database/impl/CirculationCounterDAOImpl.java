@@ -0,0 +1,240 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import database.dao.CirculationCounterDAO;
+import models.CirculationCounters;
+import models.DashboardSummary;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the library_counters table maintained by the *_count_change triggers
+ * (see CIRCULATION COUNTERS in Script.sql).
+ */
+public class CirculationCounterDAOImpl implements CirculationCounterDAO {
+
+    // Bucket of counters that are not per day
+    private static final String LEVEL = "DATE '1970-01-01'";
+    private static final String INITIALIZED = "initialized";
+    private static final int BUSIEST_DAY_WINDOW = 30;
+
+    private static final String SNAPSHOT_SQL =
+            "SELECT counter_name, SUM(value) AS value FROM library_counters " +
+            "WHERE bucket_date = " + LEVEL + " GROUP BY counter_name " +
+            "UNION ALL " +
+            "SELECT 'overdue', COALESCE(SUM(value), 0) FROM library_counters " +
+            "WHERE counter_name = 'loans_due' AND bucket_date < CURRENT_DATE " +
+            "UNION ALL " +
+            "SELECT 'borrows_month', COALESCE(SUM(value), 0) FROM library_counters " +
+            "WHERE counter_name = 'borrows' AND bucket_date >= date_trunc('month', CURRENT_DATE)::date " +
+            "UNION ALL " +
+            "SELECT 'returns_month', COALESCE(SUM(value), 0) FROM library_counters " +
+            "WHERE counter_name = 'returns' AND bucket_date >= date_trunc('month', CURRENT_DATE)::date";
+
+    // users is small (staff and reader accounts) and has no counters of its own
+    private static final String DASHBOARD_SQL = SNAPSHOT_SQL + " " +
+            "UNION ALL " +
+            "SELECT 'users', COUNT(*) FROM users " +
+            "UNION ALL " +
+            "SELECT 'users_active', COUNT(*) FILTER (WHERE is_active) FROM users";
+
+    private static final String BUSIEST_DAY_SQL =
+            "SELECT bucket_date, SUM(value) AS value FROM library_counters " +
+            "WHERE counter_name = 'borrows' AND bucket_date >= CURRENT_DATE - ? " +
+            "GROUP BY bucket_date HAVING SUM(value) > 0 " +
+            "ORDER BY value DESC, bucket_date DESC LIMIT 1";
+
+    private static final String LEVEL_SQL =
+            "SELECT COALESCE(SUM(value) FILTER (WHERE counter_name = ?), 0) AS value, " +
+            "COUNT(*) FILTER (WHERE counter_name = '" + INITIALIZED + "') AS initialized " +
+            "FROM library_counters WHERE counter_name IN (?, '" + INITIALIZED + "') " +
+            "AND bucket_date = " + LEVEL;
+
+    // What every counter should hold, minus what it holds, both as of one snapshot
+    private static final String DRIFT_SQL =
+            "WITH actual (counter_name, bucket_date, value) AS (" +
+            "  SELECT 'books', " + LEVEL + ", COUNT(*) FROM books " +
+            "  UNION ALL SELECT 'books_available', " + LEVEL + ", COUNT(*) FILTER (WHERE available_copies > 0) FROM books " +
+            "  UNION ALL SELECT 'copies_total', " + LEVEL + ", COALESCE(SUM(total_copies), 0) FROM books " +
+            "  UNION ALL SELECT 'copies_available', " + LEVEL + ", COALESCE(SUM(available_copies), 0) FROM books " +
+            "  UNION ALL SELECT 'readers', " + LEVEL + ", COUNT(*) FROM readers " +
+            "  UNION ALL SELECT 'readers_active', " + LEVEL + ", COUNT(*) FILTER (WHERE status = 'ACTIVE') FROM readers " +
+            "  UNION ALL SELECT 'loans', " + LEVEL + ", COUNT(*) FROM borrow_records " +
+            "  UNION ALL SELECT 'loans_' || lower(status), " + LEVEL + ", COUNT(*) FROM borrow_records GROUP BY status " +
+            "  UNION ALL SELECT 'loans_due', due_date, COUNT(*) FROM borrow_records " +
+            "    WHERE status IN ('BORROWED', 'OVERDUE') GROUP BY due_date " +
+            "  UNION ALL SELECT 'borrows', borrow_date, COUNT(*) FROM borrow_records GROUP BY borrow_date " +
+            "  UNION ALL SELECT 'returns', return_date, COUNT(*) FROM borrow_records " +
+            "    WHERE status = 'RETURNED' AND return_date IS NOT NULL GROUP BY return_date" +
+            "), stored AS (" +
+            "  SELECT counter_name, bucket_date, SUM(value) AS value FROM library_counters " +
+            "  WHERE counter_name <> '" + INITIALIZED + "' GROUP BY counter_name, bucket_date" +
+            ") " +
+            "SELECT counter_name, bucket_date, COALESCE(a.value, 0) - COALESCE(s.value, 0) AS drift " +
+            "FROM actual a FULL JOIN stored s USING (counter_name, bucket_date) " +
+            "WHERE COALESCE(a.value, 0) <> COALESCE(s.value, 0)";
+
+    private static final String ADD_SQL =
+            "INSERT INTO library_counters (counter_name, bucket_date, slot, value) VALUES (?, ?, 0, ?) " +
+            "ON CONFLICT (counter_name, bucket_date, slot) DO UPDATE SET value = library_counters.value + EXCLUDED.value";
+
+    // Two rebuilds applying the same drift would double it; they take turns on this session lock
+    private static final String REBUILD_LOCK_SQL = "SELECT pg_advisory_lock(hashtext('library_counters_rebuild'))";
+    private static final String REBUILD_UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('library_counters_rebuild'))";
+
+    private static final String MARK_INITIALIZED_SQL =
+            "INSERT INTO library_counters (counter_name, bucket_date, slot, value) " +
+            "VALUES ('" + INITIALIZED + "', " + LEVEL + ", 0, 1) ON CONFLICT DO NOTHING";
+
+    @Override
+    public CirculationCounters getSnapshot() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            Map<String, Long> values = readCounters(conn, SNAPSHOT_SQL);
+            if (!values.containsKey(INITIALIZED)) {
+                rebuild();
+                values = readCounters(conn, SNAPSHOT_SQL);
+            }
+
+            LocalDate busiestDay = null;
+            long busiestDayBorrows = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(BUSIEST_DAY_SQL)) {
+                pstmt.setInt(1, BUSIEST_DAY_WINDOW);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        busiestDay = rs.getDate("bucket_date").toLocalDate();
+                        busiestDayBorrows = rs.getLong("value");
+                    }
+                }
+            }
+
+            return new CirculationCounters(values, busiestDay, busiestDayBorrows);
+
+        } catch (SQLException e) {
+            throw new SQLException("Error reading circulation counters: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DashboardSummary getDashboardSummary() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            Map<String, Long> values = readCounters(conn, DASHBOARD_SQL);
+            if (!values.containsKey(INITIALIZED)) {
+                rebuild();
+                values = readCounters(conn, DASHBOARD_SQL);
+            }
+
+            return new DashboardSummary(new CirculationCounters(values, null, 0),
+                    values.getOrDefault("users", 0L),
+                    values.getOrDefault("users_active", 0L),
+                    LocalDateTime.now());
+
+        } catch (SQLException e) {
+            throw new SQLException("Error reading dashboard summary: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recount from one REPEATABLE READ snapshot without locking anything, then
+     * add each counter's drift to the live rows. The triggers commit with the
+     * changes they count, so the snapshot holds the counters and the tables in
+     * step, and anything committed since only moves the live rows further by
+     * what it counted itself.
+     */
+    @Override
+    public void rebuild() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(REBUILD_LOCK_SQL);
+            }
+            try {
+                rebuildLocked(conn);
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(REBUILD_UNLOCK_SQL);
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Error rebuilding circulation counters: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Current value of one level counter, for the single-number DAO methods
+     * (e.g. "books_available", "readers_active")
+     */
+    static long readLevel(String counter) throws SQLException {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (Connection conn = DatabaseConfig.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(LEVEL_SQL)) {
+
+                pstmt.setString(1, counter);
+                pstmt.setString(2, counter);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next() && rs.getLong("initialized") > 0) {
+                        return rs.getLong("value");
+                    }
+                }
+            }
+            // Counters never built on this database yet
+            new CirculationCounterDAOImpl().rebuild();
+        }
+        throw new SQLException("Circulation counters are not initialized");
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void rebuildLocked(Connection conn) throws SQLException {
+        List<Object[]> drifts = new ArrayList<>();
+        conn.setAutoCommit(false);
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(DRIFT_SQL)) {
+            while (rs.next()) {
+                drifts.add(new Object[]{rs.getString("counter_name"), rs.getDate("bucket_date"), rs.getLong("drift")});
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(true);
+        }
+
+        // One short transaction per correction, so desks never wait on a set of rows held together
+        try (PreparedStatement pstmt = conn.prepareStatement(ADD_SQL)) {
+            for (Object[] drift : drifts) {
+                pstmt.setString(1, (String) drift[0]);
+                pstmt.setDate(2, (Date) drift[1]);
+                pstmt.setLong(3, (Long) drift[2]);
+                pstmt.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(MARK_INITIALIZED_SQL);
+        }
+    }
+
+    private Map<String, Long> readCounters(Connection conn, String sql) throws SQLException {
+        Map<String, Long> values = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                values.put(rs.getString("counter_name"), rs.getLong("value"));
+            }
+        }
+        return values;
+    }
+}
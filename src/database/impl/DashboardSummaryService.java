@@ -0,0 +1,96 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import database.dao.CirculationCounterDAO;
+import models.DashboardSummary;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide snapshot of the dashboard headline numbers.
+ *
+ * The snapshot is read with one aggregate query (see
+ * CirculationCounterDAO.getDashboardSummary) and shared by every open
+ * dashboard for db.dashboard.ttlSec. When it expires, the first caller
+ * refreshes it and concurrent callers wait for that refresh instead of
+ * querying themselves. Circulation changes made here invalidate it right away,
+ * including a snapshot whose query was already running when they committed.
+ */
+public class DashboardSummaryService {
+
+    private static final DashboardSummaryService INSTANCE = new DashboardSummaryService();
+
+    private final CirculationCounterDAO counterDAO = new CirculationCounterDAOImpl();
+    private final long ttlMs;
+    private final Object refreshLock = new Object();
+
+    private volatile DashboardSummary snapshot;
+    private volatile long expiresAt;
+    // Bumped by invalidate(); the snapshot is only fresh if read in the current generation
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long snapshotGeneration;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private DashboardSummaryService() {
+        this.ttlMs = Long.parseLong(DatabaseConfig.getProperty("db.dashboard.ttlSec", "15").trim()) * 1000;
+    }
+
+    public static DashboardSummaryService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Current summary, read from the database only if the shared one expired
+     * @return Summary, or the last one read if the refresh fails (null if none yet)
+     */
+    public DashboardSummary get() {
+        // Freshness first: the snapshot read after it is at least as new as the expiry seen
+        DashboardSummary current = isFresh() ? snapshot : null;
+        if (current != null) {
+            hits.incrementAndGet();
+            return current;
+        }
+
+        synchronized (refreshLock) {
+            // Another caller may have refreshed while this one waited
+            current = isFresh() ? snapshot : null;
+            if (current != null) {
+                hits.incrementAndGet();
+                return current;
+            }
+
+            try {
+                refreshes.incrementAndGet();
+                // Taken before the query: a change committed while it runs may be missing from it
+                long readGeneration = generation.get();
+                current = counterDAO.getDashboardSummary();
+                snapshot = current;
+                snapshotGeneration = readGeneration;
+                expiresAt = System.currentTimeMillis() + ttlMs;
+                return current;
+            } catch (SQLException e) {
+                System.err.println(" Lỗi khi đọc số liệu tổng quan: " + e.getMessage());
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Make the next get() read fresh numbers
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getRefreshes() { return refreshes.get(); }
+
+    // ========== HELPER METHODS ==========
+
+    private boolean isFresh() {
+        return snapshotGeneration == generation.get() && System.currentTimeMillis() < expiresAt;
+    }
+}
@@ -0,0 +1,113 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out primary keys (BR..., R..., LIB...) from blocks leased from a
+ * database sequence (hi/lo).
+ *
+ * One round trip leases a whole block of sequence values; IDs are then taken
+ * from the block with a single atomic increment, so the common case needs no
+ * lock and no database access. Every value comes from nextval(), so IDs are
+ * unique across all desk instances sharing the database. Values are increasing
+ * within a block and blocks are increasing, so IDs sort in allocation order
+ * (numerically on the suffix). Unused values of a block are lost on restart.
+ */
+public class IdAllocator {
+
+    private static final IdAllocator RECORDS = new IdAllocator("BR", "%d",
+            "borrow_record_id_seq", blockSize("db.ids.recordBlockSize", 1000));
+    private static final IdAllocator READERS = new IdAllocator("R", "%03d",
+            "reader_id_seq", blockSize("db.ids.readerBlockSize", 20));
+    private static final IdAllocator LIBRARIANS = new IdAllocator("LIB", "%03d",
+            "librarian_id_seq", blockSize("db.ids.librarianBlockSize", 5));
+
+    private static final String LEASE_SQL = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+    private final String prefix;
+    private final String numberFormat;
+    private final String sequence;
+    private final int blockSize;
+
+    private volatile Block current = new Block(new long[0]);
+
+    IdAllocator(String prefix, String numberFormat, String sequence, int blockSize) {
+        this.prefix = prefix;
+        this.numberFormat = numberFormat;
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+    }
+
+    public static IdAllocator records() { return RECORDS; }
+    public static IdAllocator readers() { return READERS; }
+    public static IdAllocator librarians() { return LIBRARIANS; }
+
+    /**
+     * Next unused ID, e.g. "R042"
+     * @throws SQLException if a new block is needed and cannot be leased
+     */
+    public String nextId() throws SQLException {
+        return prefix + String.format(numberFormat, nextValue());
+    }
+
+    private long nextValue() throws SQLException {
+        while (true) {
+            Block block = current;
+            int index = block.next.getAndIncrement();
+            if (index < block.values.length) {
+                return block.values[index];
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * Lease a new block, unless another thread already replaced the exhausted one
+     */
+    private synchronized void refill(Block exhausted) throws SQLException {
+        if (current != exhausted) {
+            return;
+        }
+
+        long[] values = new long[blockSize];
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LEASE_SQL)) {
+
+            pstmt.setString(1, sequence);
+            pstmt.setInt(2, blockSize);
+
+            int count = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    values[count++] = rs.getLong(1);
+                }
+            }
+            // Concurrent leases may interleave, so values need not be contiguous
+            Arrays.sort(values, 0, count);
+            current = new Block(count == blockSize ? values : Arrays.copyOf(values, count));
+
+        } catch (SQLException e) {
+            throw new SQLException("Error allocating " + prefix + " IDs from " + sequence + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int blockSize(String key, int defaultValue) {
+        return Math.max(1, Integer.parseInt(DatabaseConfig.getProperty(key, String.valueOf(defaultValue)).trim()));
+    }
+
+    private static class Block {
+        private final long[] values;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Block(long[] values) {
+            this.values = values;
+        }
+    }
+}
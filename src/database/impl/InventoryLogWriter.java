@@ -0,0 +1,397 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import database.dao.BookInventoryLogDAO;
+import models.BookInventoryLog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes inventory audit entries off the caller's path.
+ *
+ * Entries go into a bounded ring buffer (db.auditLog.queueCapacity) drained by
+ * one background thread, which inserts them in JDBC batches of up to
+ * db.auditLog.batchSize rows, or whatever arrived within db.auditLog.flushIntervalMs.
+ * When the buffer is full, callers wait up to db.auditLog.offerTimeoutMs.
+ *
+ * Entries are never dropped: a batch that cannot reach the database, or an
+ * entry that still finds the buffer full, is appended to a local spill file
+ * (db.auditLog.spillFile) that is replayed once the database accepts writes
+ * again. A batch refused for a constraint violation (SQLState class 23) is
+ * retried row by row instead; the rows the database rejects themselves go to
+ * db.auditLog.rejectedFile with the reason, so they never block the others.
+ * The buffer is flushed on shutdown, from DatabaseConfig.shutdown() so that
+ * the pool is still open.
+ */
+public class InventoryLogWriter {
+
+    private static final InventoryLogWriter INSTANCE = new InventoryLogWriter(new BookInventoryLogDAOImpl());
+
+    private static final long SPILL_RETRY_MS = 30_000;
+    // Times per flush interval the writer looks for a full batch
+    private static final int FILL_CHECKS = 10;
+
+    private final BookInventoryLogDAO logDAO;
+    private final BlockingQueue<BookInventoryLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path rejectedFile;
+
+    // Held while a batch is taken from the queue and written, so flush() sees a consistent state
+    private final Object writeLock = new Object();
+    private final Object spillLock = new Object();
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile long nextSpillReplay = 0;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushMs;
+    private volatile long maxFlushMs;
+
+    InventoryLogWriter(BookInventoryLogDAO logDAO) {
+        this.logDAO = logDAO;
+        this.queue = new ArrayBlockingQueue<>(intProperty("db.auditLog.queueCapacity", 10_000));
+        this.batchSize = intProperty("db.auditLog.batchSize", 500);
+        this.flushIntervalMs = intProperty("db.auditLog.flushIntervalMs", 200);
+        this.offerTimeoutMs = intProperty("db.auditLog.offerTimeoutMs", 1_000);
+        this.spillFile = Paths.get(DatabaseConfig.getProperty("db.auditLog.spillFile", "inventory-log-spill.tsv"));
+        this.replayFile = Paths.get(spillFile + ".replay");
+        this.rejectedFile = Paths.get(DatabaseConfig.getProperty("db.auditLog.rejectedFile", "inventory-log-rejected.tsv"));
+
+        this.writer = new Thread(this::run, "inventory-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Console entry points never call shutdown(); flush whatever is left on exit, before the pool closes
+        DatabaseConfig.addShutdownTask(this::shutdown);
+    }
+
+    public static InventoryLogWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queue an entry for writing. Waits while the buffer is full, then falls
+     * back to the spill file, so the entry is never lost.
+     */
+    public void submit(BookInventoryLog log) {
+        if (running) {
+            try {
+                if (queue.offer(log, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        spill(List.of(log));
+    }
+
+    /**
+     * Write everything queued so far before returning (read-your-writes for
+     * screens that show the log right after a change). The background writer
+     * only takes entries from the queue here, so none is ever in flight elsewhere.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            List<BookInventoryLog> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Stop the background writer and flush the buffer.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public int getQueueCapacity() { return queue.size() + queue.remainingCapacity(); }
+    public long getWrittenCount() { return written.get(); }
+    public long getSpilledCount() { return spilled.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+    public long getLastFlushLatencyMs() { return lastFlushMs; }
+    public long getMaxFlushLatencyMs() { return maxFlushMs; }
+
+    public double getAverageFlushLatencyMs() {
+        long count = flushes.get();
+        return count == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / count;
+    }
+
+    public boolean hasSpilledEntries() {
+        return Files.exists(spillFile) || Files.exists(replayFile);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void run() {
+        while (running) {
+            try {
+                // Give a burst the interval to fill a batch, checking a few times for a full one.
+                // Nothing is taken from the queue meanwhile, so flush() callers never wait on it.
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                long check = Math.max(1, flushIntervalMs / FILL_CHECKS);
+                while (queue.size() < batchSize) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) break;
+                    Thread.sleep(Math.min(remaining, check));
+                }
+                flush();
+                replaySpillIfDue();
+
+            } catch (InterruptedException e) {
+                // shutdown() flushes whatever is left
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Inventory log writer error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void write(List<BookInventoryLog> batch) {
+        long start = System.nanoTime();
+        try {
+            logDAO.saveAll(batch);
+            written.addAndGet(batch.size());
+            recordFlush(System.nanoTime() - start);
+        } catch (SQLException e) {
+            int done = SqlStates.has(e, SqlStates.INTEGRITY_VIOLATION_CLASS) ? writeEach(batch) : 0;
+            if (done < batch.size()) {
+                System.err.println("  Không thể ghi log, lưu tạm vào " + spillFile + ": " + e.getMessage());
+                spill(batch.subList(done, batch.size()));
+                nextSpillReplay = System.currentTimeMillis() + SPILL_RETRY_MS;
+            }
+        }
+    }
+
+    /**
+     * Write a batch that hit a constraint violation one row at a time, moving
+     * the rows the database rejects to the rejected file
+     * @return Number of rows handled; less than logs.size() if a connection or
+     *         other transient error stopped it (the rest is still to be written)
+     */
+    private int writeEach(List<BookInventoryLog> logs) {
+        for (int i = 0; i < logs.size(); i++) {
+            BookInventoryLog log = logs.get(i);
+            try {
+                logDAO.saveAll(List.of(log));
+                written.incrementAndGet();
+            } catch (SQLException e) {
+                if (!SqlStates.has(e, SqlStates.INTEGRITY_VIOLATION_CLASS)) {
+                    return i;
+                }
+                System.err.println("  Log bị từ chối, chuyển vào " + rejectedFile + ": " + e.getMessage());
+                reject(toLine(log), e.getMessage());
+            }
+        }
+        return logs.size();
+    }
+
+    private void recordFlush(long nanos) {
+        long ms = nanos / 1_000_000;
+        flushes.incrementAndGet();
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushMs = ms;
+        if (ms > maxFlushMs) {
+            maxFlushMs = ms;
+        }
+    }
+
+    private void spill(List<BookInventoryLog> logs) {
+        synchronized (spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (BookInventoryLog log : logs) {
+                    out.write(toLine(log));
+                    out.newLine();
+                }
+                spilled.addAndGet(logs.size());
+            } catch (IOException e) {
+                // Last resort: keep the entries visible in the console output
+                System.err.println("  Không thể ghi file log tạm: " + e.getMessage());
+                for (BookInventoryLog log : logs) {
+                    System.err.println("  " + log.getInfo());
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep an entry that will never be written (the database rejects it, or
+     * its spill line cannot be read), with the reason, for manual review
+     * @param line Spill-file line of the entry
+     */
+    private void reject(String line, String reason) {
+        synchronized (spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line + "\t" + escape(reason));
+                out.newLine();
+                rejected.incrementAndGet();
+            } catch (IOException e) {
+                System.err.println("  Không thể ghi file log bị từ chối: " + e.getMessage());
+                System.err.println("  " + line);
+            }
+        }
+    }
+
+    /**
+     * Move spilled entries back into the database. The spill file is renamed
+     * first, so entries spilled meanwhile go to a fresh file.
+     */
+    private void replaySpillIfDue() {
+        if (System.currentTimeMillis() < nextSpillReplay || !hasSpilledEntries()) {
+            return;
+        }
+
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replayFile) && Files.exists(spillFile)) {
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<String> lines = Files.readAllLines(replayFile, StandardCharsets.UTF_8);
+            lines.removeIf(String::isEmpty);
+            // A line cut short (process killed mid-spill) must not hold back the ones after it
+            List<BookInventoryLog> entries = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                try {
+                    entries.add(fromLine(line));
+                } catch (RuntimeException e) {
+                    System.err.println("  Dòng log tạm không đọc được, chuyển vào " + rejectedFile + ": " + e.getMessage());
+                    reject(line, "Unreadable spill line: " + e);
+                }
+            }
+
+            int done = 0;
+            try {
+                while (done < entries.size()) {
+                    int end = Math.min(done + batchSize, entries.size());
+                    List<BookInventoryLog> logs = new ArrayList<>(entries.subList(done, end));
+                    try {
+                        logDAO.saveAll(logs);
+                        written.addAndGet(logs.size());
+                    } catch (SQLException e) {
+                        if (!SqlStates.has(e, SqlStates.INTEGRITY_VIOLATION_CLASS)) {
+                            throw e;
+                        }
+                        int handled = writeEach(logs);
+                        if (handled < logs.size()) {
+                            done += handled;
+                            throw e;
+                        }
+                    }
+                    done = end;
+                }
+            } catch (SQLException e) {
+                // Database still unavailable: keep only what was not written, try again later
+                List<String> remaining = new ArrayList<>(entries.size() - done);
+                for (BookInventoryLog log : entries.subList(done, entries.size())) {
+                    remaining.add(toLine(log));
+                }
+                Files.write(replayFile, remaining, StandardCharsets.UTF_8);
+                nextSpillReplay = System.currentTimeMillis() + SPILL_RETRY_MS;
+                return;
+            }
+
+            Files.delete(replayFile);
+            System.out.println(" Đã ghi lại " + entries.size() + " log tồn trong " + spillFile);
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("  Không thể đọc file log tạm: " + e.getMessage());
+            nextSpillReplay = System.currentTimeMillis() + SPILL_RETRY_MS;
+        }
+    }
+
+    // One entry per line, tab separated; tabs, newlines and backslashes escaped
+    private static String toLine(BookInventoryLog log) {
+        return String.join("\t",
+                escape(log.getIsbn()),
+                String.valueOf(log.getQuantityChange()),
+                String.valueOf(log.getTotalCopiesAfter()),
+                escape(log.getActionType()),
+                escape(log.getPerformedBy()),
+                log.getTimestamp().toString(),
+                escape(log.getNotes()));
+    }
+
+    /**
+     * @throws RuntimeException if the line is not one written by toLine
+     */
+    private static BookInventoryLog fromLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("expected 7 fields, found " + fields.length);
+        }
+        return new BookInventoryLog(null,
+                unescape(fields[0]),
+                Integer.parseInt(fields[1]),
+                Integer.parseInt(fields[2]),
+                unescape(fields[3]),
+                unescape(fields[4]),
+                LocalDateTime.parse(fields[5]),
+                unescape(fields[6]));
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "\\N";
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if ("\\N".equals(value)) return null;
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        return Integer.parseInt(DatabaseConfig.getProperty(key, String.valueOf(defaultValue)).trim());
+    }
+}
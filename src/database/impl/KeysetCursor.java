@@ -0,0 +1,66 @@
+package database.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Base64;
+
+/**
+ * Encodes the sort key and primary key of the last row of a page into the
+ * opaque "after" token used by the keyset-paginated DAO methods.
+ *
+ * A token that cannot be decoded, or whose keys do not parse for the query
+ * (e.g. kept from another sort order), is reported by the DAO methods as an
+ * SQLException, like any other failed page query.
+ */
+final class KeysetCursor {
+
+    private static final String SEPARATOR = "\u001F";
+    // SQLSTATE invalid_parameter_value
+    private static final String INVALID_CURSOR_STATE = "22023";
+
+    private KeysetCursor() {
+    }
+
+    static String encode(String sortKey, String primaryKey) {
+        String raw = (sortKey != null ? sortKey : "") + SEPARATOR + primaryKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return {sortKey, primaryKey}
+     * @throws IllegalArgumentException if the token was not produced by encode()
+     */
+    static String[] decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split < 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token);
+        }
+        return new String[]{raw.substring(0, split), raw.substring(split + SEPARATOR.length())};
+    }
+
+    /**
+     * Reject a page size that would read as an empty last page (LIMIT 0)
+     * @throws IllegalArgumentException if pageSize is not positive
+     */
+    static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+    }
+
+    /**
+     * Error for a token that failed to decode or whose keys failed to parse
+     * @param error Prefix of the DAO's error messages, e.g. "Error fetching log page: "
+     */
+    static SQLException invalid(String error, IllegalArgumentException cause) {
+        return new SQLException(error + "invalid page cursor, restart from the first page",
+                INVALID_CURSOR_STATE, cause);
+    }
+}
@@ -0,0 +1,72 @@
+package database.impl;
+
+import database.dao.Page;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A column a keyset-paginated query can be ordered by, with the primary key
+ * as tie breaker. Builds the ORDER BY clause, the condition that skips to
+ * the row after a cursor, and the cursor of a page's last row.
+ *
+ * The column must be NOT NULL: a row comparison with NULL matches nothing.
+ */
+final class KeysetSort<T> {
+
+    private final String column;
+    private final Function<String, Object> parser;
+    private final Function<T, String> keyOf;
+
+    /**
+     * @param column SQL expression to order by
+     * @param parser Turns a cursor's sort key back into a JDBC parameter
+     * @param keyOf Sort key of a row, as stored in the cursor
+     */
+    KeysetSort(String column, Function<String, Object> parser, Function<T, String> keyOf) {
+        this.column = column;
+        this.parser = parser;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Sort named by a PageQuery, or the default one when name is null
+     * @throws IllegalArgumentException for an unknown name
+     */
+    static <T> KeysetSort<T> resolve(Map<String, KeysetSort<T>> sorts, String name, String defaultName) {
+        KeysetSort<T> sort = sorts.get(name != null ? name : defaultName);
+        if (sort == null) {
+            throw new IllegalArgumentException("Unknown sort column: " + name);
+        }
+        return sort;
+    }
+
+    /**
+     * Condition matching the rows after the cursor; binds (sort key, primary key)
+     */
+    String seekCondition(String primaryKey, boolean descending) {
+        return "(" + column + ", " + primaryKey + ") " + (descending ? "<" : ">") + " (?, ?)";
+    }
+
+    String orderBy(String primaryKey, boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        return " ORDER BY " + column + direction + ", " + primaryKey + direction;
+    }
+
+    Object parseKey(String key) {
+        return parser.apply(key);
+    }
+
+    /**
+     * Cut rows (fetched with LIMIT pageSize + 1) into a page and the cursor of the next one
+     */
+    Page<T> toPage(List<T> rows, int pageSize, Function<T, String> primaryKeyOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        T last = items.get(pageSize - 1);
+        return new Page<>(items, KeysetCursor.encode(keyOf.apply(last), primaryKeyOf.apply(last)));
+    }
+}
@@ -102,17 +102,7 @@ public class LibrarianDAOImpl implements LibrarianDAO {
 
     @Override
     public String generateNextLibrarianId() throws SQLException {
-        String sql = "SELECT employee_id FROM librarians WHERE employee_id LIKE 'LIB%' ORDER BY employee_id DESC LIMIT 1";
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                String lastId = rs.getString("employee_id");
-                int nextNum = Integer.parseInt(lastId.substring(3)) + 1;
-                return String.format("LIB%03d", nextNum);
-            }
-            return "LIB001";
-        }
+        return IdAllocator.librarians().nextId();
     }
 
     @Override
@@ -5,18 +5,31 @@ import database.dao.*;
 import interfaces.Reportable;
 import interfaces.Searchable;
 import models.BookInventoryLog;
+import models.BookStatistics;
 import models.BorrowRecord;
+import models.OverdueReport;
+import models.PopularityEntry;
+import models.OverdueSweepResult;
+import models.Report;
+import models.CirculationCounters;
+import models.DashboardSummary;
+import models.ReaderStatistics;
+import models.CheckoutResult;
+import models.ReturnResult;
 import models.books.Book;
-import models.enums.BorrowStatus;
+import models.enums.CheckoutStatus;
+import models.enums.PopularityDimension;
+import models.enums.PopularityWindow;
+import models.enums.ReportType;
 import models.enums.UserRole;
 import models.people.Librarian;
 import models.people.Reader;
 import models.people.User;
+import search.Completion;
+import search.SearchField;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
 
 public class LibraryService implements Searchable, Reportable {
@@ -29,19 +42,31 @@ public class LibraryService implements Searchable, Reportable {
     private final BorrowRecordDAO borrowRecordDAO;
     private final UserDAO userDAO;
     private final LibrarianDAO librarianDAO;
+    private final BookInventoryLogDAO inventoryLogDAO;
+    private final CirculationCounterDAO circulationCounterDAO;
+    private final StatisticsDAO statisticsDAO;
+    private final ReportCache reportCache = ReportCache.getInstance();
 
     private final int maxBorrowDays = 14;
-    private final double finePerDay = 5000;
+    private final double finePerDay = BorrowRecord.FINE_PER_DAY;
 
     public LibraryService(String name, String address) {
         this.libraryName = name;
         this.address = address;
-        this.bookDAO = new BookDAOImpl();
+        this.bookDAO = new CachingBookDAO(new BookDAOImpl());
         this.readerDAO = new ReaderDAOImpl();
         this.borrowRecordDAO = new BorrowRecordDAOImpl();
         this.userDAO = new UserDAOImpl();
 
         this.librarianDAO = new LibrarianDAOImpl();
+        this.inventoryLogDAO = new BookInventoryLogDAOImpl();
+        this.circulationCounterDAO = new CirculationCounterDAOImpl();
+        this.statisticsDAO = new StatisticsDAOImpl();
+
+        BookCache.getInstance().start();
+        MaintenanceScheduler.getInstance().start();
+        PopularityTracker.getInstance().start();
+        BookSearchService.getInstance().start();
     }
 
     // ========== BOOK MANAGEMENT ==========
@@ -96,6 +121,7 @@ public class LibraryService implements Searchable, Reportable {
     public void addBook(Book book, String performedBy) {
         try {
             bookDAO.save(book);
+            BookSearchService.getInstance().bookSaved(book);
 
             // Log the addition
             logInventoryChange(book.getISBN(), book.getTotalCopies(), book.getTotalCopies(),
@@ -107,23 +133,48 @@ public class LibraryService implements Searchable, Reportable {
         }
     }
 
-    private void logInventoryChange(String isbn, int quantityChange, int totalAfter,
-                                    String actionType, String performedBy, String notes) {
+    /**
+     * Load a whole vendor catalog in chunks, writing inventory logs in the same transactions.
+     * @param books Books to load (an Iterable or Stream::iterator)
+     * @param performedBy Librarian ID for the inventory logs
+     * @param upsert Add copies to existing ISBNs instead of rejecting them
+     * @param chunkSize Rows per transaction
+     * @return Totals and rejected rows, or null if the load was aborted by a database error
+     */
+    public BookBulkLoader.Result importBooks(Iterable<Book> books, String performedBy, boolean upsert, int chunkSize) {
         try {
-            BookInventoryLogDAO logDAO = new BookInventoryLogDAOImpl();
-            BookInventoryLog log = new BookInventoryLog(isbn, quantityChange, totalAfter,
-                    actionType, performedBy, notes);
-            logDAO.save(log);
+            BookBulkLoader loader = new BookBulkLoader(chunkSize, upsert, performedBy);
+            BookBulkLoader.Result result = loader.load(books, chunk ->
+                    System.out.printf(" Lô %d: %d dòng (%d mới, %d cập nhật, %d lỗi) - %.0f dòng/giây%n",
+                            chunk.getChunkNumber(), chunk.getRows(), chunk.getInserted(),
+                            chunk.getUpdated(), chunk.getRejected(), chunk.getRowsPerSecond()));
+
+            System.out.println(" Đã nhập " + result.getInserted() + " sách mới, cập nhật " +
+                    result.getUpdated() + ", từ chối " + result.getRejected());
+
+            // Cheaper than indexing every loaded row one by one
+            BookSearchService.getInstance().rebuild();
+            return result;
+
         } catch (SQLException e) {
-            System.err.println("  Không thể ghi log: " + e.getMessage());
+            System.err.println(" Lỗi khi nhập danh mục: " + e.getMessage());
+            return null;
         }
     }
 
+    private void logInventoryChange(String isbn, int quantityChange, int totalAfter,
+                                    String actionType, String performedBy, String notes) {
+        // Written in the background; a database outage spills to a local file instead of losing it
+        InventoryLogWriter.getInstance().submit(new BookInventoryLog(isbn, quantityChange, totalAfter,
+                actionType, performedBy, notes));
+    }
+
     public boolean removeBook(String isbn) {
         try {
             Book book = bookDAO.findByISBN(isbn);
             if (book != null && book.getAvailableCopies() == book.getTotalCopies()) {
                 bookDAO.delete(isbn);
+                BookSearchService.getInstance().bookRemoved(isbn);
                 System.out.println(" Đã xóa sách: " + book.getTitle());
                 return true;
             }
@@ -138,6 +189,7 @@ public class LibraryService implements Searchable, Reportable {
     public void updateBook(Book book) {
         try {
             bookDAO.update(book);
+            BookSearchService.getInstance().bookSaved(book);
             System.out.println(" Đã cập nhật sách: " + book.getTitle());
         } catch (SQLException e) {
             System.err.println(" Lỗi khi cập nhật sách: " + e.getMessage());
@@ -162,24 +214,17 @@ public class LibraryService implements Searchable, Reportable {
 
     // ========== SEARCH OPERATIONS (Implementation of Searchable) ==========
 
+    // Searches go to the in-memory index (BookSearchService); the database
+    // queries are only used until the index has been built.
+
     @Override
     public List<Book> searchByTitle(String title) {
-        try {
-            return bookDAO.searchByTitle(title);
-        } catch (SQLException e) {
-            System.err.println(" Lỗi khi tìm kiếm: " + e.getMessage());
-            return List.of();
-        }
+        return searchIndexed(title, SearchField.TITLE, Integer.MAX_VALUE, () -> bookDAO.searchByTitle(title));
     }
 
     @Override
     public List<Book> searchByAuthor(String author) {
-        try {
-            return bookDAO.searchByAuthor(author);
-        } catch (SQLException e) {
-            System.err.println(" Lỗi khi tìm kiếm: " + e.getMessage());
-            return List.of();
-        }
+        return searchIndexed(author, SearchField.AUTHOR, Integer.MAX_VALUE, () -> bookDAO.searchByAuthor(author));
     }
 
     @Override
@@ -194,8 +239,75 @@ public class LibraryService implements Searchable, Reportable {
 
     @Override
     public List<Book> searchByCategory(String category) {
+        return searchIndexed(category, SearchField.CATEGORY, Integer.MAX_VALUE, () -> bookDAO.searchByCategory(category));
+    }
+
+    @Override
+    public List<Book> searchByTitle(String title, int limit) {
+        return searchIndexed(title, SearchField.TITLE, limit, () -> bookDAO.searchByTitle(title, limit));
+    }
+
+    @Override
+    public List<Book> searchByAuthor(String author, int limit) {
+        return searchIndexed(author, SearchField.AUTHOR, limit, () -> bookDAO.searchByAuthor(author, limit));
+    }
+
+    @Override
+    public List<Book> searchByCategory(String category, int limit) {
+        return searchIndexed(category, SearchField.CATEGORY, limit, () -> bookDAO.searchByCategory(category, limit));
+    }
+
+    /**
+     * Ranked search over title, author, category, publisher and the type-specific
+     * fields (subject, topic, issue number) at once
+     * @return Best matches first, at most limit
+     */
+    public List<Book> searchBooks(String text, int limit) {
+        return searchIndexed(text, null, limit, () -> bookDAO.searchByTitle(text, limit));
+    }
+
+    // Typo-tolerant searches, for when the exact ones find nothing. Served from
+    // the index; until it is built they fall back to the exact database search.
+
+    @Override
+    public List<Book> searchByTitleFuzzy(String title, int limit) {
+        return searchIndexed(title, SearchField.TITLE, limit, true, () -> bookDAO.searchByTitle(title, limit));
+    }
+
+    @Override
+    public List<Book> searchByAuthorFuzzy(String author, int limit) {
+        return searchIndexed(author, SearchField.AUTHOR, limit, true, () -> bookDAO.searchByAuthor(author, limit));
+    }
+
+    public List<Book> searchBooksFuzzy(String text, int limit) {
+        return searchIndexed(text, null, limit, true, () -> bookDAO.searchByTitle(text, limit));
+    }
+
+    /**
+     * Type-ahead suggestions: titles and authors starting with what was typed,
+     * most borrowed first. Served from memory, cheap enough for every keystroke.
+     * @return At most limit (10 at most) completions; empty until the index is built
+     */
+    public List<Completion> suggestBooks(String prefix, int limit) {
+        return BookSearchService.getInstance().complete(prefix, null, limit);
+    }
+
+    /**
+     * Database search used while the index is not built
+     */
+    private interface BookQuery {
+        List<Book> run() throws SQLException;
+    }
+
+    private List<Book> searchIndexed(String text, SearchField field, int limit, BookQuery fallback) {
+        return searchIndexed(text, field, limit, false, fallback);
+    }
+
+    private List<Book> searchIndexed(String text, SearchField field, int limit, boolean fuzzy, BookQuery fallback) {
         try {
-            return bookDAO.searchByCategory(category);
+            BookSearchService index = BookSearchService.getInstance();
+            List<String> isbns = fuzzy ? index.searchFuzzy(text, field, limit) : index.search(text, field, limit);
+            return isbns != null ? bookDAO.findByISBNs(isbns) : fallback.run();
         } catch (SQLException e) {
             System.err.println(" Lỗi khi tìm kiếm: " + e.getMessage());
             return List.of();
@@ -315,78 +427,55 @@ public class LibraryService implements Searchable, Reportable {
 
     // ========== BORROW/RETURN OPERATIONS ==========
 
-    public BorrowRecord borrowBook(String readerId, String isbn) {
+    /**
+     * Check out a book in one transaction on one connection.
+     * @return Result with the new record, or why the checkout was refused
+     */
+    public CheckoutResult checkout(String readerId, String isbn) {
         try {
-            Reader reader = readerDAO.findById(readerId);
-            Book book = bookDAO.findByISBN(isbn);
-
-            if (reader == null) {
-                System.out.println(" Không tìm thấy độc giả");
-                return null;
-            }
-
-            if (book == null) {
-                System.out.println(" Không tìm thấy sách");
-                return null;
-            }
-
-            if (!reader.canBorrow()) {
-                System.out.println(" Độc giả đã đạt giới hạn mượn sách");
-                return null;
-            }
-
-            if (!book.isAvailable()) {
-                System.out.println(" Sách không có sẵn");
-                return null;
-            }
-
-            // Execute borrow transaction
-            if (book.borrowBook()) {
-                reader.incrementBorrowCount();
-                BorrowRecord record = new BorrowRecord(reader, book);
-
-                // Save to database
-                borrowRecordDAO.save(record);
-                bookDAO.update(book);
-                readerDAO.update(reader);
-
-                System.out.println(" Mượn sách thành công!");
-                System.out.println("  Hạn trả: " + record.getDueDate());
-                return record;
-            }
-
-            return null;
-
+            return borrowRecordDAO.checkout(readerId, isbn);
         } catch (SQLException e) {
             System.err.println(" Lỗi khi mượn sách: " + e.getMessage());
+            return CheckoutResult.refused(CheckoutStatus.ERROR);
+        }
+    }
+
+    public BorrowRecord borrowBook(String readerId, String isbn) {
+        CheckoutResult result = checkout(readerId, isbn);
+
+        if (!result.isSuccess()) {
+            System.out.println(" " + result.getMessage());
             return null;
         }
+
+        BorrowRecord record = result.getRecord();
+        System.out.println(" Mượn sách thành công!");
+        System.out.println("  Hạn trả: " + record.getDueDate());
+        return record;
     }
 
-    public void returnBook(String recordId) {
+    /**
+     * Return a book in one transaction with targeted column updates.
+     * @return Result with the fine charged, or null if the record is not BORROWED/OVERDUE
+     */
+    public ReturnResult returnBook(String recordId) {
         try {
-            BorrowRecord record = borrowRecordDAO.findById(recordId);
+            ReturnResult result = borrowRecordDAO.returnRecord(recordId, finePerDay);
 
-            if (record != null && record.getStatus() == BorrowStatus.BORROWED) {
-                record.markAsReturned();
-                record.getBook().returnBook();
-                record.getReader().decrementBorrowCount();
-
-                // Update database
-                borrowRecordDAO.update(record);
-                bookDAO.update(record.getBook());
-                readerDAO.update(record.getReader());
+            if (result == null) {
+                System.out.println(" Không tìm thấy phiếu mượn");
+                return null;
+            }
 
-                System.out.println(" Trả sách thành công!");
-                if (record.getFine() > 0) {
-                    System.out.println("  Phí phạt: " + String.format("%,.0f VND", record.getFine()));
-                }
-                return;
+            System.out.println(" Trả sách thành công!");
+            if (result.getFine() > 0) {
+                System.out.println("  Phí phạt: " + String.format("%,.0f VND", result.getFine()));
             }
-            System.out.println(" Không tìm thấy phiếu mượn");
+            return result;
 
         } catch (SQLException e) {
             System.err.println(" Lỗi khi trả sách: " + e.getMessage());
+            return null;
         }
     }
 
@@ -434,118 +523,123 @@ public class LibraryService implements Searchable, Reportable {
 
     // ========== REPORT GENERATION (Implementation of Reportable) ==========
 
-    @Override
-    public void generatePopularBooksReport() {
-        System.out.println("\n=== TOP 5 SÁCH ĐƯỢC MƯỢN NHIỀU NHẤT ===");
-
-        String sql = "SELECT b.isbn, b.title, COUNT(*) as borrow_count " +
-                "FROM borrow_records br " +
-                "JOIN books b ON br.isbn = b.isbn " +
-                "GROUP BY b.isbn, b.title " +
-                "ORDER BY borrow_count DESC " +
-                "LIMIT 5";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                System.out.println(rs.getString("title") + " - " +
-                        rs.getInt("borrow_count") + " lần");
-            }
+    // Reports are cached (ReportCache); checkouts, returns and the overdue sweep
+    // invalidate the live ones, a statistics refresh the statistics-based ones.
 
+    @Override
+    public Report<List<BookStatistics>> generatePopularBooksReport(int limit) {
+        try {
+            return reportCache.get(ReportType.POPULAR_BOOKS, String.valueOf(limit), () -> {
+                StatisticsSnapshot<List<BookStatistics>> stats = statisticsDAO.findTopBooks(limit);
+                return new Report<>(ReportType.POPULAR_BOOKS, stats.getData(),
+                        stats.getRefreshedAt(), stats.getMaxStaleness());
+            });
         } catch (SQLException e) {
             System.err.println(" Lỗi khi tạo báo cáo: " + e.getMessage());
+            return null;
         }
     }
 
     @Override
-    public void generateActiveReadersReport() {
-        System.out.println("\n=== TOP 5 ĐỘC GIẢ TÍCH CỰC NHẤT ===");
-
-        String sql = "SELECT reader_id, name, total_borrowed " +
-                "FROM readers " +
-                "ORDER BY total_borrowed DESC " +
-                "LIMIT 5";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                System.out.println(rs.getString("name") + " - " +
-                        rs.getInt("total_borrowed") + " lần");
-            }
-
+    public Report<List<ReaderStatistics>> generateActiveReadersReport(int limit) {
+        try {
+            return reportCache.get(ReportType.ACTIVE_READERS, String.valueOf(limit), () -> {
+                StatisticsSnapshot<List<ReaderStatistics>> stats = statisticsDAO.findTopReaders(limit);
+                return new Report<>(ReportType.ACTIVE_READERS, stats.getData(),
+                        stats.getRefreshedAt(), stats.getMaxStaleness());
+            });
         } catch (SQLException e) {
             System.err.println(" Lỗi khi tạo báo cáo: " + e.getMessage());
+            return null;
         }
     }
 
     @Override
-    public void generateOverdueReport() {
-        System.out.println("\n=== DANH SÁCH SÁCH QUÁ HẠN ===");
-        List<BorrowRecord> overdueList = getOverdueRecords();
-
-        if (overdueList.isEmpty()) {
-            System.out.println("Không có sách quá hạn.");
-            return;
-        }
-
-        for (BorrowRecord record : overdueList) {
-            System.out.println(record.getInfo() + " - Trễ: " + record.getDaysLate() + " ngày");
+    public Report<OverdueReport> generateOverdueReport(int pageSize, String after) {
+        try {
+            return reportCache.get(ReportType.OVERDUE, pageSize + ":" + after, () -> {
+                Page<BorrowRecord> page = borrowRecordDAO.findOverduePage(pageSize, after);
+                return new Report<>(ReportType.OVERDUE, new OverdueReport(page.getItems(), page.getNextCursor(),
+                        borrowRecordDAO.getOverdueCount(), borrowRecordDAO.getOverdueFineTotal()));
+            });
+        } catch (SQLException e) {
+            System.err.println(" Lỗi khi tạo báo cáo: " + e.getMessage());
+            return null;
         }
     }
 
     @Override
-    public void generateMonthlyStatistics() {
-        System.out.println("\n=== THỐNG KÊ THÁNG NÀY ===");
-
-        try (Connection conn = DatabaseConfig.getConnection()) {
+    public Report<CirculationCounters> generateMonthlyStatistics() {
+        try {
+            return reportCache.get(ReportType.MONTHLY_STATISTICS, "", () ->
+                    new Report<>(ReportType.MONTHLY_STATISTICS, circulationCounterDAO.getSnapshot()));
+        } catch (SQLException e) {
+            System.err.println(" Lỗi khi tạo báo cáo: " + e.getMessage());
+            return null;
+        }
+    }
 
-            // Total books
-            String sql1 = "SELECT COUNT(*) as count FROM books";
-            Statement stmt1 = conn.createStatement();
-            ResultSet rs1 = stmt1.executeQuery(sql1);
-            if (rs1.next()) {
-                System.out.println("Tổng số sách: " + rs1.getInt("count"));
-            }
+    /**
+     * Most borrowed books, authors or categories, or most active readers, in a
+     * recent window. Approximate (see PopularityTracker); empty while the
+     * tracker is still loading.
+     */
+    public List<PopularityEntry> getTrending(PopularityDimension dimension, PopularityWindow window, int limit) {
+        return PopularityTracker.getInstance().top(dimension, window, limit);
+    }
 
-            // Total readers
-            String sql2 = "SELECT COUNT(*) as count FROM readers";
-            Statement stmt2 = conn.createStatement();
-            ResultSet rs2 = stmt2.executeQuery(sql2);
-            if (rs2.next()) {
-                System.out.println("Tổng số độc giả: " + rs2.getInt("count"));
-            }
+    /**
+     * Counters for statistics and dashboard cards, read without scanning the source tables
+     * @return Current counters, or null if they could not be read
+     */
+    public CirculationCounters getCirculationCounters() {
+        try {
+            return circulationCounterDAO.getSnapshot();
+        } catch (SQLException e) {
+            System.err.println(" Lỗi khi đọc thống kê: " + e.getMessage());
+            return null;
+        }
+    }
 
-            // Total borrow records
-            String sql3 = "SELECT COUNT(*) as count FROM borrow_records";
-            Statement stmt3 = conn.createStatement();
-            ResultSet rs3 = stmt3.executeQuery(sql3);
-            if (rs3.next()) {
-                System.out.println("Số lần mượn: " + rs3.getInt("count"));
-            }
+    /**
+     * Headline numbers for the dashboards, shared by all of them for a few seconds
+     * @return Summary, or null if it could not be read
+     */
+    public DashboardSummary getDashboardSummary() {
+        return DashboardSummaryService.getInstance().get();
+    }
 
-            // Currently borrowed
-            String sql4 = "SELECT COUNT(*) as count FROM borrow_records WHERE status = 'BORROWED'";
-            Statement stmt4 = conn.createStatement();
-            ResultSet rs4 = stmt4.executeQuery(sql4);
-            if (rs4.next()) {
-                System.out.println("Đang được mượn: " + rs4.getInt("count"));
-            }
+    /**
+     * Refresh the statistics views now instead of waiting for the schedule
+     */
+    public void refreshStatistics() {
+        MaintenanceScheduler.getInstance().refreshStatistics();
+    }
 
-            // Overdue
-            String sql5 = "SELECT COUNT(*) as count FROM borrow_records " +
-                    "WHERE status = 'BORROWED' AND due_date < CURRENT_DATE";
-            Statement stmt5 = conn.createStatement();
-            ResultSet rs5 = stmt5.executeQuery(sql5);
-            if (rs5.next()) {
-                System.out.println("Sách quá hạn: " + rs5.getInt("count"));
-            }
+    /**
+     * Mark loans past their due date as OVERDUE now instead of waiting for the schedule
+     * @return Sweep outcome, or null on error or if another desk is sweeping
+     */
+    public OverdueSweepResult sweepOverdueRecords() {
+        OverdueSweepResult result = MaintenanceScheduler.getInstance().sweepOverdue();
+        if (result != null) {
+            System.out.println(" Đã chuyển " + result.getMarkedOverdue() + " phiếu sang quá hạn");
+        }
+        return result;
+    }
 
+    /**
+     * Repair job: recompute the circulation counters from books, readers and borrow_records
+     * @return true if the counters were rebuilt
+     */
+    public boolean rebuildCirculationCounters() {
+        try {
+            circulationCounterDAO.rebuild();
+            System.out.println(" Đã tính lại bộ đếm thống kê");
+            return true;
         } catch (SQLException e) {
-            System.err.println(" Lỗi khi tạo thống kê: " + e.getMessage());
+            System.err.println(" Lỗi khi tính lại thống kê: " + e.getMessage());
+            return false;
         }
     }
 
@@ -585,4 +679,42 @@ public class LibraryService implements Searchable, Reportable {
             return List.of();
         }
     }
+
+    // ========== PAGINATED ACCESS ==========
+    // Keyset pages: pass the previous page's getNextCursor() as "after", null for the first page.
+    // Errors are thrown, not turned into an empty page, which would read as the end of the data.
+
+    public Page<Book> getBooksPage(int pageSize, String after) throws SQLException {
+        return bookDAO.findPage(pageSize, after);
+    }
+
+    public Page<Reader> getReadersPage(int pageSize, String after) throws SQLException {
+        return readerDAO.findPage(pageSize, after);
+    }
+
+    public Page<BorrowRecord> getBorrowRecordsPage(int pageSize, String after) throws SQLException {
+        return borrowRecordDAO.findPage(pageSize, after);
+    }
+
+    /**
+     * Page of borrow records sorted and filtered on the server (see BorrowRecordDAO.findPage(PageQuery, ...))
+     */
+    public Page<BorrowRecord> getBorrowRecordsPage(PageQuery query, int pageSize, String after) throws SQLException {
+        return borrowRecordDAO.findPage(query, pageSize, after);
+    }
+
+    public Page<BookInventoryLog> getInventoryLogsPage(int pageSize, String after) throws SQLException {
+        return getInventoryLogsPage(PageQuery.DEFAULT, pageSize, after);
+    }
+
+    /**
+     * Page of inventory logs sorted and filtered on the server (see BookInventoryLogDAO.findPage(PageQuery, ...))
+     */
+    public Page<BookInventoryLog> getInventoryLogsPage(PageQuery query, int pageSize, String after) throws SQLException {
+        // Entries are written in the background; make the latest ones visible on the first page
+        if (after == null) {
+            InventoryLogWriter.getInstance().flush();
+        }
+        return inventoryLogDAO.findPage(query, pageSize, after);
+    }
 }
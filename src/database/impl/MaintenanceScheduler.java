@@ -0,0 +1,159 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import database.dao.BorrowRecordDAO;
+import database.dao.CirculationCounterDAO;
+import database.dao.StatisticsDAO;
+import models.BorrowRecord;
+import models.OverdueSweepResult;
+import models.enums.ReportType;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background database maintenance shared by the whole process:
+ * refreshing the materialized statistics (db.stats.refreshIntervalSec),
+ * rebuilding the circulation counters (db.counters.rebuildIntervalHours) and
+ * moving loans past their due date to OVERDUE (db.overdue.sweepIntervalMin).
+ * Jobs that must not run on two desks at once take an advisory lock.
+ */
+public class MaintenanceScheduler {
+
+    private static final MaintenanceScheduler INSTANCE = new MaintenanceScheduler();
+
+    private final StatisticsDAO statisticsDAO = new StatisticsDAOImpl();
+    private final CirculationCounterDAO counterDAO = new CirculationCounterDAOImpl();
+    private final BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAOImpl();
+
+    private ScheduledExecutorService executor;
+    private volatile OverdueSweepResult lastOverdueSweep;
+
+    private MaintenanceScheduler() {
+    }
+
+    public static MaintenanceScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long statsInterval = StatisticsDAOImpl.refreshInterval().getSeconds();
+        if (statsInterval > 0) {
+            schedule(this::refreshStatistics, 0, statsInterval, TimeUnit.SECONDS);
+        }
+
+        long rebuildHours = Long.parseLong(DatabaseConfig.getProperty("db.counters.rebuildIntervalHours", "24").trim());
+        if (rebuildHours > 0) {
+            schedule(this::rebuildCounters, rebuildHours, rebuildHours, TimeUnit.HOURS);
+        }
+
+        long sweepMinutes = Long.parseLong(DatabaseConfig.getProperty("db.overdue.sweepIntervalMin", "15").trim());
+        if (sweepMinutes > 0) {
+            schedule(this::sweepOverdue, 0, sweepMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Run a job periodically on the maintenance thread. A failing run is
+     * logged and does not cancel later runs.
+     */
+    public synchronized void schedule(Runnable job, long initialDelay, long period, TimeUnit unit) {
+        if (executor == null) {
+            throw new IllegalStateException("Maintenance scheduler is not started");
+        }
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                System.err.println("Maintenance job failed: " + e.getMessage());
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * Run a job once on the maintenance thread, after the jobs already waiting
+     */
+    public synchronized void submit(Runnable job) {
+        if (executor == null) {
+            throw new IllegalStateException("Maintenance scheduler is not started");
+        }
+        executor.execute(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                System.err.println("Maintenance job failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Refresh both statistics views now (also used by the scheduled job)
+     */
+    public void refreshStatistics() {
+        for (String view : new String[]{StatisticsDAO.BOOK_STATISTICS, StatisticsDAO.READER_STATISTICS}) {
+            try {
+                if (statisticsDAO.refresh(view)) {
+                    ReportCache.getInstance().invalidate(StatisticsDAO.BOOK_STATISTICS.equals(view)
+                            ? ReportType.POPULAR_BOOKS : ReportType.ACTIVE_READERS);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error refreshing statistics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run the overdue sweep now (also used by the scheduled job)
+     * @return Sweep outcome, or null if it failed or another desk was sweeping
+     */
+    public OverdueSweepResult sweepOverdue() {
+        int chunkSize = Integer.parseInt(DatabaseConfig.getProperty("db.overdue.chunkSize", "500").trim());
+        try {
+            OverdueSweepResult result = borrowRecordDAO.markOverdue(BorrowRecord.FINE_PER_DAY, chunkSize);
+            if (result != null) {
+                lastOverdueSweep = result;
+                if (result.getMarkedOverdue() > 0) {
+                    System.out.println("Overdue sweep: " + result.getMarkedOverdue() + " loans marked overdue, " +
+                            result.getFinesUpdated() + " fines updated in " + result.getDurationMs() + " ms");
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            System.err.println("Error sweeping overdue records: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of the last sweep run by this process, or null if none ran yet
+     */
+    public OverdueSweepResult getLastOverdueSweep() {
+        return lastOverdueSweep;
+    }
+
+    private void rebuildCounters() {
+        try {
+            counterDAO.rebuild();
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding counters: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import models.BorrowRecord;
+import models.PopularityEntry;
+import models.books.Book;
+import models.enums.PopularityDimension;
+import models.enums.PopularityWindow;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-memory top-N of the most borrowed books, authors, categories and the
+ * most active readers, over the last 7 days, 30 days and all time.
+ *
+ * Fed by checkouts made in this process and seeded from one streaming scan
+ * of borrow_records, repeated every db.popularity.reseedHours to pick up
+ * checkouts made on other desks. Each dimension keeps one Space-Saving
+ * summary of db.popularity.capacity counters for all time and one per day
+ * for the last 30 days; windows merge the day summaries. Counts are
+ * estimates: with N borrows in the window and capacity m, every reported
+ * count is within N / m of the true count (the exact per-entry bound is
+ * {@link PopularityEntry#getError()}), and anything borrowed more than N / m
+ * times is always reported. Merged results are cached until the next
+ * checkout or day change, so repeated queries only copy a list.
+ */
+public class PopularityTracker {
+
+    private static final PopularityTracker INSTANCE = new PopularityTracker();
+
+    private static final int DAYS = 30;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long reseedHours;
+
+    // All fields below are guarded by this
+    private Map<PopularityDimension, Summaries> state;
+    // Non-null while a seed scan runs: checkouts seen meanwhile
+    private List<BorrowRecord> pending;
+    private boolean ready;
+    private final Map<String, List<PopularityEntry>> ranked = new HashMap<>();
+
+    private PopularityTracker() {
+        this.enabled = Boolean.parseBoolean(DatabaseConfig.getProperty("db.popularity.enabled", "true"));
+        this.capacity = Math.max(10, Integer.parseInt(DatabaseConfig.getProperty("db.popularity.capacity", "256").trim()));
+        this.reseedHours = Math.max(1, Long.parseLong(DatabaseConfig.getProperty("db.popularity.reseedHours", "6").trim()));
+        this.state = newState();
+    }
+
+    public static PopularityTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule the seed scan on the maintenance thread (runs immediately,
+     * then every db.popularity.reseedHours). Requires a started MaintenanceScheduler.
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        MaintenanceScheduler.getInstance().schedule(this::reseed, 0, reseedHours, TimeUnit.HOURS);
+    }
+
+    /**
+     * Count a committed checkout
+     */
+    public synchronized void recordCheckout(BorrowRecord record) {
+        if (!enabled) {
+            return;
+        }
+        add(state, record);
+        ranked.clear();
+        if (pending != null) {
+            pending.add(record);
+        }
+    }
+
+    /**
+     * Most borrowed keys in the window, largest first; empty until the first seed scan finished
+     */
+    public synchronized List<PopularityEntry> top(PopularityDimension dimension, PopularityWindow window, int n) {
+        if (!ready) {
+            return List.of();
+        }
+        long today = LocalDate.now().toEpochDay();
+        String cacheKey = dimension + ":" + window + ":" + today;
+        List<PopularityEntry> entries = ranked.get(cacheKey);
+        if (entries == null) {
+            entries = rank(state.get(dimension), window, today);
+            ranked.put(cacheKey, entries);
+        }
+        return List.copyOf(entries.subList(0, Math.min(n, entries.size())));
+    }
+
+    /**
+     * Largest possible error of any count reported for the window (at most borrows / capacity)
+     */
+    public synchronized long getErrorBound(PopularityDimension dimension, PopularityWindow window) {
+        Summaries summaries = state.get(dimension);
+        if (window == PopularityWindow.ALL_TIME) {
+            return summaries.allTime.untrackedBound();
+        }
+        long bound = 0;
+        for (SpaceSaving day : summaries.days(window, LocalDate.now().toEpochDay())) {
+            bound += day.untrackedBound();
+        }
+        return bound;
+    }
+
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuild all summaries from borrow_records. Checkouts recorded while the
+     * scan runs are replayed afterwards unless the scan already saw them.
+     */
+    public void reseed() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        LocalDate scanStart = LocalDate.now();
+        Map<PopularityDimension, Summaries> fresh = newState();
+        // Records the scan may share with pending: only today's can
+        Set<String> recentIds = new HashSet<>();
+
+        try (Stream<BorrowRecord> records = new BorrowRecordDAOImpl().streamAll()) {
+            records.forEach(record -> {
+                add(fresh, record);
+                if (!record.getBorrowDate().isBefore(scanStart)) {
+                    recentIds.add(record.getRecordId());
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Error seeding popularity tracker: " + e.getMessage());
+            synchronized (this) {
+                pending = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            for (BorrowRecord record : pending) {
+                if (!recentIds.contains(record.getRecordId())) {
+                    add(fresh, record);
+                }
+            }
+            state = fresh;
+            pending = null;
+            ready = true;
+            ranked.clear();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private Map<PopularityDimension, Summaries> newState() {
+        Map<PopularityDimension, Summaries> summaries = new EnumMap<>(PopularityDimension.class);
+        for (PopularityDimension dimension : PopularityDimension.values()) {
+            summaries.put(dimension, new Summaries());
+        }
+        return summaries;
+    }
+
+    private void add(Map<PopularityDimension, Summaries> target, BorrowRecord record) {
+        Book book = record.getBook();
+        long day = record.getBorrowDate().toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+
+        for (PopularityDimension dimension : PopularityDimension.values()) {
+            String key;
+            String label;
+            switch (dimension) {
+                case BOOK:
+                    key = book != null ? book.getISBN() : null;
+                    label = book != null ? book.getTitle() : null;
+                    break;
+                case AUTHOR:
+                    key = label = book != null ? book.getAuthor() : null;
+                    break;
+                case CATEGORY:
+                    key = label = book != null ? book.getCategory() : null;
+                    break;
+                default:
+                    key = record.getReader() != null ? record.getReader().getId() : null;
+                    label = record.getReader() != null ? record.getReader().getName() : null;
+            }
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+
+            Summaries summaries = target.get(dimension);
+            summaries.allTime.offer(key, label);
+            if (day <= today && today - day < DAYS) {
+                summaries.day(day).offer(key, label);
+            }
+        }
+    }
+
+    /**
+     * All tracked keys of the window with merged counts, largest first.
+     * A key a day summary does not track may still have up to that day's
+     * untracked bound there; that goes into its error.
+     */
+    private List<PopularityEntry> rank(Summaries summaries, PopularityWindow window, long today) {
+        List<PopularityEntry> entries = new ArrayList<>();
+        if (window == PopularityWindow.ALL_TIME) {
+            for (SpaceSaving.Counter c : summaries.allTime.top(capacity)) {
+                entries.add(new PopularityEntry(c.key, c.label, c.count, c.error));
+            }
+            return entries;
+        }
+
+        List<SpaceSaving> days = summaries.days(window, today);
+        Map<String, String> labels = new HashMap<>();
+        for (SpaceSaving day : days) {
+            for (SpaceSaving.Counter c : day.counters()) {
+                labels.putIfAbsent(c.key, c.label);
+            }
+        }
+
+        for (Map.Entry<String, String> key : labels.entrySet()) {
+            long count = 0;
+            long error = 0;
+            for (SpaceSaving day : days) {
+                SpaceSaving.Counter c = day.get(key.getKey());
+                if (c != null) {
+                    count += c.count;
+                    error += c.error;
+                } else {
+                    error += day.untrackedBound();
+                }
+            }
+            entries.add(new PopularityEntry(key.getKey(), key.getValue(), count, error));
+        }
+        entries.sort((a, b) -> a.getCount() != b.getCount()
+                ? Long.compare(b.getCount(), a.getCount())
+                : a.getKey().compareTo(b.getKey()));
+        return entries;
+    }
+
+    private class Summaries {
+        final SpaceSaving allTime = new SpaceSaving(capacity);
+        final SpaceSaving[] days = new SpaceSaving[DAYS];
+        final long[] dayOf = new long[DAYS];
+
+        SpaceSaving day(long epochDay) {
+            int slot = (int) Math.floorMod(epochDay, (long) DAYS);
+            if (days[slot] == null || dayOf[slot] != epochDay) {
+                days[slot] = new SpaceSaving(capacity);
+                dayOf[slot] = epochDay;
+            }
+            return days[slot];
+        }
+
+        List<SpaceSaving> days(PopularityWindow window, long today) {
+            List<SpaceSaving> result = new ArrayList<>(window.getDays());
+            for (int slot = 0; slot < DAYS; slot++) {
+                if (days[slot] != null && dayOf[slot] <= today && today - dayOf[slot] < window.getDays()) {
+                    result.add(days[slot]);
+                }
+            }
+            return result;
+        }
+    }
+}
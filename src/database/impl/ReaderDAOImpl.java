@@ -1,6 +1,7 @@
 package database.impl;
 
 import database.config.DatabaseConfig;
+import database.dao.Page;
 import database.dao.ReaderDAO;
 import models.enums.MembershipType;
 import models.people.Reader;
@@ -130,6 +131,51 @@ public class ReaderDAOImpl implements ReaderDAO {
         return readers;
     }
 
+    @Override
+    public Page<Reader> findPage(int pageSize, String after) throws SQLException {
+        KeysetCursor.checkPageSize(pageSize);
+        String[] key = null;
+        if (after != null) {
+            try {
+                key = KeysetCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw KeysetCursor.invalid("Error fetching reader page: ", e);
+            }
+        }
+        String sql = after == null
+                ? "SELECT * FROM readers WHERE status = 'ACTIVE' ORDER BY name, reader_id LIMIT ?"
+                : "SELECT * FROM readers WHERE status = 'ACTIVE' AND (name, reader_id) > (?, ?) " +
+                  "ORDER BY name, reader_id LIMIT ?";
+        List<Reader> readers = new ArrayList<>();
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (key != null) {
+                pstmt.setString(index++, key[0]);
+                pstmt.setString(index++, key[1]);
+            }
+            pstmt.setInt(index, pageSize + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    readers.add(mapResultSetToReader(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching reader page: " + e.getMessage(), e);
+        }
+
+        if (readers.size() <= pageSize) {
+            return new Page<>(readers, null);
+        }
+        readers = readers.subList(0, pageSize);
+        Reader last = readers.get(pageSize - 1);
+        return new Page<>(readers, KeysetCursor.encode(last.getName(), last.getId()));
+    }
+
     @Override
     public List<Reader> findByMembershipType(String membershipType) throws SQLException {
         String sql = "SELECT * FROM readers WHERE membership_type = ? AND status = 'ACTIVE' ORDER BY name";
@@ -193,17 +239,8 @@ public class ReaderDAOImpl implements ReaderDAO {
 
     @Override
     public int getActiveCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM readers WHERE status = 'ACTIVE'";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            return 0;
-
+        try {
+            return (int) CirculationCounterDAOImpl.readLevel("readers_active");
         } catch (SQLException e) {
             throw new SQLException("Error counting active readers: " + e.getMessage(), e);
         }
@@ -212,53 +249,39 @@ public class ReaderDAOImpl implements ReaderDAO {
     // ========== HELPER METHODS ==========
 
     /**
-     * Generate next reader ID in format R#### (minimum 4 characters)
-     * Examples: R0001, R0002, ... R0999, R1000, R1500, etc.
+     * Generate next reader ID in format R### (at least 3 digits)
+     * Examples: R001, R002, ... R999, R1000, R1500, etc.
+     * Numbers come from reader_id_seq, so two desks never get the same ID.
      */
     private String generateNextReaderId() throws SQLException {
-        String sql = "SELECT reader_id FROM readers WHERE reader_id LIKE 'R%' ORDER BY reader_id DESC LIMIT 1";
-
-        try (Connection conn = DatabaseConfig.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                String lastId = rs.getString("reader_id");
-                // Extract number from R####
-                int lastNumber = Integer.parseInt(lastId.substring(1));
-                int nextNumber = lastNumber + 1;
-                // Format with at least 3 digits (R001, R002, etc.)
-                return String.format("R%03d", nextNumber);
-            } else {
-                // First reader
-                return "R001";
-            }
-
-        } catch (SQLException e) {
-            throw new SQLException("Error generating reader ID: " + e.getMessage(), e);
-        } catch (NumberFormatException e) {
-            // If parsing fails, start from R001
-            return "R001";
-        }
+        return IdAllocator.readers().nextId();
     }
 
     private Reader mapResultSetToReader(ResultSet rs) throws SQLException {
-        String id = rs.getString("reader_id");
-        String name = rs.getString("name");
-        String email = rs.getString("email");
-        String phone = rs.getString("phone");
-        MembershipType type = MembershipType.valueOf(rs.getString("membership_type"));
+        return mapResultSetToReader(rs, "");
+    }
+
+    /**
+     * Map a reader from columns named with the given prefix, so the same
+     * mapping can be reused for joined queries (e.g. "r_name").
+     */
+    static Reader mapResultSetToReader(ResultSet rs, String prefix) throws SQLException {
+        String id = rs.getString(prefix + "reader_id");
+        String name = rs.getString(prefix + "name");
+        String email = rs.getString(prefix + "email");
+        String phone = rs.getString(prefix + "phone");
+        MembershipType type = MembershipType.valueOf(rs.getString(prefix + "membership_type"));
 
         Reader reader = new Reader(id, name, email, phone, type);
 
-        reader.setAddress(rs.getString("address"));
-        reader.setRegistrationDate(rs.getDate("registration_date").toLocalDate());
-        reader.setCurrentBorrows(rs.getInt("current_borrows"));
-        reader.setTotalBorrowed(rs.getInt("total_borrowed"));
-        reader.setActive(rs.getBoolean("is_active"));
+        reader.setAddress(rs.getString(prefix + "address"));
+        reader.setRegistrationDate(rs.getDate(prefix + "registration_date").toLocalDate());
+        reader.setCurrentBorrows(rs.getInt(prefix + "current_borrows"));
+        reader.setTotalBorrowed(rs.getInt(prefix + "total_borrowed"));
+        reader.setActive(rs.getBoolean(prefix + "is_active"));
 
         // Set status (use ACTIVE as default if null for backward compatibility)
-        String status = rs.getString("status");
+        String status = rs.getString(prefix + "status");
         reader.setStatus(status != null ? status : "ACTIVE");
 
         return reader;
@@ -0,0 +1,147 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import models.Report;
+import models.enums.ReportType;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of built reports, keyed by report type and parameters.
+ *
+ * Entries live for db.reportCache.ttlSec, which bounds staleness for changes
+ * made on other desks; circulation changes made here invalidate the affected
+ * report types right away. Concurrent requests for a report that is being
+ * built wait for that build instead of starting their own.
+ */
+public class ReportCache {
+
+    private static final ReportCache INSTANCE = new ReportCache();
+
+    /**
+     * Builds a report on a cache miss
+     */
+    public interface Loader<T> {
+        Report<T> load() throws SQLException;
+    }
+
+    private final boolean enabled;
+    private final long ttlMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private ReportCache() {
+        this.enabled = Boolean.parseBoolean(DatabaseConfig.getProperty("db.reportCache.enabled", "true"));
+        this.ttlMs = Long.parseLong(DatabaseConfig.getProperty("db.reportCache.ttlSec", "60").trim()) * 1000;
+    }
+
+    public static ReportCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Cached report for (type, params), built with loader if missing or expired
+     * @throws SQLException if the build fails (failures are not cached)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Report<T> get(ReportType type, String params, Loader<T> loader) throws SQLException {
+        if (!enabled) {
+            return loader.load();
+        }
+
+        String key = type.name() + ":" + params;
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.incrementAndGet();
+                return (Report<T>) entry.await();
+            }
+
+            // Only the thread that installs the new entry builds the report
+            Entry mine = new Entry(type);
+            boolean installed = entry == null
+                    ? entries.putIfAbsent(key, mine) == null
+                    : entries.replace(key, entry, mine);
+            if (!installed) {
+                continue;
+            }
+
+            misses.incrementAndGet();
+            try {
+                Report<T> report = loader.load();
+                mine.complete(report, System.currentTimeMillis() + ttlMs);
+                return report;
+            } catch (SQLException | RuntimeException e) {
+                entries.remove(key, mine);
+                mine.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Drop cached reports of the given types. Builds already running finish
+     * for their callers but are not kept.
+     */
+    public void invalidate(ReportType... types) {
+        if (entries.values().removeIf(e -> Arrays.asList(types).contains(e.type))) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getInvalidations() { return invalidations.get(); }
+    public int size() { return entries.size(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private static class Entry {
+        private final ReportType type;
+        private final CompletableFuture<Report<?>> future = new CompletableFuture<>();
+        // Set before the future completes; Long.MAX_VALUE while the build runs
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(ReportType type) {
+            this.type = type;
+        }
+
+        void complete(Report<?> report, long expiresAt) {
+            this.expiresAt = expiresAt;
+            future.complete(report);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        Report<?> await() throws SQLException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Turns a query into a lazily mapped Stream backed by a server-side cursor.
+ *
+ * The PostgreSQL driver only fetches in batches (instead of buffering the whole
+ * result set) when auto-commit is off and a fetch size is set, so each stream
+ * holds its own read-only transaction until it is closed.
+ */
+final class ResultSetStream {
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    static int defaultFetchSize() {
+        return Integer.parseInt(DatabaseConfig.getProperty("db.fetchSize", "500"));
+    }
+
+    /**
+     * Open a stream over the rows of the given query.
+     * The stream must be closed (try-with-resources) to release its connection.
+     */
+    static <T> Stream<T> open(String sql, int fetchSize, RowMapper<T> mapper, Object... params) throws SQLException {
+        Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            rs = pstmt.executeQuery();
+
+        } catch (SQLException e) {
+            closeQuietly(null, pstmt, conn);
+            throw e;
+        }
+
+        final PreparedStatement statement = pstmt;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error streaming rows: " + e.getMessage(), e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> closeQuietly(rs, statement, conn));
+    }
+
+    private static void closeQuietly(ResultSet rs, PreparedStatement pstmt, Connection conn) {
+        try {
+            if (rs != null) rs.close();
+            if (pstmt != null) pstmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing stream cursor: " + e.getMessage());
+        }
+        try {
+            // Read-only transaction: nothing to keep, end it before returning the connection
+            conn.rollback();
+        } catch (SQLException ignored) {
+            // The pool resets or discards the connection anyway
+        }
+        DatabaseConfig.closeConnection(conn);
+    }
+}
@@ -0,0 +1,100 @@
+package database.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters summary (Metwally et al.) over a stream of keys.
+ *
+ * Keeps at most {@code capacity} counters. A key that is not tracked takes
+ * over the smallest counter and inherits its count as error, so for every
+ * tracked key: count - error <= true count <= count, and error <= total / capacity.
+ * Any key whose true count exceeds total / capacity is guaranteed to be tracked.
+ *
+ * Not thread-safe; {@link PopularityTracker} serializes access.
+ */
+class SpaceSaving {
+
+    static class Counter {
+        final String key;
+        String label;
+        long count;
+        long error;
+
+        Counter(String key, String label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.<Counter>comparingLong(c -> c.count).thenComparing(c -> c.key);
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(String key, String label) {
+        total++;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count++;
+            counter.label = label;
+            byCount.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter(key, label, 1, 0);
+        } else {
+            Counter min = byCount.pollFirst();
+            counters.remove(min.key);
+            counter = new Counter(key, label, min.count + 1, min.count);
+        }
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    Counter get(String key) {
+        return counters.get(key);
+    }
+
+    /**
+     * Upper bound on the true count of any key that is not tracked
+     */
+    long untrackedBound() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    /**
+     * Largest counts first
+     */
+    List<Counter> top(int n) {
+        List<Counter> result = new ArrayList<>(Math.min(n, counters.size()));
+        for (Counter counter : byCount.descendingSet()) {
+            if (result.size() >= n) break;
+            result.add(counter);
+        }
+        return result;
+    }
+
+    Iterable<Counter> counters() {
+        return counters.values();
+    }
+}
@@ -0,0 +1,36 @@
+package database.impl;
+
+import java.sql.SQLException;
+
+/**
+ * SQLSTATE checks on the exceptions the DAOs throw, which wrap the driver's
+ * exception (and batch errors chain the real cause as the next exception).
+ */
+final class SqlStates {
+
+    // Class 23: integrity constraint violation (unique, foreign key, check, not null)
+    static final String INTEGRITY_VIOLATION_CLASS = "23";
+    // Transaction rolled back by a deadlock; safe to run again
+    static final String DEADLOCK_DETECTED = "40P01";
+
+    private SqlStates() {
+    }
+
+    /**
+     * Whether the exception or anything it wraps has an SQLSTATE starting with the prefix
+     * @param prefix Full SQLSTATE or its two-character class
+     */
+    static boolean has(SQLException e, String prefix) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                for (SQLException s = (SQLException) t; s != null; s = s.getNextException()) {
+                    String state = s.getSQLState();
+                    if (state != null && state.startsWith(prefix)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
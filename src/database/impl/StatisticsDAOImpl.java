@@ -0,0 +1,238 @@
+package database.impl;
+
+import database.config.DatabaseConfig;
+import database.dao.StatisticsDAO;
+import database.dao.StatisticsSnapshot;
+import models.BookStatistics;
+import models.ReaderStatistics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the materialized statistics views. Each read also returns when the
+ * view was last refreshed (stats_refresh_log), so callers can show or act on
+ * staleness.
+ */
+public class StatisticsDAOImpl implements StatisticsDAO {
+
+    private static final Set<String> VIEWS = Set.of(BOOK_STATISTICS, READER_STATISTICS);
+
+    private static final String REFRESHED_AT_SQL =
+            "SELECT refreshed_at FROM stats_refresh_log WHERE view_name = ?";
+
+    /**
+     * Interval between scheduled refreshes, i.e. the normal staleness bound
+     */
+    public static Duration refreshInterval() {
+        return Duration.ofSeconds(Long.parseLong(
+                DatabaseConfig.getProperty("db.stats.refreshIntervalSec", "300").trim()));
+    }
+
+    @Override
+    public StatisticsSnapshot<List<BookStatistics>> findTopBooks(int limit) throws SQLException {
+        String sql = "SELECT * FROM mv_book_statistics ORDER BY total_borrows DESC, isbn LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, limit);
+            List<BookStatistics> books = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(mapResultSetToBookStatistics(rs));
+                }
+            }
+            return snapshot(conn, BOOK_STATISTICS, books);
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching book statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StatisticsSnapshot<BookStatistics> findBookStatistics(String isbn) throws SQLException {
+        String sql = "SELECT * FROM mv_book_statistics WHERE isbn = ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, isbn);
+            BookStatistics stats = null;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    stats = mapResultSetToBookStatistics(rs);
+                }
+            }
+            return snapshot(conn, BOOK_STATISTICS, stats);
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching book statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StatisticsSnapshot<List<ReaderStatistics>> findTopReaders(int limit) throws SQLException {
+        String sql = "SELECT * FROM mv_reader_statistics ORDER BY total_borrowed DESC, reader_id LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, limit);
+            List<ReaderStatistics> readers = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    readers.add(mapResultSetToReaderStatistics(rs));
+                }
+            }
+            return snapshot(conn, READER_STATISTICS, readers);
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching reader statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StatisticsSnapshot<ReaderStatistics> findReaderStatistics(String readerId) throws SQLException {
+        String sql = "SELECT * FROM mv_reader_statistics WHERE reader_id = ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, readerId);
+            ReaderStatistics stats = null;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    stats = mapResultSetToReaderStatistics(rs);
+                }
+            }
+            return snapshot(conn, READER_STATISTICS, stats);
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching reader statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> findBorrowCounts() throws SQLException {
+        String sql = "SELECT isbn, total_borrows FROM mv_book_statistics WHERE total_borrows > 0";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            Map<String, Long> counts = new HashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getString("isbn"), rs.getLong("total_borrows"));
+            }
+            return counts;
+
+        } catch (SQLException e) {
+            throw new SQLException("Error fetching borrow counts: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean refresh(String viewName) throws SQLException {
+        if (!VIEWS.contains(viewName)) {
+            throw new IllegalArgumentException("Unknown statistics view: " + viewName);
+        }
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // Only one desk refreshes a view at a time; the others skip this round
+            if (!tryAdvisoryLock(conn, viewName)) {
+                return false;
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement log = conn.prepareStatement(
+                         "INSERT INTO stats_refresh_log (view_name, refreshed_at, duration_ms) VALUES (?, ?, ?) " +
+                         "ON CONFLICT (view_name) DO UPDATE SET refreshed_at = EXCLUDED.refreshed_at, " +
+                         "duration_ms = EXCLUDED.duration_ms")) {
+
+                // The data reflects the database as of the start of the refresh
+                LocalDateTime startedAt = LocalDateTime.now();
+                long start = System.nanoTime();
+                stmt.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + viewName);
+
+                log.setString(1, viewName);
+                log.setTimestamp(2, Timestamp.valueOf(startedAt));
+                log.setLong(3, (System.nanoTime() - start) / 1_000_000);
+                log.executeUpdate();
+                return true;
+
+            } finally {
+                try (PreparedStatement unlock = conn.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+                    unlock.setString(1, viewName);
+                    unlock.execute();
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new SQLException("Error refreshing " + viewName + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private <T> StatisticsSnapshot<T> snapshot(Connection conn, String viewName, T data) throws SQLException {
+        LocalDateTime refreshedAt = null;
+        try (PreparedStatement pstmt = conn.prepareStatement(REFRESHED_AT_SQL)) {
+            pstmt.setString(1, viewName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    refreshedAt = rs.getTimestamp("refreshed_at").toLocalDateTime();
+                }
+            }
+        }
+        return new StatisticsSnapshot<>(data, refreshedAt, refreshInterval());
+    }
+
+    static boolean tryAdvisoryLock(Connection conn, String name) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private BookStatistics mapResultSetToBookStatistics(ResultSet rs) throws SQLException {
+        return new BookStatistics(
+                rs.getString("isbn"),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getString("category"),
+                rs.getInt("total_copies"),
+                rs.getInt("available_copies"),
+                rs.getLong("total_borrows"),
+                rs.getLong("current_borrows"),
+                rs.getLong("total_returns"),
+                rs.getDouble("avg_borrow_days"));
+    }
+
+    private ReaderStatistics mapResultSetToReaderStatistics(ResultSet rs) throws SQLException {
+        return new ReaderStatistics(
+                rs.getString("reader_id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("membership_type"),
+                rs.getInt("current_borrows"),
+                rs.getInt("total_borrowed"),
+                rs.getLong("verified_borrows"),
+                rs.getLong("currently_borrowing"),
+                rs.getLong("overdue_count"),
+                rs.getDouble("total_fines"));
+    }
+}
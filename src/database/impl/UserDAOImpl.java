@@ -35,6 +35,7 @@ public class UserDAOImpl implements UserDAO {
             if (rs.next()) {
                 user.setUserId(rs.getLong(1));
             }
+            DashboardSummaryService.getInstance().invalidate();
 
         } catch (SQLException e) {
             throw new SQLException("Error saving user: " + e.getMessage(), e);
@@ -59,6 +60,7 @@ public class UserDAOImpl implements UserDAO {
             pstmt.setString(8, user.getUsername());
 
             pstmt.executeUpdate();
+            DashboardSummaryService.getInstance().invalidate();
 
         } catch (SQLException e) {
             throw new SQLException("Error updating user: " + e.getMessage(), e);
@@ -74,6 +76,7 @@ public class UserDAOImpl implements UserDAO {
 
             pstmt.setString(1, username);
             int rows = pstmt.executeUpdate();
+            DashboardSummaryService.getInstance().invalidate();
             return rows > 0;
 
         } catch (SQLException e) {
@@ -1,8 +1,19 @@
 package interfaces;
 
+import models.BookStatistics;
+import models.CirculationCounters;
+import models.OverdueReport;
+import models.ReaderStatistics;
+import models.Report;
+
+import java.util.List;
+
+// Reports return their data; printing or rendering is up to the caller.
+// Implementations return null when the report cannot be built.
 public interface Reportable {
-    void generatePopularBooksReport();
-    void generateActiveReadersReport();
-    void generateOverdueReport();
-    void generateMonthlyStatistics();
+    Report<List<BookStatistics>> generatePopularBooksReport(int limit);
+    Report<List<ReaderStatistics>> generateActiveReadersReport(int limit);
+    // after: cursor from the previous page, or null for the first page
+    Report<OverdueReport> generateOverdueReport(int pageSize, String after);
+    Report<CirculationCounters> generateMonthlyStatistics();
 }
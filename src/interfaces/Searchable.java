@@ -8,4 +8,34 @@ public interface Searchable {
     List<Book> searchByAuthor(String author);
     Book searchByISBN(String isbn);
     List<Book> searchByCategory(String category);
-}
\ No newline at end of file
+
+    // Ranked variants: best matches first, at most "limit" results.
+    // The defaults only truncate; implementations backed by an index should override them.
+
+    default List<Book> searchByTitle(String title, int limit) {
+        return firstN(searchByTitle(title), limit);
+    }
+
+    default List<Book> searchByAuthor(String author, int limit) {
+        return firstN(searchByAuthor(author), limit);
+    }
+
+    default List<Book> searchByCategory(String category, int limit) {
+        return firstN(searchByCategory(category), limit);
+    }
+
+    // Typo-tolerant variants: words a few edits away from the query also match,
+    // closer matches first. The defaults search exactly.
+
+    default List<Book> searchByTitleFuzzy(String title, int limit) {
+        return searchByTitle(title, limit);
+    }
+
+    default List<Book> searchByAuthorFuzzy(String author, int limit) {
+        return searchByAuthor(author, limit);
+    }
+
+    private static List<Book> firstN(List<Book> books, int limit) {
+        return books.size() > limit ? books.subList(0, limit) : books;
+    }
+}
@@ -0,0 +1,43 @@
+package models;
+
+/**
+ * One row of mv_book_statistics: circulation totals for a book.
+ */
+public class BookStatistics {
+    private final String isbn;
+    private final String title;
+    private final String author;
+    private final String category;
+    private final int totalCopies;
+    private final int availableCopies;
+    private final long totalBorrows;
+    private final long currentBorrows;
+    private final long totalReturns;
+    private final double avgBorrowDays;
+
+    public BookStatistics(String isbn, String title, String author, String category,
+                          int totalCopies, int availableCopies, long totalBorrows,
+                          long currentBorrows, long totalReturns, double avgBorrowDays) {
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+        this.category = category;
+        this.totalCopies = totalCopies;
+        this.availableCopies = availableCopies;
+        this.totalBorrows = totalBorrows;
+        this.currentBorrows = currentBorrows;
+        this.totalReturns = totalReturns;
+        this.avgBorrowDays = avgBorrowDays;
+    }
+
+    public String getIsbn() { return isbn; }
+    public String getTitle() { return title; }
+    public String getAuthor() { return author; }
+    public String getCategory() { return category; }
+    public int getTotalCopies() { return totalCopies; }
+    public int getAvailableCopies() { return availableCopies; }
+    public long getTotalBorrows() { return totalBorrows; }
+    public long getCurrentBorrows() { return currentBorrows; }
+    public long getTotalReturns() { return totalReturns; }
+    public double getAvgBorrowDays() { return avgBorrowDays; }
+}
@@ -6,6 +6,7 @@ import models.people.Reader;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BorrowRecord {
     private String recordId;
@@ -17,7 +18,9 @@ public class BorrowRecord {
     private BorrowStatus status;
     private double fine;
     private int renewalCount;
-    private static final int MAX_BORROW_DAYS = 14;
+    public static final int MAX_BORROW_DAYS = 14;
+    public static final double FINE_PER_DAY = 5000;
+    private static final AtomicLong LAST_RECORD_NUMBER = new AtomicLong();
 
     public BorrowRecord(Reader reader, Book book) {
         this.recordId = generateRecordId();
@@ -30,8 +33,14 @@ public class BorrowRecord {
         this.fine = 0.0;
     }
 
-    private String generateRecordId() {
-        return "BR" + System.currentTimeMillis();
+    /**
+     * Provisional ID for records built in memory. Time-based but strictly
+     * increasing, so two records created in the same millisecond still differ.
+     * Records saved to the database get their ID from IdAllocator instead.
+     */
+    public static String generateRecordId() {
+        long number = LAST_RECORD_NUMBER.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        return "BR" + number;
     }
 
     public double calculateFine() {
@@ -45,8 +54,13 @@ public class BorrowRecord {
         return fine;
     }
 
+    /**
+     * OVERDUE is set by the scheduled sweep; a loan that fell due since the
+     * last sweep is still BORROWED but already counts as overdue here.
+     */
     public boolean isOverdue() {
-        return LocalDate.now().isAfter(dueDate) && status == BorrowStatus.BORROWED;
+        return status == BorrowStatus.OVERDUE
+                || (status == BorrowStatus.BORROWED && LocalDate.now().isAfter(dueDate));
     }
 
     public boolean extendDueDate(int days) {
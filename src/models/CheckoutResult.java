@@ -0,0 +1,33 @@
+package models;
+
+import models.enums.CheckoutStatus;
+
+/**
+ * Outcome of a checkout: the created record on success,
+ * otherwise the reason the checkout was refused.
+ */
+public class CheckoutResult {
+    private final CheckoutStatus status;
+    private final BorrowRecord record;
+
+    private CheckoutResult(CheckoutStatus status, BorrowRecord record) {
+        this.status = status;
+        this.record = record;
+    }
+
+    public static CheckoutResult success(BorrowRecord record) {
+        return new CheckoutResult(CheckoutStatus.SUCCESS, record);
+    }
+
+    public static CheckoutResult refused(CheckoutStatus status) {
+        return new CheckoutResult(status, null);
+    }
+
+    public boolean isSuccess() {
+        return status == CheckoutStatus.SUCCESS;
+    }
+
+    public CheckoutStatus getStatus() { return status; }
+    public BorrowRecord getRecord() { return record; }
+    public String getMessage() { return status.getDescription(); }
+}
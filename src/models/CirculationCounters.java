@@ -0,0 +1,54 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Point-in-time read of the circulation counters kept in library_counters.
+ */
+public class CirculationCounters {
+    private final Map<String, Long> values;
+    private final LocalDate busiestDay;
+    private final long busiestDayBorrows;
+
+    /**
+     * @param values Counter values by name (missing counters read as 0)
+     * @param busiestDay Day with most borrows in the last 30 days, or null if none
+     * @param busiestDayBorrows Borrows on that day
+     */
+    public CirculationCounters(Map<String, Long> values, LocalDate busiestDay, long busiestDayBorrows) {
+        this.values = Map.copyOf(values);
+        this.busiestDay = busiestDay;
+        this.busiestDayBorrows = busiestDayBorrows;
+    }
+
+    public long getTotalBooks() { return value("books"); }
+    public long getAvailableBooks() { return value("books_available"); }
+    public long getTotalCopies() { return value("copies_total"); }
+    public long getAvailableCopies() { return value("copies_available"); }
+
+    public long getTotalReaders() { return value("readers"); }
+    public long getActiveReaders() { return value("readers_active"); }
+
+    public long getTotalLoans() { return value("loans"); }
+    public long getBorrowedLoans() { return value("loans_borrowed"); }
+    public long getOverdueStatusLoans() { return value("loans_overdue"); }
+    public long getReturnedLoans() { return value("loans_returned"); }
+    public long getLostLoans() { return value("loans_lost"); }
+
+    /** Loans not yet returned (BORROWED or OVERDUE) */
+    public long getActiveLoans() { return getBorrowedLoans() + getOverdueStatusLoans(); }
+
+    /** Open loans whose due date has passed */
+    public long getOverdueLoans() { return value("overdue"); }
+
+    public long getBorrowsThisMonth() { return value("borrows_month"); }
+    public long getReturnsThisMonth() { return value("returns_month"); }
+
+    public LocalDate getBusiestDay() { return busiestDay; }
+    public long getBusiestDayBorrows() { return busiestDayBorrows; }
+
+    private long value(String name) {
+        return values.getOrDefault(name, 0L);
+    }
+}
@@ -0,0 +1,26 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Headline numbers of the dashboards, read together in one query.
+ */
+public class DashboardSummary {
+    private final CirculationCounters counters;
+    private final long totalUsers;
+    private final long activeUsers;
+    private final LocalDateTime readAt;
+
+    public DashboardSummary(CirculationCounters counters, long totalUsers, long activeUsers, LocalDateTime readAt) {
+        this.counters = counters;
+        this.totalUsers = totalUsers;
+        this.activeUsers = activeUsers;
+        this.readAt = readAt;
+    }
+
+    /** Circulation counters (without the busiest day) */
+    public CirculationCounters getCounters() { return counters; }
+    public long getTotalUsers() { return totalUsers; }
+    public long getActiveUsers() { return activeUsers; }
+    public LocalDateTime getReadAt() { return readAt; }
+}
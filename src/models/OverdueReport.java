@@ -0,0 +1,28 @@
+package models;
+
+import java.util.List;
+
+/**
+ * One page of overdue loans, oldest due date first, with totals over all of them.
+ * Fines are the fines-to-date kept up by the overdue sweep.
+ */
+public class OverdueReport {
+    private final List<BorrowRecord> records;
+    private final String nextCursor;
+    private final long totalCount;
+    private final double totalFines;
+
+    public OverdueReport(List<BorrowRecord> records, String nextCursor, long totalCount, double totalFines) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+        this.totalFines = totalFines;
+    }
+
+    public List<BorrowRecord> getRecords() { return records; }
+    /** Cursor of the next page, or null on the last page */
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+    public long getTotalCount() { return totalCount; }
+    public double getTotalFines() { return totalFines; }
+}
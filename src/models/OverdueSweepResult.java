@@ -0,0 +1,30 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one overdue sweep: loans moved from BORROWED to OVERDUE and
+ * overdue loans whose fine-to-date was brought up to today.
+ */
+public class OverdueSweepResult {
+    private final int markedOverdue;
+    private final int finesUpdated;
+    private final int chunks;
+    private final LocalDateTime finishedAt;
+    private final long durationMs;
+
+    public OverdueSweepResult(int markedOverdue, int finesUpdated, int chunks,
+                              LocalDateTime finishedAt, long durationMs) {
+        this.markedOverdue = markedOverdue;
+        this.finesUpdated = finesUpdated;
+        this.chunks = chunks;
+        this.finishedAt = finishedAt;
+        this.durationMs = durationMs;
+    }
+
+    public int getMarkedOverdue() { return markedOverdue; }
+    public int getFinesUpdated() { return finesUpdated; }
+    public int getChunks() { return chunks; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public long getDurationMs() { return durationMs; }
+}
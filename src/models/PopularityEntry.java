@@ -0,0 +1,27 @@
+package models;
+
+/**
+ * Approximate borrow count of one book, author, category or reader.
+ * The true count is within count ± error.
+ */
+public class PopularityEntry {
+    private final String key;
+    private final String label;
+    private final long count;
+    private final long error;
+
+    public PopularityEntry(String key, String label, long count, long error) {
+        this.key = key;
+        this.label = label;
+        this.count = count;
+        this.error = error;
+    }
+
+    /** ISBN, author, category or reader ID */
+    public String getKey() { return key; }
+    /** Display name (book title, reader name, ...) */
+    public String getLabel() { return label; }
+    public long getCount() { return count; }
+    public long getError() { return error; }
+    public boolean isExact() { return error == 0; }
+}
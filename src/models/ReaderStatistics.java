@@ -0,0 +1,43 @@
+package models;
+
+/**
+ * One row of mv_reader_statistics: borrowing totals for an active reader.
+ */
+public class ReaderStatistics {
+    private final String readerId;
+    private final String name;
+    private final String email;
+    private final String membershipType;
+    private final int currentBorrows;
+    private final int totalBorrowed;
+    private final long verifiedBorrows;
+    private final long currentlyBorrowing;
+    private final long overdueCount;
+    private final double totalFines;
+
+    public ReaderStatistics(String readerId, String name, String email, String membershipType,
+                            int currentBorrows, int totalBorrowed, long verifiedBorrows,
+                            long currentlyBorrowing, long overdueCount, double totalFines) {
+        this.readerId = readerId;
+        this.name = name;
+        this.email = email;
+        this.membershipType = membershipType;
+        this.currentBorrows = currentBorrows;
+        this.totalBorrowed = totalBorrowed;
+        this.verifiedBorrows = verifiedBorrows;
+        this.currentlyBorrowing = currentlyBorrowing;
+        this.overdueCount = overdueCount;
+        this.totalFines = totalFines;
+    }
+
+    public String getReaderId() { return readerId; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public String getMembershipType() { return membershipType; }
+    public int getCurrentBorrows() { return currentBorrows; }
+    public int getTotalBorrowed() { return totalBorrowed; }
+    public long getVerifiedBorrows() { return verifiedBorrows; }
+    public long getCurrentlyBorrowing() { return currentlyBorrowing; }
+    public long getOverdueCount() { return overdueCount; }
+    public double getTotalFines() { return totalFines; }
+}
@@ -0,0 +1,58 @@
+package models;
+
+import models.enums.ReportType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Result of one Reportable report. generatedAt is when the report was built;
+ * reports read from periodically refreshed statistics also carry dataAsOf,
+ * the time the underlying numbers were computed, and the refresh interval.
+ */
+public class Report<T> {
+    private final ReportType type;
+    private final T data;
+    private final LocalDateTime generatedAt;
+    private final LocalDateTime dataAsOf;
+    private final Duration refreshInterval;
+
+    /**
+     * Report built from live data (dataAsOf = generatedAt)
+     */
+    public Report(ReportType type, T data) {
+        this(type, data, null, null);
+    }
+
+    /**
+     * @param dataAsOf When the underlying statistics were computed, or null if never
+     * @param refreshInterval How often those statistics are refreshed, or null for live data
+     */
+    public Report(ReportType type, T data, LocalDateTime dataAsOf, Duration refreshInterval) {
+        this.type = type;
+        this.data = data;
+        this.generatedAt = LocalDateTime.now();
+        this.dataAsOf = refreshInterval == null ? generatedAt : dataAsOf;
+        this.refreshInterval = refreshInterval;
+    }
+
+    public ReportType getType() { return type; }
+    public T getData() { return data; }
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public LocalDateTime getDataAsOf() { return dataAsOf; }
+    public Duration getRefreshInterval() { return refreshInterval; }
+
+    /** True if built from live data rather than refreshed statistics */
+    public boolean isLive() {
+        return refreshInterval == null;
+    }
+
+    /** True if the statistics behind this report missed their scheduled refresh */
+    public boolean isRefreshLate() {
+        if (isLive()) {
+            return false;
+        }
+        return dataAsOf == null
+                || Duration.between(dataAsOf, generatedAt).compareTo(refreshInterval.multipliedBy(2)) > 0;
+    }
+}
@@ -0,0 +1,32 @@
+package models;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of a successful return as written to the database.
+ */
+public class ReturnResult {
+    private final String recordId;
+    private final String readerId;
+    private final String isbn;
+    private final LocalDate returnDate;
+    private final int daysLate;
+    private final double fine;
+
+    public ReturnResult(String recordId, String readerId, String isbn,
+                        LocalDate returnDate, int daysLate, double fine) {
+        this.recordId = recordId;
+        this.readerId = readerId;
+        this.isbn = isbn;
+        this.returnDate = returnDate;
+        this.daysLate = daysLate;
+        this.fine = fine;
+    }
+
+    public String getRecordId() { return recordId; }
+    public String getReaderId() { return readerId; }
+    public String getIsbn() { return isbn; }
+    public LocalDate getReturnDate() { return returnDate; }
+    public int getDaysLate() { return daysLate; }
+    public double getFine() { return fine; }
+}
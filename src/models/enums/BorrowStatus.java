@@ -15,4 +15,11 @@ public enum BorrowStatus {
     public String getDescription() {
         return description;
     }
-}
\ No newline at end of file
+
+    /**
+     * Book still out with the reader (borrowed, possibly past its due date)
+     */
+    public boolean isOpen() {
+        return this == BORROWED || this == OVERDUE;
+    }
+}
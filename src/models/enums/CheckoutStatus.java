@@ -0,0 +1,21 @@
+package models.enums;
+
+public enum CheckoutStatus {
+    SUCCESS("Mượn sách thành công"),
+    READER_NOT_FOUND("Không tìm thấy độc giả"),
+    READER_INACTIVE("Thẻ độc giả không còn hoạt động"),
+    BORROW_LIMIT_REACHED("Độc giả đã đạt giới hạn mượn sách"),
+    BOOK_NOT_FOUND("Không tìm thấy sách"),
+    NOT_AVAILABLE("Sách không có sẵn"),
+    ERROR("Lỗi hệ thống khi mượn sách");
+
+    private final String description;
+
+    CheckoutStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
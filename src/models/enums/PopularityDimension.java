@@ -0,0 +1,18 @@
+package models.enums;
+
+public enum PopularityDimension {
+    BOOK("Sách"),
+    AUTHOR("Tác giả"),
+    CATEGORY("Thể loại"),
+    READER("Độc giả");
+
+    private final String description;
+
+    PopularityDimension(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
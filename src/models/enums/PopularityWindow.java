@@ -0,0 +1,24 @@
+package models.enums;
+
+public enum PopularityWindow {
+    LAST_7_DAYS(7, "7 ngày qua"),
+    LAST_30_DAYS(30, "30 ngày qua"),
+    ALL_TIME(0, "Từ trước đến nay");
+
+    private final int days;
+    private final String description;
+
+    PopularityWindow(int days, String description) {
+        this.days = days;
+        this.description = description;
+    }
+
+    /** Length of the window in days, 0 for all time */
+    public int getDays() {
+        return days;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,18 @@
+package models.enums;
+
+public enum ReportType {
+    POPULAR_BOOKS("Top sách được mượn"),
+    ACTIVE_READERS("Top độc giả tích cực"),
+    OVERDUE("Sách quá hạn"),
+    MONTHLY_STATISTICS("Thống kê tổng quan");
+
+    private final String description;
+
+    ReportType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
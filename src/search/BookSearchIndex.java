@@ -0,0 +1,652 @@
+package search;
+
+import models.books.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * In-memory inverted index of books, ranked with BM25.
+ *
+ * Text is folded with TextNormalizer ("Nguyễn" is indexed as "nguyen") and
+ * split into words. Each word has one posting list: the books containing it,
+ * in ascending document number, with the word's count in every field packed
+ * into one int. A query matches books containing all its words (posting
+ * lists are intersected, shortest first, skipping ahead by galloping search);
+ * a query word also matches the indexed words it is a prefix of, up to
+ * MAX_EXPANSIONS of them (the word itself, then the most frequent ones),
+ * so "harr" finds "harr", "harry" and "harrison". Matches are scored with BM25F over the
+ * weighted fields (see SearchField), or BM25 over one field for a
+ * field-restricted query, and the best ones are kept in a bounded heap.
+ *
+ * searchFuzzy also lets each word match indexed words within a few edits of
+ * it (found through a TrigramIndex of the vocabulary), scoring those matches
+ * down by distance; completions take at most half of its MAX_EXPANSIONS
+ * lists and the closest words the rest.
+ *
+ * Updates are incremental: put replaces a book, remove drops it. Thread-safe;
+ * queries share a read lock.
+ */
+public class BookSearchIndex {
+
+    private static final SearchField[] FIELDS = SearchField.values();
+    private static final int TF_BITS = 6;
+    private static final int TF_MAX = (1 << TF_BITS) - 1;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Indexed words a prefix may stand for */
+    public static final int MAX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /** Edits allowed in words of 4 to 7 characters (shorter words must match); longer words allow 2 */
+    public static final int MAX_EDITS_SHORT = 1;
+    public static final int MAX_EDITS_LONG = 2;
+    private static final int SHORT_WORD = 4;
+    private static final int LONG_WORD = 8;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final Map<String, Integer> docByIsbn = new HashMap<>();
+    // Per document number; documents are never renumbered, so posting lists stay sorted by appending
+    private String[] isbns = new String[1024];
+    private Postings[][] postingsOfDoc = new Postings[1024][];
+    private short[][] lengths = new short[FIELDS.length][1024];
+    private final long[] totalLengths = new long[FIELDS.length];
+    private int nextDoc;
+
+    /**
+     * Index a book, replacing the previous version with the same ISBN
+     */
+    public void put(Book book) {
+        // Words and their per-field counts are computed outside the lock
+        Map<String, int[]> counts = new HashMap<>();
+        int[] fieldLengths = new int[FIELDS.length];
+        for (SearchField field : FIELDS) {
+            for (String word : words(field.textOf(book))) {
+                counts.computeIfAbsent(word, w -> new int[FIELDS.length])[field.ordinal()]++;
+                fieldLengths[field.ordinal()]++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(book.getISBN());
+
+            int doc = nextDoc++;
+            ensureCapacity(doc);
+            isbns[doc] = book.getISBN();
+            for (int f = 0; f < FIELDS.length; f++) {
+                lengths[f][doc] = (short) Math.min(fieldLengths[f], Short.MAX_VALUE);
+                totalLengths[f] += lengths[f][doc];
+            }
+
+            Postings[] postings = new Postings[counts.size()];
+            int i = 0;
+            for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+                Postings list = terms.get(entry.getKey());
+                if (list == null) {
+                    list = new Postings(entry.getKey());
+                    terms.put(entry.getKey(), list);
+                    trigrams.add(entry.getKey());
+                }
+                list.append(doc, pack(entry.getValue()));
+                postings[i++] = list;
+            }
+            postingsOfDoc[doc] = postings;
+            docByIsbn.put(book.getISBN(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the book was indexed
+     */
+    public boolean remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ISBNs of the books containing every word of the query, best match first
+     * @param field Field to search in, or null for all fields
+     * @param limit Maximum number of results
+     */
+    public List<String> search(String query, SearchField field, int limit) {
+        return search(query, field, limit, false, null);
+    }
+
+    /**
+     * Like search, but typo-tolerant: each word of the query also matches the
+     * indexed words within MAX_EDITS_SHORT / MAX_EDITS_LONG edits of it, and
+     * the closer the words, the higher the score
+     * @param field Field to search in, or null for all fields
+     * @param limit Maximum number of results
+     * @param boost Factor applied to a book's score, by ISBN (e.g. from its
+     *              popularity), or null
+     */
+    public List<String> searchFuzzy(String query, SearchField field, int limit, ToDoubleFunction<String> boost) {
+        return search(query, field, limit, true, boost);
+    }
+
+    /**
+     * Edits a query word may differ by in searchFuzzy
+     */
+    public static int maxEdits(String word) {
+        if (word.length() >= LONG_WORD) {
+            return MAX_EDITS_LONG;
+        }
+        return word.length() >= SHORT_WORD ? MAX_EDITS_SHORT : 0;
+    }
+
+    private List<String> search(String query, SearchField field, int limit, boolean fuzzy,
+                                ToDoubleFunction<String> boost) {
+        Set<String> queryWords = new LinkedHashSet<>(words(query));
+        if (queryWords.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = docByIsbn.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+
+            Postings[] lists = new Postings[queryWords.size()];
+            int n = 0;
+            for (String word : queryWords) {
+                Postings list = fuzzy ? lookupFuzzy(word) : lookup(word);
+                if (list == null) {
+                    return List.of();
+                }
+                lists[n++] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (docCount - lists[i].size + 0.5) / (lists[i].size + 0.5));
+            }
+            double[] averageLengths = new double[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                averageLengths[f] = Math.max(1.0, (double) totalLengths[f] / docCount);
+            }
+
+            TopDocs top = new TopDocs(limit);
+            int[] cursors = new int[lists.length];
+            Postings shortest = lists[0];
+
+            candidates:
+            for (int c = 0; c < shortest.size; c++) {
+                int doc = shortest.docs[c];
+                cursors[0] = c;
+                for (int i = 1; i < lists.length; i++) {
+                    int pos = lists[i].seek(doc, cursors[i]);
+                    if (pos == lists[i].size) {
+                        break candidates;
+                    }
+                    cursors[i] = pos;
+                    if (lists[i].docs[pos] != doc) {
+                        continue candidates;
+                    }
+                }
+
+                double score = 0;
+                for (int i = 0; i < lists.length; i++) {
+                    double tf = weightedTf(lists[i].tfs[cursors[i]], doc, field, averageLengths);
+                    if (tf == 0) {
+                        // The word is in this book, but not in the requested field
+                        continue candidates;
+                    }
+                    score += idf[i] * lists[i].similarity(cursors[i]) * tf * (K1 + 1) / (tf + K1);
+                }
+                if (boost != null) {
+                    score *= boost.applyAsDouble(isbns[doc]);
+                }
+                top.offer(doc, score);
+            }
+
+            int[] docs = top.sortedDocs();
+            List<String> result = new ArrayList<>(docs.length);
+            for (int doc : docs) {
+                result.add(isbns[doc]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct indexed words
+     */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Folded words of a text, in order (duplicates kept)
+     */
+    public static List<String> words(String text) {
+        String folded = TextNormalizer.fold(text);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private boolean removeLocked(String isbn) {
+        Integer doc = docByIsbn.remove(isbn);
+        if (doc == null) {
+            return false;
+        }
+        for (Postings list : postingsOfDoc[doc]) {
+            list.remove(doc);
+            if (list.size == 0) {
+                terms.remove(list.term);
+                trigrams.remove(list.term);
+            }
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            totalLengths[f] -= lengths[f][doc];
+            lengths[f][doc] = 0;
+        }
+        postingsOfDoc[doc] = null;
+        isbns[doc] = null;
+        return true;
+    }
+
+    /**
+     * Postings of a word and of the indexed words it is a prefix of: the word
+     * itself, then the MAX_EXPANSIONS most frequent completions
+     */
+    private Postings lookup(String word) {
+        List<Postings> expansions = expansions(word, MAX_EXPANSIONS);
+        if (expansions.isEmpty()) {
+            return null;
+        }
+        return expansions.size() == 1 ? expansions.get(0) : Postings.union(word, expansions, null);
+    }
+
+    /**
+     * Postings of the word (or the words it prefixes) and of the indexed words
+     * close to it, each book keeping the similarity of its closest word
+     */
+    private Postings lookupFuzzy(String word) {
+        // Completions get half the lists, so that a common prefix leaves room for close words
+        List<Postings> alternatives = expansions(word, MAX_EXPANSIONS / 2);
+        int exact = alternatives.size();
+        // Close words that are also completions are already in, and must not count twice
+        Set<String> added = new HashSet<>();
+        for (Postings list : alternatives) {
+            added.add(list.term);
+        }
+        int room = MAX_EXPANSIONS - exact;
+
+        List<TrigramIndex.Match> matches = new ArrayList<>(trigrams.near(word, maxEdits(word)));
+        // Among equally close words, the most common first
+        matches.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+                : Integer.compare(terms.get(b.word).size, terms.get(a.word).size));
+        List<Float> similarities = new ArrayList<>();
+        for (TrigramIndex.Match match : matches) {
+            if (similarities.size() == room) {
+                break;
+            }
+            if (added.add(match.word)) {
+                alternatives.add(terms.get(match.word));
+                similarities.add(similarity(match.distance));
+            }
+        }
+
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        if (alternatives.size() == 1) {
+            return alternatives.get(0);
+        }
+        if (similarities.isEmpty()) {
+            return Postings.union(word, alternatives, null);
+        }
+        float[] weights = new float[alternatives.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i < exact ? 1.0f : similarities.get(i - exact);
+        }
+        return Postings.union(word, alternatives, weights);
+    }
+
+    /**
+     * Postings lists lookup merges: the word's own, if indexed, then its
+     * completions with the largest lists, limit lists in all
+     */
+    private List<Postings> expansions(String word, int limit) {
+        Postings exact = terms.get(word);
+        List<Postings> expansions = new ArrayList<>(limit);
+        if (exact != null) {
+            expansions.add(exact);
+        }
+        if (word.length() < MIN_PREFIX_LENGTH) {
+            return expansions;
+        }
+
+        // Min-heap on posting size: keeps the largest lists, whatever their alphabetical order
+        int room = exact != null ? limit - 1 : limit;
+        PriorityQueue<Postings> largest = new PriorityQueue<>((a, b) -> Integer.compare(a.size, b.size));
+        for (Postings list : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+            if (largest.size() < room) {
+                largest.add(list);
+            } else if (list.size > largest.peek().size) {
+                largest.poll();
+                largest.add(list);
+            }
+        }
+        expansions.addAll(largest);
+        return expansions;
+    }
+
+    private static float similarity(int distance) {
+        return 1.0f / (1 + distance);
+    }
+
+    /**
+     * BM25F term frequency: field counts normalized by field length and weighted,
+     * or the normalized count in one field
+     */
+    private double weightedTf(int packed, int doc, SearchField field, double[] averageLengths) {
+        if (field != null) {
+            int f = field.ordinal();
+            int tf = unpack(packed, f);
+            return tf == 0 ? 0 : tf / (1 - B + B * lengths[f][doc] / averageLengths[f]);
+        }
+        double sum = 0;
+        for (int f = 0; f < FIELDS.length; f++) {
+            int tf = unpack(packed, f);
+            if (tf > 0) {
+                sum += FIELDS[f].getWeight() * tf / (1 - B + B * lengths[f][doc] / averageLengths[f]);
+            }
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc < isbns.length) {
+            return;
+        }
+        int capacity = isbns.length * 2;
+        isbns = Arrays.copyOf(isbns, capacity);
+        postingsOfDoc = Arrays.copyOf(postingsOfDoc, capacity);
+        for (int f = 0; f < FIELDS.length; f++) {
+            lengths[f] = Arrays.copyOf(lengths[f], capacity);
+        }
+    }
+
+    private static int pack(int[] fieldCounts) {
+        int packed = 0;
+        for (int f = 0; f < fieldCounts.length; f++) {
+            packed |= Math.min(fieldCounts[f], TF_MAX) << (f * TF_BITS);
+        }
+        return packed;
+    }
+
+    private static int unpack(int packed, int field) {
+        return (packed >>> (field * TF_BITS)) & TF_MAX;
+    }
+
+    /**
+     * Books containing one word, ascending by document number
+     */
+    private static final class Postings {
+        // Union entries keep the list (< MAX_LISTS) above the position in it
+        private static final int LIST_SHIFT = 26;
+        private static final int MAX_LISTS = 1 << (32 - LIST_SHIFT);
+        private static final long POSITION_MASK = (1L << LIST_SHIFT) - 1;
+
+        private final String term;
+        private int[] docs = new int[4];
+        private int[] tfs = new int[4];
+        // Score factor per book for merged fuzzy matches, null = 1
+        private float[] similarities;
+        private int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void append(int doc, int packedTf) {
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                tfs = Arrays.copyOf(tfs, capacity);
+            }
+            docs[size] = doc;
+            tfs[size] = packedTf;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+                System.arraycopy(tfs, pos + 1, tfs, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        /**
+         * First position at or after from whose document is >= doc (size if none)
+         */
+        int seek(int doc, int from) {
+            if (from >= size || docs[from] >= doc) {
+                return from;
+            }
+            // Gallop to a range holding doc, then binary search in it
+            int step = 1;
+            int low = from;
+            int high = from + step;
+            while (high < size && docs[high] < doc) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            int pos = Arrays.binarySearch(docs, low + 1, Math.min(high + 1, size), doc);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+
+        float similarity(int pos) {
+            return similarities != null ? similarities[pos] : 1.0f;
+        }
+
+        /**
+         * Merged postings of several words; counts of a book in several of them
+         * are added, and it keeps the highest of their similarities
+         * @param similarities Similarity of each list's word, or null (all 1)
+         */
+        static Postings union(String term, List<Postings> lists, float[] similarities) {
+            if (lists.size() > MAX_LISTS) {
+                // More would spill the list number into the document bits
+                throw new IllegalArgumentException("Too many posting lists to merge: " + lists.size());
+            }
+            int total = 0;
+            for (Postings list : lists) {
+                total += list.size;
+            }
+            // Document, list and position, so that sorting groups a book's entries
+            long[] entries = new long[total];
+            int n = 0;
+            for (int l = 0; l < lists.size(); l++) {
+                Postings list = lists.get(l);
+                for (int i = 0; i < list.size; i++) {
+                    entries[n++] = ((long) list.docs[i] << 32) | ((long) l << LIST_SHIFT) | i;
+                }
+            }
+            Arrays.sort(entries);
+
+            Postings merged = new Postings(term);
+            merged.docs = new int[total];
+            merged.tfs = new int[total];
+            merged.similarities = similarities != null ? new float[total] : null;
+            for (long entry : entries) {
+                int doc = (int) (entry >>> 32);
+                int l = (int) ((entry & 0xffffffffL) >>> LIST_SHIFT);
+                int tf = lists.get(l).tfs[(int) (entry & POSITION_MASK)];
+                int last = merged.size - 1;
+                if (merged.size > 0 && merged.docs[last] == doc) {
+                    merged.tfs[last] = addPacked(merged.tfs[last], tf);
+                    if (similarities != null) {
+                        merged.similarities[last] = Math.max(merged.similarities[last], similarities[l]);
+                    }
+                } else {
+                    merged.docs[merged.size] = doc;
+                    merged.tfs[merged.size] = tf;
+                    if (similarities != null) {
+                        merged.similarities[merged.size] = similarities[l];
+                    }
+                    merged.size++;
+                }
+            }
+            return merged;
+        }
+
+        private static int addPacked(int a, int b) {
+            int[] sums = new int[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                sums[f] = unpack(a, f) + unpack(b, f);
+            }
+            return pack(sums);
+        }
+    }
+
+    /**
+     * The best documents seen so far: a min-heap on score, at most limit entries
+     */
+    private static final class TopDocs {
+        private final int limit;
+        private int[] docs = new int[16];
+        private double[] scores = new double[16];
+        private int size;
+
+        TopDocs(int limit) {
+            this.limit = limit;
+        }
+
+        void offer(int doc, double score) {
+            if (size < limit) {
+                if (size == docs.length) {
+                    int capacity = (int) Math.min((long) size * 2, limit);
+                    docs = Arrays.copyOf(docs, capacity);
+                    scores = Arrays.copyOf(scores, capacity);
+                }
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (worse(docs[0], scores[0], doc, score)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Best first: highest score, then the earliest indexed book
+         */
+        int[] sortedDocs() {
+            int[] sorted = new int[size];
+            while (size > 0) {
+                sorted[size - 1] = docs[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        // True if (docA, scoreA) ranks below (docB, scoreB)
+        private static boolean worse(int docA, double scoreA, int docB, double scoreB) {
+            return scoreA < scoreB || (scoreA == scoreB && docA > docB);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(docs[i], scores[i], docs[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int right = left + 1;
+                int worst = right < size && worse(docs[right], scores[right], docs[left], scores[left]) ? right : left;
+                if (!worse(docs[worst], scores[worst], docs[i], scores[i])) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package search;
+
+/**
+ * One type-ahead suggestion: a title or author name and how popular it is
+ */
+public final class Completion {
+    private final String text;
+    private final SearchField field;
+    private final long weight;
+
+    public Completion(String text, SearchField field, long weight) {
+        this.text = text;
+        this.field = field;
+        this.weight = weight;
+    }
+
+    public String getText() { return text; }
+    /** TITLE or AUTHOR */
+    public SearchField getField() { return field; }
+    /** Borrows of the books with this title or author */
+    public long getWeight() { return weight; }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
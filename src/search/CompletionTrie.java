@@ -0,0 +1,441 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead completions of one field (titles or authors), most popular first.
+ *
+ * A compressed trie over the folded texts (see TextNormalizer): edges carry
+ * strings, so it has fewer nodes than texts. A text shared by several books
+ * is one entry counting its books and the sum of their weights. Every node
+ * with more than TOP_K entries below it keeps its TOP_K best entries; for
+ * smaller subtrees they are collected on demand. A query therefore walks the
+ * prefix and reads at most TOP_K entries, whatever the size of the catalog.
+ *
+ * Updates touch only the nodes on the path of the changed text: weight
+ * increases move the entry up in the cached lists, other changes recompute
+ * them from the children's lists. Thread-safe; queries share a read lock.
+ */
+public class CompletionTrie {
+
+    /** Completions kept per node, the most a query can return */
+    public static final int TOP_K = 10;
+
+    private final SearchField field;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * @param field Field the texts come from, reported with each completion
+     */
+    public CompletionTrie(SearchField field) {
+        this.field = field;
+    }
+
+    /**
+     * Count one more book with this text
+     * @param weight Popularity of the book (e.g. its borrows)
+     */
+    public void add(String text, long weight) {
+        update(text, 1, weight);
+    }
+
+    /**
+     * Count one book less with this text; the text disappears with its last book
+     */
+    public void remove(String text, long weight) {
+        update(text, -1, -weight);
+    }
+
+    /**
+     * Change the popularity of a text (e.g. a book with it was borrowed)
+     */
+    public void addWeight(String text, long delta) {
+        update(text, 0, delta);
+    }
+
+    /**
+     * Best completions of what the user typed so far
+     * @param limit At most TOP_K
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = queryKey(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(child.label, key, i);
+                if (i + common == key.length()) {
+                    // The prefix ends inside or at the end of this edge
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return List.of();
+                }
+                node = child;
+                i += common;
+            }
+
+            Entry[] best = node.top != null ? node.top : collectSorted(node);
+            int n = Math.min(Math.min(limit, TOP_K), best.length);
+            List<Completion> completions = new ArrayList<>(n);
+            for (int j = 0; j < n; j++) {
+                completions.add(new Completion(best[j].text, field, best[j].weight));
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct texts
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void update(String text, int books, long delta) {
+        String key = queryKey(text).trim();
+        if (key.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Node> path = new ArrayList<>();
+            Node node = books > 0 ? insertPath(key, path) : findPath(key, path);
+            if (node == null) {
+                return;
+            }
+
+            Entry entry = node.entry;
+            if (entry == null) {
+                if (books <= 0) {
+                    return;
+                }
+                entry = new Entry(key, text.trim());
+                node.entry = entry;
+                size++;
+                for (Node n : path) {
+                    n.count++;
+                }
+            }
+
+            long oldWeight = entry.weight;
+            entry.books += books;
+            entry.weight = Math.max(0, entry.weight + delta);
+
+            if (entry.books <= 0) {
+                node.entry = null;
+                size--;
+                for (Node n : path) {
+                    n.count--;
+                }
+            }
+
+            // Bottom-up, so every node sees its children's lists already updated
+            boolean promoted = node.entry != null && entry.weight >= oldWeight && books >= 0;
+            for (int i = path.size() - 1; i >= 0; i--) {
+                if (promoted) {
+                    promote(path.get(i), entry);
+                } else {
+                    recompute(path.get(i));
+                }
+            }
+
+            if (node.entry == null) {
+                prune(path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Node of key, created (splitting edges) if needed; path receives the nodes from the root
+     */
+    private Node insertPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(root);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                Node leaf = new Node(key.substring(i));
+                node.addChild(leaf);
+                path.add(leaf);
+                return leaf;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: the new node holds the shared part and the old child below it
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(middle);
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.count = child.count;
+                middle.top = child.top != null ? child.top.clone() : null;
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private Node findPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(root);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return null;
+            }
+            path.add(child);
+            node = child;
+            i += child.label.length();
+        }
+        return node;
+    }
+
+    /**
+     * Update a node's list after the entry got new or heavier
+     */
+    private void promote(Node node, Entry entry) {
+        if (node.count <= TOP_K) {
+            node.top = null;
+            return;
+        }
+        if (node.top == null) {
+            recompute(node);
+            return;
+        }
+
+        Entry[] top = node.top;
+        int pos = indexOf(top, entry);
+        if (pos < 0) {
+            if (!better(entry, top[top.length - 1])) {
+                return;
+            }
+            pos = top.length - 1;
+            top[pos] = entry;
+        }
+        while (pos > 0 && better(top[pos], top[pos - 1])) {
+            Entry swap = top[pos];
+            top[pos] = top[pos - 1];
+            top[pos - 1] = swap;
+            pos--;
+        }
+    }
+
+    /**
+     * Rebuild a node's list from its own entry and its children's lists
+     */
+    private void recompute(Node node) {
+        if (node.count <= TOP_K) {
+            node.top = null;
+            return;
+        }
+        List<Entry> candidates = new ArrayList<>();
+        if (node.entry != null) {
+            candidates.add(node.entry);
+        }
+        for (Node child : node.children) {
+            if (child.top != null) {
+                candidates.addAll(Arrays.asList(child.top));
+            } else {
+                collect(child, candidates);
+            }
+        }
+        candidates.sort(CompletionTrie::compare);
+        node.top = candidates.subList(0, TOP_K).toArray(new Entry[0]);
+    }
+
+    /**
+     * Drop the node of a removed entry if it became useless, and re-merge chains
+     */
+    private void prune(List<Node> path) {
+        Node node = path.get(path.size() - 1);
+        if (node == root) {
+            return;
+        }
+        Node parent = path.get(path.size() - 2);
+        if (node.children.length == 0) {
+            parent.removeChild(node);
+            mergeWithOnlyChild(parent);
+        } else {
+            mergeWithOnlyChild(node);
+        }
+    }
+
+    private void mergeWithOnlyChild(Node node) {
+        if (node == root || node.entry != null || node.children.length != 1) {
+            return;
+        }
+        Node child = node.children[0];
+        node.label = node.label + child.label;
+        node.entry = child.entry;
+        node.children = child.children;
+        node.top = child.top;
+    }
+
+    private static Entry[] collectSorted(Node node) {
+        List<Entry> entries = new ArrayList<>();
+        collect(node, entries);
+        entries.sort(CompletionTrie::compare);
+        return entries.toArray(new Entry[0]);
+    }
+
+    // Only called on subtrees of at most TOP_K entries
+    private static void collect(Node node, List<Entry> into) {
+        if (node.entry != null) {
+            into.add(node.entry);
+        }
+        for (Node child : node.children) {
+            collect(child, into);
+        }
+    }
+
+    /**
+     * Most weight first, then most books, then alphabetical
+     */
+    private static int compare(Entry a, Entry b) {
+        if (a.weight != b.weight) {
+            return Long.compare(b.weight, a.weight);
+        }
+        if (a.books != b.books) {
+            return Integer.compare(b.books, a.books);
+        }
+        return a.key.compareTo(b.key);
+    }
+
+    private static boolean better(Entry a, Entry b) {
+        return compare(a, b) < 0;
+    }
+
+    private static int indexOf(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int n = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Folded text with runs of spaces collapsed; a trailing space is kept,
+     * so "lap " only completes texts with a word after "lap"
+     */
+    private static String queryKey(String text) {
+        return TextNormalizer.fold(text).replaceAll("\\s+", " ").replaceFirst("^ ", "");
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String text;
+        private int books;
+        private long weight;
+
+        Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private static final class Node {
+        private String label;
+        private Node[] children = new Node[0];
+        private Entry entry;
+        // Entries in this subtree, and the best TOP_K of them when there are more
+        private int count;
+        private Entry[] top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char c) {
+            int pos = find(c);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        void addChild(Node child) {
+            int pos = -find(child.label.charAt(0)) - 1;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, pos);
+            grown[pos] = child;
+            System.arraycopy(children, pos, grown, pos + 1, children.length - pos);
+            children = grown;
+        }
+
+        /**
+         * Put a node in place of the child starting with the same character
+         */
+        void replaceChild(Node replacement) {
+            children[find(replacement.label.charAt(0))] = replacement;
+        }
+
+        void removeChild(Node child) {
+            int pos = find(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, pos);
+            System.arraycopy(children, pos + 1, shrunk, pos, children.length - pos - 1);
+            children = shrunk;
+        }
+
+        // Children are sorted by the first character of their label
+        private int find(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
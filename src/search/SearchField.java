@@ -0,0 +1,57 @@
+package search;
+
+import models.books.Book;
+import models.books.Magazine;
+import models.books.ReferenceBook;
+import models.books.TextBook;
+
+/**
+ * Indexed fields of a book and their weight when searching all fields
+ */
+public enum SearchField {
+    TITLE(3.0f),
+    AUTHOR(2.0f),
+    CATEGORY(1.0f),
+    PUBLISHER(1.0f),
+    // Subject and grade of a TextBook, topic of a ReferenceBook, issue number of a Magazine
+    DETAILS(1.0f);
+
+    private final float weight;
+
+    SearchField(float weight) {
+        this.weight = weight;
+    }
+
+    public float getWeight() {
+        return weight;
+    }
+
+    /**
+     * Text of this field in the book; null if it has none
+     */
+    public String textOf(Book book) {
+        switch (this) {
+            case TITLE:
+                return book.getTitle();
+            case AUTHOR:
+                return book.getAuthor();
+            case CATEGORY:
+                return book.getCategory();
+            case PUBLISHER:
+                return book.getPublisher();
+            default:
+                if (book instanceof TextBook) {
+                    TextBook textBook = (TextBook) book;
+                    String subject = textBook.getSubject();
+                    return (subject != null ? subject : "") + " " + textBook.getGrade();
+                }
+                if (book instanceof ReferenceBook) {
+                    return ((ReferenceBook) book).getTopic();
+                }
+                if (book instanceof Magazine) {
+                    return String.valueOf(((Magazine) book).getIssueNumber());
+                }
+                return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Folds text for matching: lower case, Vietnamese (and other) diacritics
+ * removed, so "Nguyễn Đức" and "nguyen duc" compare equal.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Folded form of the text; null becomes ""
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        if (isAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            // đ/Đ are letters of their own and do not decompose
+            if (c == 'đ' || c == 'Đ') {
+                sb.append('d');
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
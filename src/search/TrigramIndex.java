@@ -0,0 +1,251 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the indexed words within a few edits of a misspelled one without
+ * comparing it to every word.
+ *
+ * Each word is split into the trigrams of "$word$", and each trigram lists
+ * the words containing it. One edit (insert, delete, substitute, or swap two
+ * neighbouring letters) breaks at most four trigrams, so a word within k edits
+ * of the query misses at most 4k of the query's trigrams and must be in at
+ * least one of any 4k + 1 of their lists. Only the words of the 4k + 1
+ * shortest lists, within k of the query's length, are checked with an edit
+ * distance cut off at k. Queries with too few trigrams for that assume three
+ * per edit, the bound without swaps, and may then miss a swapped pair.
+ *
+ * Not thread-safe: BookSearchIndex keeps it under its own lock.
+ */
+final class TrigramIndex {
+
+    private static final char PAD = '$';
+    private static final int TRIGRAMS_PER_EDIT = 4;
+    private static final int TRIGRAMS_PER_EDIT_NO_SWAP = 3;
+
+    private final Map<String, Integer> idByWord = new HashMap<>();
+    private final Map<String, IdList> wordsByTrigram = new HashMap<>();
+    private String[] words = new String[1024];
+    // Ids of removed words, reused by the next ones
+    private final IdList freeIds = new IdList();
+    private int nextId;
+
+    /**
+     * Close word and its distance to the query
+     */
+    static final class Match {
+        final String word;
+        final int distance;
+
+        Match(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+    }
+
+    void add(String word) {
+        if (idByWord.containsKey(word)) {
+            return;
+        }
+        int id;
+        if (freeIds.size > 0) {
+            id = freeIds.ids[--freeIds.size];
+        } else {
+            id = nextId++;
+            if (id == words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+        }
+        words[id] = word;
+        idByWord.put(word, id);
+        for (String trigram : trigrams(word)) {
+            wordsByTrigram.computeIfAbsent(trigram, t -> new IdList()).insert(id);
+        }
+    }
+
+    void remove(String word) {
+        Integer id = idByWord.remove(word);
+        if (id == null) {
+            return;
+        }
+        for (String trigram : trigrams(word)) {
+            IdList list = wordsByTrigram.get(trigram);
+            list.delete(id);
+            if (list.size == 0) {
+                wordsByTrigram.remove(trigram);
+            }
+        }
+        words[id] = null;
+        freeIds.append(id);
+    }
+
+    /**
+     * Indexed words within maxEdits of the query (the query itself included
+     * if indexed), closest first. The budget is lowered for words too short
+     * to filter on, down to no match at all.
+     */
+    List<Match> near(String query, int maxEdits) {
+        Set<String> trigrams = trigrams(query);
+        int edits = Math.min(maxEdits, (trigrams.size() - 1) / TRIGRAMS_PER_EDIT_NO_SWAP);
+        int perEdit = trigrams.size() > TRIGRAMS_PER_EDIT * edits ? TRIGRAMS_PER_EDIT : TRIGRAMS_PER_EDIT_NO_SWAP;
+        if (edits <= 0) {
+            Integer id = idByWord.get(query);
+            return id != null ? List.of(new Match(query, 0)) : List.of();
+        }
+
+        List<IdList> lists = new ArrayList<>(trigrams.size());
+        for (String trigram : trigrams) {
+            IdList list = wordsByTrigram.get(trigram);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        // Trigrams no word has count as lists of length 0: they sort first and add nothing
+        int needed = perEdit * edits + 1 - (trigrams.size() - lists.size());
+        if (needed <= 0) {
+            return List.of();
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int total = 0;
+        for (int i = 0; i < needed && i < lists.size(); i++) {
+            total += lists.get(i).size;
+        }
+        int[] candidates = new int[total];
+        int n = 0;
+        for (int i = 0; i < needed && i < lists.size(); i++) {
+            IdList list = lists.get(i);
+            System.arraycopy(list.ids, 0, candidates, n, list.size);
+            n += list.size;
+        }
+        Arrays.sort(candidates);
+
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            String word = words[candidates[i]];
+            if (Math.abs(word.length() - query.length()) > edits) {
+                continue;
+            }
+            int distance = distance(query, word, edits);
+            if (distance <= edits) {
+                matches.add(new Match(word, distance));
+            }
+        }
+        matches.sort((a, b) -> Integer.compare(a.distance, b.distance));
+        return matches;
+    }
+
+    /**
+     * Number of indexed words
+     */
+    int size() {
+        return idByWord.size();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    /**
+     * Edit distance counting a swap of neighbouring letters as one edit
+     * (optimal string alignment), or max + 1 as soon as it is known to exceed
+     * max. Only cells within max of the diagonal can stay under the bound, so
+     * each row computes 2 * max + 1 of them.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int over = max + 1;
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j <= max ? j : over;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = i <= max ? i : over;
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = current[0];
+            char c = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && c == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = over;
+            }
+            if (rowMin > max) {
+                return over;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static Set<String> trigrams(String word) {
+        String padded = PAD + word + PAD;
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Sorted word ids of one trigram
+     */
+    private static final class IdList {
+        private int[] ids = new int[2];
+        private int size;
+
+        void insert(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void delete(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = id;
+        }
+    }
+}
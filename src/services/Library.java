@@ -2,10 +2,18 @@ package services;
 
 import interfaces.Reportable;
 import interfaces.Searchable;
+import models.BookStatistics;
 import models.BorrowRecord;
+import models.CirculationCounters;
+import models.OverdueReport;
+import models.ReaderStatistics;
+import models.Report;
 import models.enums.BorrowStatus;
+import models.enums.ReportType;
 import models.people.*;
 import models.books.*;
+import search.BookSearchIndex;
+import search.SearchField;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,6 +24,8 @@ public class Library implements Searchable, Reportable {
     private String libraryName;
     private String address;
     private List<Book> books;
+    private Map<String, Book> booksByIsbn;
+    private BookSearchIndex searchIndex;
     private List<Reader> readers;
     private List<Librarian> librarians;
     private List<BorrowRecord> borrowRecords;
@@ -26,6 +36,8 @@ public class Library implements Searchable, Reportable {
         this.libraryName = name;
         this.address = address;
         this.books = new ArrayList<>();
+        this.booksByIsbn = new HashMap<>();
+        this.searchIndex = new BookSearchIndex();
         this.readers = new ArrayList<>();
         this.librarians = new ArrayList<>();
         this.borrowRecords = new ArrayList<>();
@@ -36,6 +48,8 @@ public class Library implements Searchable, Reportable {
     // BOOK MANAGEMENT
     public void addBook(Book book) {
         books.add(book);
+        booksByIsbn.put(book.getISBN(), book);
+        searchIndex.put(book);
         System.out.println(" Đã thêm sách: " + book.getTitle());
     }
 
@@ -43,6 +57,8 @@ public class Library implements Searchable, Reportable {
         Book book = searchByISBN(ISBN);
         if (book != null && book.getAvailableCopies() == book.getTotalCopies()) {
             books.remove(book);
+            booksByIsbn.remove(ISBN);
+            searchIndex.remove(ISBN);
             System.out.println(" Đã xóa sách: " + book.getTitle());
             return true;
         }
@@ -54,6 +70,8 @@ public class Library implements Searchable, Reportable {
         for (int i = 0; i < books.size(); i++) {
             if (books.get(i).getISBN().equals(book.getISBN())) {
                 books.set(i, book);
+                booksByIsbn.put(book.getISBN(), book);
+                searchIndex.put(book);
                 System.out.println(" Đã cập nhật sách: " + book.getTitle());
                 return;
             }
@@ -75,44 +93,42 @@ public class Library implements Searchable, Reportable {
     // SEARCH OPERATIONS
     @Override
     public List<Book> searchByTitle(String title) {
-        List<Book> results = new ArrayList<>();
-        for (Book book : books) {
-            if (book.getTitle().toLowerCase().contains(title.toLowerCase())) {
-                results.add(book);
-            }
-        }
-        return results;
+        return search(title, SearchField.TITLE);
     }
 
     @Override
     public List<Book> searchByAuthor(String author) {
-        List<Book> results = new ArrayList<>();
-        for (Book book : books) {
-            if (book.getAuthor().toLowerCase().contains(author.toLowerCase())) {
-                results.add(book);
-            }
-        }
-        return results;
+        return search(author, SearchField.AUTHOR);
     }
 
     @Override
     public Book searchByISBN(String isbn) {
-        for (Book book : books) {
-            if (book.getISBN().equals(isbn)) {
-                return book;
-            }
-        }
-        return null;
+        return booksByIsbn.get(isbn);
     }
 
     @Override
     public List<Book> searchByCategory(String category) {
+        return search(category, SearchField.CATEGORY);
+    }
+
+    @Override
+    public List<Book> searchByTitleFuzzy(String title, int limit) {
+        return toBooks(searchIndex.searchFuzzy(title, SearchField.TITLE, limit, null));
+    }
+
+    @Override
+    public List<Book> searchByAuthorFuzzy(String author, int limit) {
+        return toBooks(searchIndex.searchFuzzy(author, SearchField.AUTHOR, limit, null));
+    }
+
+    private List<Book> search(String text, SearchField field) {
+        return toBooks(searchIndex.search(text, field, Integer.MAX_VALUE));
+    }
+
+    private List<Book> toBooks(List<String> isbns) {
         List<Book> results = new ArrayList<>();
-        for (Book book : books) {
-            if (book.getCategory() != null &&
-                    book.getCategory().toLowerCase().contains(category.toLowerCase())) {
-                results.add(book);
-            }
+        for (String isbn : isbns) {
+            results.add(booksByIsbn.get(isbn));
         }
         return results;
     }
@@ -248,8 +264,7 @@ public class Library implements Searchable, Reportable {
 
     // REPORT GENERATION
     @Override
-    public void generatePopularBooksReport() {
-        System.out.println("\n=== TOP 5 SÁCH ĐƯỢC MƯỢN NHIỀU NHẤT ===");
+    public Report<List<BookStatistics>> generatePopularBooksReport(int limit) {
         Map<String, Integer> bookBorrowCount = new HashMap<>();
 
         for (BorrowRecord record : borrowRecords) {
@@ -257,51 +272,58 @@ public class Library implements Searchable, Reportable {
             bookBorrowCount.put(isbn, bookBorrowCount.getOrDefault(isbn, 0) + 1);
         }
 
+        List<BookStatistics> top = new ArrayList<>();
         bookBorrowCount.entrySet().stream()
                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(5)
+                .limit(limit)
                 .forEach(entry -> {
                     Book book = searchByISBN(entry.getKey());
-                    System.out.println(book.getTitle() + " - " + entry.getValue() + " lần");
+                    top.add(new BookStatistics(book.getISBN(), book.getTitle(), book.getAuthor(),
+                            book.getCategory(), book.getTotalCopies(), book.getAvailableCopies(),
+                            entry.getValue(), 0, 0, 0));
                 });
+        return new Report<>(ReportType.POPULAR_BOOKS, top);
     }
 
     @Override
-    public void generateActiveReadersReport() {
-        System.out.println("\n=== TOP 5 ĐỘC GIẢ TÍCH CỰC NHẤT ===");
+    public Report<List<ReaderStatistics>> generateActiveReadersReport(int limit) {
+        List<ReaderStatistics> top = new ArrayList<>();
         readers.stream()
                 .sorted((r1, r2) -> Integer.compare(r2.getTotalBorrowed(), r1.getTotalBorrowed()))
-                .limit(5)
-                .forEach(reader -> {
-                    System.out.println(reader.getName() + " - " + reader.getTotalBorrowed() + " lần");
-                });
+                .limit(limit)
+                .forEach(reader -> top.add(new ReaderStatistics(reader.getId(), reader.getName(),
+                        reader.getEmail(), reader.getMembershipType().name(), reader.getCurrentBorrows(),
+                        reader.getTotalBorrowed(), 0, 0, 0, 0)));
+        return new Report<>(ReportType.ACTIVE_READERS, top);
     }
 
     @Override
-    public void generateOverdueReport() {
-        System.out.println("\n=== DANH SÁCH SÁCH QUÁ HẠN ===");
+    public Report<OverdueReport> generateOverdueReport(int pageSize, String after) {
+        // In memory the cursor is simply the index of the next record
         List<BorrowRecord> overdueList = getOverdueRecords();
-        if (overdueList.isEmpty()) {
-            System.out.println("Không có sách quá hạn.");
-            return;
-        }
+        int from = after == null ? 0 : Integer.parseInt(after);
+        int to = Math.min(overdueList.size(), from + pageSize);
+        double totalFines = 0;
         for (BorrowRecord record : overdueList) {
-            System.out.println(record.getInfo() + " - Trễ: " + record.getDaysLate() + " ngày");
+            totalFines += record.getDaysLate() * finePerDay;
         }
+        return new Report<>(ReportType.OVERDUE, new OverdueReport(overdueList.subList(from, to),
+                to < overdueList.size() ? String.valueOf(to) : null, overdueList.size(), totalFines));
     }
 
     @Override
-    public void generateMonthlyStatistics() {
-        System.out.println("\n=== THỐNG KÊ THÁNG NÀY ===");
-        System.out.println("Tổng số sách: " + books.size());
-        System.out.println("Tổng số độc giả: " + readers.size());
-        System.out.println("Số lần mượn: " + borrowRecords.size());
-
+    public Report<CirculationCounters> generateMonthlyStatistics() {
         long borrowing = borrowRecords.stream()
-                .filter(r -> r.getStatus() == BorrowStatus.BORROWED)
+                .filter(r -> r.getStatus().isOpen())
                 .count();
-        System.out.println("Đang được mượn: " + borrowing);
-        System.out.println("Sách quá hạn: " + getOverdueRecords().size());
+
+        Map<String, Long> values = new HashMap<>();
+        values.put("books", (long) books.size());
+        values.put("readers", (long) readers.size());
+        values.put("loans", (long) borrowRecords.size());
+        values.put("loans_borrowed", borrowing);
+        values.put("overdue", (long) getOverdueRecords().size());
+        return new Report<>(ReportType.MONTHLY_STATISTICS, new CirculationCounters(values, null, 0));
     }
 
     // Getters
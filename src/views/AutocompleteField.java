@@ -0,0 +1,114 @@
+package views;
+
+import javafx.animation.PauseTransition;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.CustomMenuItem;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.util.Duration;
+import search.Completion;
+import search.SearchField;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Suggestion dropdown under a search field.
+ *
+ * After a short pause in typing, asks the source for the completions of the
+ * text (at least MIN_CHARS characters) and lists them below the field, titles
+ * and authors marked by an icon. The source is called on the FX thread, so it
+ * must answer from memory (LibraryService.suggestBooks does). Picking a
+ * suggestion puts its text in the field and calls onPick.
+ */
+public class AutocompleteField {
+
+    private static final int MIN_CHARS = 2;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final Duration DEBOUNCE = Duration.millis(100);
+
+    private final TextField field;
+    private final BiFunction<String, Integer, List<Completion>> source;
+    private final Consumer<Completion> onPick;
+    private final ContextMenu menu = new ContextMenu();
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+
+    // Set while the field text is changed by a pick, which must not suggest again
+    private boolean picking;
+
+    /**
+     * @param source Completions for (prefix, limit), e.g. libraryService::suggestBooks
+     * @param onPick Called after the picked text is put in the field
+     */
+    public AutocompleteField(TextField field, BiFunction<String, Integer, List<Completion>> source,
+                             Consumer<Completion> onPick) {
+        this.field = field;
+        this.source = source;
+        this.onPick = onPick;
+
+        field.textProperty().addListener((obs, old, text) -> {
+            if (picking) {
+                return;
+            }
+            debounce.setOnFinished(e -> suggest(text));
+            debounce.playFromStart();
+        });
+        field.focusedProperty().addListener((obs, old, focused) -> {
+            if (!focused) {
+                menu.hide();
+            }
+        });
+        field.addEventHandler(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.ESCAPE || e.getCode() == KeyCode.ENTER) {
+                // Enter searches what was typed; the list is stale after that
+                debounce.stop();
+                menu.hide();
+            }
+        });
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void suggest(String text) {
+        String prefix = text != null ? text.trim() : "";
+        if (prefix.length() < MIN_CHARS || !field.isFocused()) {
+            menu.hide();
+            return;
+        }
+
+        List<Completion> completions = source.apply(text, MAX_SUGGESTIONS);
+        if (completions.isEmpty()) {
+            menu.hide();
+            return;
+        }
+
+        menu.getItems().clear();
+        for (Completion completion : completions) {
+            String icon = completion.getField() == SearchField.AUTHOR ? "✍ " : "📖 ";
+            Label label = new Label(icon + completion.getText());
+            label.setPrefWidth(field.getWidth() - 20);
+            CustomMenuItem item = new CustomMenuItem(label, true);
+            item.setOnAction(e -> pick(completion));
+            menu.getItems().add(item);
+        }
+        if (!menu.isShowing()) {
+            menu.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void pick(Completion completion) {
+        picking = true;
+        try {
+            field.setText(completion.getText());
+            field.positionCaret(completion.getText().length());
+        } finally {
+            picking = false;
+        }
+        menu.hide();
+        onPick.accept(completion);
+    }
+}
@@ -0,0 +1,214 @@
+package views;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Table rows identified by a key (ISBN, reader ID, record ID...), refreshed
+ * by difference instead of replacement.
+ *
+ * setAll reconciles the list with the new snapshot: rows whose key is gone
+ * are removed, new keys are inserted, rows whose compared fields changed are
+ * replaced in place and unchanged rows keep their old object. Everything is
+ * reported as one change event, so the table only touches the cells that
+ * changed and keeps its selection and scroll position. The result has the
+ * order of the new snapshot: the rows whose old positions form the longest
+ * increasing run in it stay put and only the others are moved, so a refresh
+ * costs O(n log n) plus the rows that actually changed. A snapshot that
+ * changes more than half the rows is applied as a plain replacement.
+ *
+ * The compared fields should cover what the view shows of a row. Keys must
+ * be unique; a snapshot with duplicate keys is applied as a plain replacement.
+ */
+public class KeyedObservableList<T> extends ModifiableObservableListBase<T> {
+
+    private final List<T> rows = new ArrayList<>();
+    private final Function<T, ?> keyOf;
+    private final List<Function<T, ?>> fields;
+
+    private int lastChangeCount;
+
+    /**
+     * @param keyOf Identity of a row
+     * @param fields Fields compared to tell whether a row with the same key changed
+     */
+    @SafeVarargs
+    public KeyedObservableList(Function<T, ?> keyOf, Function<T, ?>... fields) {
+        this.keyOf = keyOf;
+        // Copied element by element: passing the generic varargs array on is a lint warning
+        List<Function<T, ?>> compared = new ArrayList<>(fields.length);
+        for (Function<T, ?> field : fields) {
+            compared.add(field);
+        }
+        this.fields = List.copyOf(compared);
+    }
+
+    /**
+     * Reconcile with the new rows (see class comment)
+     */
+    @Override
+    public boolean setAll(Collection<? extends T> newRows) {
+        List<T> next = new ArrayList<>(newRows);
+        Map<Object, Integer> nextIndex = new HashMap<>(next.size() * 4 / 3 + 1);
+        for (int i = 0; i < next.size(); i++) {
+            if (nextIndex.put(keyOf.apply(next.get(i)), i) != null) {
+                lastChangeCount = rows.size() + next.size();
+                return super.setAll(next);
+            }
+        }
+
+        // Old rows still present, and their position in next
+        int kept = 0;
+        int[] target = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Integer to = nextIndex.get(keyOf.apply(rows.get(i)));
+            target[i] = to != null ? to : -1;
+            if (to != null) {
+                kept++;
+            }
+        }
+        boolean[] inPlace = longestIncreasing(target);
+        int staying = 0;
+        for (boolean stays : inPlace) {
+            if (stays) {
+                staying++;
+            }
+        }
+        int removed = rows.size() - kept;
+        int moved = kept - staying;
+        int inserted = next.size() - kept;
+        if (removed + moved + inserted > Math.max(next.size(), rows.size()) / 2) {
+            lastChangeCount = removed + moved + inserted;
+            return super.setAll(next);
+        }
+
+        int changes = 0;
+        beginChange();
+        try {
+            // Take out rows that are gone or out of order, from the end so indexes stay valid
+            Map<Object, T> movedRows = new HashMap<>();
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                if (!inPlace[i]) {
+                    T row = remove(i);
+                    if (target[i] >= 0) {
+                        movedRows.put(keyOf.apply(row), row);
+                    } else {
+                        changes++;
+                    }
+                }
+            }
+
+            // The remaining rows are in next's order: walk it and keep, update or (re)insert
+            for (int i = 0; i < next.size(); i++) {
+                T wanted = next.get(i);
+                Object key = keyOf.apply(wanted);
+
+                if (i < rows.size() && Objects.equals(key, keyOf.apply(rows.get(i)))) {
+                    if (!sameFields(rows.get(i), wanted)) {
+                        set(i, wanted);
+                        changes++;
+                    }
+                    continue;
+                }
+
+                T old = movedRows.get(key);
+                add(i, old != null && sameFields(old, wanted) ? old : wanted);
+                changes++;
+            }
+        } finally {
+            endChange();
+        }
+
+        lastChangeCount = changes;
+        return changes > 0;
+    }
+
+    /**
+     * Rows inserted, removed, moved or updated by the last setAll
+     */
+    public int getLastChangeCount() {
+        return lastChangeCount;
+    }
+
+    @Override
+    public T get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    protected void doAdd(int index, T element) {
+        rows.add(index, element);
+    }
+
+    @Override
+    protected T doSet(int index, T element) {
+        return rows.set(index, element);
+    }
+
+    @Override
+    protected T doRemove(int index) {
+        return rows.remove(index);
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private boolean sameFields(T current, T wanted) {
+        if (current == wanted) {
+            return true;
+        }
+        for (Function<T, ?> field : fields) {
+            if (!Objects.equals(field.apply(current), field.apply(wanted))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the longest strictly increasing subsequence of the non-negative
+     * values (patience sorting, O(n log n)); negative values are never marked
+     */
+    private static boolean[] longestIncreasing(int[] values) {
+        int[] tails = new int[values.length];     // index of the smallest tail of each length
+        int[] previous = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] marked = new boolean[values.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            marked[i] = true;
+        }
+        return marked;
+    }
+}
@@ -22,6 +22,8 @@ import views.admin.AdminDashboard;
 import views.librarian.LibrarianDashboard;
 import views.reader.ReaderDashboard;
 
+import java.util.Optional;
+
 public class LoginView {
     private Stage stage;
     private UserDAO userDAO;
@@ -245,38 +247,32 @@ public class LoginView {
         loginButton.setDisable(true);
         loginButton.setText("Đang xử lý...");
 
-        // Simulate async operation (in real app, use Task)
-        new Thread(() -> {
-            try {
-                User user = userDAO.authenticate(username, password);
-
-                javafx.application.Platform.runLater(() -> {
-                    if (user != null) {
-                        // Update last login
-                        try {
-                            userDAO.updateLastLogin(username);
-                        } catch (Exception ex) {
-                            ex.printStackTrace();
-                        }
-
-                        // Success animation then navigate
-                        successAnimation(() -> navigateToDashboard(user));
-                    } else {
-                        loginButton.setDisable(false);
-                        loginButton.setText("ĐĂNG NHẬP");
-                        showError("Sai tên đăng nhập hoặc mật khẩu!");
-                        shakeAnimation(errorLabel);
-                    }
-                });
-
-            } catch (Exception e) {
-                javafx.application.Platform.runLater(() -> {
-                    loginButton.setDisable(false);
-                    loginButton.setText("ĐĂNG NHẬP");
-                    showError("Lỗi kết nối: " + e.getMessage());
-                });
+        ViewTasks.run("login", () -> {
+            User user = userDAO.authenticate(username, password);
+            if (user != null) {
+                // Update last login
+                try {
+                    userDAO.updateLastLogin(username);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            return Optional.ofNullable(user);
+        }, result -> {
+            if (result.isPresent()) {
+                // Success animation then navigate
+                successAnimation(() -> navigateToDashboard(result.get()));
+            } else {
+                loginButton.setDisable(false);
+                loginButton.setText("ĐĂNG NHẬP");
+                showError("Sai tên đăng nhập hoặc mật khẩu!");
+                shakeAnimation(errorLabel);
             }
-        }).start();
+        }, e -> {
+            loginButton.setDisable(false);
+            loginButton.setText("ĐĂNG NHẬP");
+            showError("Lỗi kết nối: " + e.getMessage());
+        });
     }
 
     private void showError(String message) {
@@ -0,0 +1,323 @@
+package views;
+
+import database.dao.Page;
+import database.dao.PageQuery;
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Callback;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rows of a TableView read page by page from a keyset-paginated query.
+ *
+ * Only the first page is read when the table opens. Further pages are read
+ * in the background (ViewTasks) as the user scrolls towards them: once the
+ * viewport is past the middle of the last page read, the next one is fetched,
+ * and the table grows by a page. At most maxPages pages are kept; rows of an
+ * evicted page show empty and are read again, with the page's saved cursor,
+ * when they come back into view. Sorting a bound column and the search box
+ * restart from the first page with a new server-side query.
+ *
+ * Create the source after the table's columns: columns not bound with
+ * bindSort are not sortable, and cell value factories are wrapped so that
+ * rows not read yet (null items) show empty.
+ */
+public class PagedTableSource<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(300);
+    private static final AtomicInteger sourceNumber = new AtomicInteger();
+
+    /**
+     * Reads one page; runs on a background thread
+     */
+    public interface PageLoader<T> {
+        Page<T> load(PageQuery query, int pageSize, String after) throws Exception;
+    }
+
+    private final String taskKey = "paged-table-" + sourceNumber.incrementAndGet();
+    private final TableView<T> table;
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private final int maxPages;
+    private final PagedList rows = new PagedList();
+    private final Map<TableColumn<T, ?>, String> sortKeys = new HashMap<>();
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+
+    // FX thread only
+    private PageQuery query;
+    private int generation;
+    private int size;
+    private boolean complete;
+    // cursors.get(p) is the "after" token of page p; the last one leads to a page not read yet
+    private final List<String> cursors = new ArrayList<>();
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+
+    public PagedTableSource(TableView<T> table, PageQuery query, PageLoader<T> loader) {
+        this(table, query, loader, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param query Initial query, usually PageQuery.DEFAULT with the view's fixed filters
+     * @param maxPages Pages kept in memory (at least 3)
+     */
+    public PagedTableSource(TableView<T> table, PageQuery query, PageLoader<T> loader, int pageSize, int maxPages) {
+        this.table = table;
+        this.query = query;
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxPages = Math.max(3, maxPages);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > PagedTableSource.this.maxPages;
+            }
+        };
+
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            column.setSortable(false);
+            skipUnreadRows(column);
+        }
+        table.setSortPolicy(t -> {
+            applySortOrder();
+            return true;
+        });
+        table.setItems(rows);
+        reload();
+    }
+
+    /**
+     * Let the column sort on the server by the given PageQuery sort column
+     */
+    public void bindSort(TableColumn<T, ?> column, String sortKey) {
+        column.setSortable(true);
+        sortKeys.put(column, sortKey);
+    }
+
+    /**
+     * Search on the server as the user types
+     */
+    public void bindSearch(TextField searchField) {
+        searchField.textProperty().addListener((obs, old, text) -> {
+            searchDebounce.setOnFinished(e -> setQuery(query.withSearch(text)));
+            searchDebounce.playFromStart();
+        });
+    }
+
+    /**
+     * @param value Required value, or null to drop the filter
+     */
+    public void setFilter(String name, String value) {
+        setQuery(query.withFilter(name, value));
+    }
+
+    public void setQuery(PageQuery newQuery) {
+        query = newQuery;
+        reload();
+    }
+
+    public PageQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Drop all pages and read the first one again (e.g. after a change)
+     */
+    public void reload() {
+        for (Integer page : loading) {
+            ViewTasks.cancel(taskKey(page));
+        }
+        generation++;
+        loading.clear();
+        pages.clear();
+        cursors.clear();
+        cursors.add(null);
+        complete = false;
+
+        int oldSize = size;
+        size = 0;
+        rows.fireRemoved(oldSize);
+
+        table.setPlaceholder(new Label("Đang tải dữ liệu..."));
+        load(0);
+    }
+
+    /**
+     * Rows read so far (the table grows while scrolling)
+     */
+    public int getLoadedCount() {
+        return size;
+    }
+
+    /**
+     * True once the last page has been read
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private T rowAt(int index) {
+        int page = index / pageSize;
+        int offset = index % pageSize;
+
+        // Prefetch the neighbouring page on the side the viewport is approaching
+        if (offset >= pageSize / 2) {
+            load(page + 1);
+        } else if (page > 0 && !pages.containsKey(page - 1)) {
+            load(page - 1);
+        }
+
+        List<T> items = pages.get(page);
+        if (items == null) {
+            load(page);
+            return null;
+        }
+        return offset < items.size() ? items.get(offset) : null;
+    }
+
+    private void load(int page) {
+        // A page can be read once the previous one gave its cursor
+        if (page >= cursors.size() || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        int requestGeneration = generation;
+        PageQuery pageQuery = query;
+        String after = cursors.get(page);
+        ViewTasks.run(taskKey(page), () -> loader.load(pageQuery, pageSize, after),
+                result -> pageLoaded(requestGeneration, page, result),
+                e -> {
+                    if (requestGeneration == generation) {
+                        loading.remove(page);
+                        if (size == 0) {
+                            table.setPlaceholder(new Label("⚠ Lỗi khi tải dữ liệu: " + e.getMessage()));
+                        }
+                    }
+                });
+    }
+
+    private void pageLoaded(int requestGeneration, int page, Page<T> result) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading.remove(page);
+
+        List<T> items = result.getItems();
+        pages.put(page, items);
+
+        boolean frontier = page == cursors.size() - 1 && !complete;
+        if (frontier) {
+            if (result.hasNext()) {
+                cursors.add(result.getNextCursor());
+            } else {
+                complete = true;
+            }
+        }
+
+        int from = page * pageSize;
+        if (from >= size) {
+            size = from + items.size();
+            rows.fireAdded(from, size);
+        } else {
+            rows.fireReplaced(from, Math.min(size, from + items.size()));
+        }
+
+        if (size == 0) {
+            table.setPlaceholder(new Label("Không có dữ liệu"));
+        }
+    }
+
+    private void applySortOrder() {
+        String sortBy = null;
+        boolean descending = true;
+        for (TableColumn<T, ?> column : table.getSortOrder()) {
+            String key = sortKeys.get(column);
+            if (key != null) {
+                sortBy = key;
+                descending = column.getSortType() == TableColumn.SortType.DESCENDING;
+                break;
+            }
+        }
+
+        if (!Objects.equals(sortBy, query.getSortBy()) || descending != query.isDescending()) {
+            setQuery(query.withSort(sortBy, descending));
+        }
+    }
+
+    private <V> void skipUnreadRows(TableColumn<T, V> column) {
+        Callback<TableColumn.CellDataFeatures<T, V>, ObservableValue<V>> factory = column.getCellValueFactory();
+        if (factory != null) {
+            column.setCellValueFactory(data -> data.getValue() != null ? factory.call(data) : null);
+        }
+    }
+
+    private String taskKey(int page) {
+        return taskKey + ":" + page;
+    }
+
+    /**
+     * The list the table shows: size() rows, of which only those of cached pages are non-null
+     */
+    private class PagedList extends ObservableListBase<T> {
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+            }
+            return rowAt(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void fireAdded(int from, int to) {
+            if (from < to) {
+                beginChange();
+                nextAdd(from, to);
+                endChange();
+            }
+        }
+
+        void fireReplaced(int from, int to) {
+            if (from < to) {
+                beginChange();
+                for (int i = from; i < to; i++) {
+                    nextSet(i, null);
+                }
+                endChange();
+            }
+        }
+
+        void fireRemoved(int oldSize) {
+            if (oldSize > 0) {
+                beginChange();
+                nextRemove(0, Collections.nCopies(oldSize, null));
+                endChange();
+            }
+        }
+    }
+}
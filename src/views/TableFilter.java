@@ -0,0 +1,136 @@
+package views;
+
+import javafx.animation.PauseTransition;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import search.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Live search for a management table, entirely on the client.
+ *
+ * Works on one snapshot of the rows (setItems) instead of reloading on each
+ * keystroke. Every row's searchable fields are folded once (lower case,
+ * no diacritics, see TextNormalizer); a row matches when each word of the
+ * query occurs in one of its fields. Input is debounced, and a query that
+ * extends the previous one only re-checks the previous matches.
+ */
+public class TableFilter<T> {
+
+    private static final Duration DEBOUNCE = Duration.millis(150);
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ObservableList<T> target;
+    private final List<Function<T, String>> fields;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+
+    private List<T> rows = List.of();
+    private String[] haystacks = new String[0];
+
+    private String query = "";
+    // Last applied folded query and its matches (row indexes), null = all rows
+    private String lastFolded = "";
+    private int[] lastMatches;
+
+    /**
+     * @param target List shown by the table; set to the matching rows (use a
+     *               KeyedObservableList so only rows that change are updated)
+     * @param fields Searchable fields of a row
+     */
+    @SafeVarargs
+    public TableFilter(ObservableList<T> target, Function<T, String>... fields) {
+        this.target = target;
+        // Element by element, as in KeyedObservableList, to keep the varargs array out of List.of
+        List<Function<T, String>> copy = new ArrayList<>(fields.length);
+        for (Function<T, String> field : fields) {
+            copy.add(field);
+        }
+        this.fields = List.copyOf(copy);
+    }
+
+    /**
+     * Filter as the user types in the field
+     */
+    public void bind(TextField searchField) {
+        searchField.textProperty().addListener((obs, old, text) -> {
+            debounce.setOnFinished(e -> setQuery(text));
+            debounce.playFromStart();
+        });
+    }
+
+    /**
+     * Replace the snapshot (e.g. after a refresh) and re-apply the current query
+     */
+    public void setItems(List<T> items) {
+        rows = new ArrayList<>(items);
+        haystacks = new String[rows.size()];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < haystacks.length; i++) {
+            sb.setLength(0);
+            for (Function<T, String> field : fields) {
+                sb.append(TextNormalizer.fold(field.apply(rows.get(i)))).append(FIELD_SEPARATOR);
+            }
+            haystacks[i] = sb.toString();
+        }
+        lastFolded = "";
+        lastMatches = null;
+        apply();
+    }
+
+    /**
+     * Filter immediately, without waiting for the debounce delay
+     */
+    public void setQuery(String text) {
+        query = text != null ? text : "";
+        apply();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private void apply() {
+        String folded = TextNormalizer.fold(query).trim().replaceAll("\\s+", " ");
+        if (folded.isEmpty()) {
+            lastFolded = "";
+            lastMatches = null;
+            target.setAll(rows);
+            return;
+        }
+
+        // Every match of "abc d" also matches "ab" or "abc", so narrow the previous result
+        boolean narrowing = lastMatches != null && folded.startsWith(lastFolded);
+        String[] words = folded.split(" ");
+
+        int candidates = narrowing ? lastMatches.length : haystacks.length;
+        int[] matches = new int[candidates];
+        int count = 0;
+        for (int c = 0; c < candidates; c++) {
+            int row = narrowing ? lastMatches[c] : c;
+            if (containsAll(haystacks[row], words)) {
+                matches[count++] = row;
+            }
+        }
+
+        lastFolded = folded;
+        lastMatches = Arrays.copyOf(matches, count);
+
+        List<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(rows.get(lastMatches[i]));
+        }
+        target.setAll(result);
+    }
+
+    private static boolean containsAll(String haystack, String[] words) {
+        for (String word : words) {
+            if (!haystack.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,214 @@
+package views;
+
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs database and service calls for the views off the FX application thread.
+ *
+ * Work runs on a small bounded pool; its result (or error) is handed back on
+ * the FX thread. Tasks have a key, usually naming the screen area they fill:
+ * starting a task cancels the unfinished one with the same key, and a
+ * cancelled task never calls back, so a slow old result cannot overwrite a
+ * newer one. Timing is collected per key (see getStats).
+ */
+public final class ViewTasks {
+
+    /** Text shown in place of a value that is still loading */
+    public static final String LOADING = "...";
+
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            THREADS, THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread t = new Thread(r, "view-task-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Map<String, Handle> running = new ConcurrentHashMap<>();
+    private static final Map<String, TaskStats> stats = new ConcurrentHashMap<>();
+
+    private ViewTasks() {
+    }
+
+    /**
+     * Handle of a started task
+     */
+    public static final class Handle {
+        private final String key;
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+
+        private Handle(String key) {
+            this.key = key;
+        }
+
+        /** Stop the task; its callbacks will not run */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+            if (running.remove(key, this)) {
+                statsFor(key).cancelled.incrementAndGet();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Timing of the tasks run under one key
+     */
+    public static final class TaskStats {
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+        private final AtomicLong totalMs = new AtomicLong();
+        private volatile long lastMs;
+        private volatile long maxMs;
+
+        private void record(long ms, boolean success) {
+            (success ? completed : failed).incrementAndGet();
+            totalMs.addAndGet(ms);
+            lastMs = ms;
+            if (ms > maxMs) {
+                maxMs = ms;
+            }
+        }
+
+        public long getCompleted() { return completed.get(); }
+        public long getFailed() { return failed.get(); }
+        public long getCancelled() { return cancelled.get(); }
+        public long getLastMs() { return lastMs; }
+        public long getMaxMs() { return maxMs; }
+
+        public double getAverageMs() {
+            long runs = completed.get() + failed.get();
+            return runs == 0 ? 0 : (double) totalMs.get() / runs;
+        }
+    }
+
+    /**
+     * Run work in the background and pass its result to onSuccess on the FX thread.
+     * Errors are reported on stderr.
+     */
+    public static <T> Handle run(String key, Callable<T> work, Consumer<T> onSuccess) {
+        return run(key, work, onSuccess, e -> System.err.println(" Lỗi khi tải dữ liệu (" + key + "): " + e.getMessage()));
+    }
+
+    /**
+     * Run work in the background; onSuccess or onError is called on the FX
+     * thread unless the task was cancelled or superseded meanwhile.
+     */
+    public static <T> Handle run(String key, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        // Views start tasks on the FX thread only, so this pair needs no further locking
+        cancel(key);
+        Handle handle = new Handle(key);
+        running.put(key, handle);
+
+        try {
+            handle.future = executor.submit(() -> {
+                long start = System.nanoTime();
+                T result;
+                try {
+                    result = work.call();
+                } catch (Throwable e) {
+                    statsFor(key).record((System.nanoTime() - start) / 1_000_000, false);
+                    deliver(handle, () -> onError.accept(e));
+                    return;
+                }
+                statsFor(key).record((System.nanoTime() - start) / 1_000_000, true);
+                deliver(handle, () -> onSuccess.accept(result));
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(key, handle);
+            deliver(handle, () -> onError.accept(e));
+        }
+        return handle;
+    }
+
+    /**
+     * Load rows into a table in the background. The current rows stay until
+     * the new ones arrive (a KeyedObservableList then only applies the
+     * difference); an empty table shows a loading placeholder meanwhile.
+     */
+    public static <T> Handle loadTable(String key, TableView<T> table, Callable<? extends Collection<T>> work) {
+        Label emptyPlaceholder = new Label("Không có dữ liệu");
+        table.setPlaceholder(new Label("Đang tải dữ liệu..."));
+        return run(key, work, rows -> {
+            table.setPlaceholder(emptyPlaceholder);
+            table.getItems().setAll(rows);
+        }, e -> table.setPlaceholder(new Label("⚠ Lỗi khi tải dữ liệu: " + e.getMessage())));
+    }
+
+    /**
+     * Cancel the unfinished task with this key, if any
+     */
+    public static void cancel(String key) {
+        Handle handle = running.get(key);
+        if (handle != null) {
+            handle.cancel();
+        }
+    }
+
+    public static Map<String, TaskStats> getStats() {
+        return Map.copyOf(stats);
+    }
+
+    public static int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public static int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Stop accepting tasks and interrupt running ones (application exit)
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+        running.clear();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private static void deliver(Handle handle, Runnable callback) {
+        Platform.runLater(() -> {
+            // Checked on the FX thread, where superseding tasks are started
+            if (!handle.cancelled) {
+                running.remove(handle.key, handle);
+                callback.run();
+            }
+        });
+    }
+
+    private static TaskStats statsFor(String key) {
+        return stats.computeIfAbsent(key, k -> new TaskStats());
+    }
+}
@@ -1,10 +1,10 @@
 package views.admin;
 
+import database.dao.PageQuery;
 import database.dao.UserDAO;
 import database.impl.LibraryService;
 import database.impl.UserDAOImpl;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
@@ -16,8 +16,13 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import models.CirculationCounters;
 import models.people.User;
 import views.BaseDashboard;
+import views.ViewTasks;
+
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 import views.librarian.*;
 
 public class AdminDashboard extends BaseDashboard {
@@ -76,7 +81,7 @@ public class AdminDashboard extends BaseDashboard {
     }
 
     private void loadDashboardView() {
-        AdminOverview overview = new AdminOverview(libraryService, userDAO);
+        AdminOverview overview = new AdminOverview(libraryService);
         loadView(overview.createView(), "👑 Admin Dashboard");
     }
 
@@ -116,11 +121,9 @@ public class AdminDashboard extends BaseDashboard {
 class AdminOverview {
 
     private LibraryService libraryService;
-    private UserDAO userDAO;
 
-    public AdminOverview(LibraryService libraryService, UserDAO userDAO) {
+    public AdminOverview(LibraryService libraryService) {
         this.libraryService = libraryService;
-        this.userDAO = userDAO;
     }
 
     public VBox createView() {
@@ -147,7 +150,7 @@ class AdminOverview {
         // Books
         VBox bookCard = createStatCard(
                 "📚",
-                String.valueOf(libraryService.getBooks().size()),
+                ViewTasks.LOADING,
                 "Tổng sách",
                 "linear-gradient(to bottom right, #667eea 0%, #764ba2 100%)"
         );
@@ -155,45 +158,52 @@ class AdminOverview {
         // Readers
         VBox readerCard = createStatCard(
                 "👥",
-                String.valueOf(libraryService.getReaders().size()),
+                ViewTasks.LOADING,
                 "Độc giả",
                 "linear-gradient(to bottom right, #f093fb 0%, #f5576c 100%)"
         );
 
         // Users
-        try {
-            int userCount = userDAO.findAll().size();
-            VBox userCard = createStatCard(
-                    "👤",
-                    String.valueOf(userCount),
-                    "Người dùng",
-                    "linear-gradient(to bottom right, #4facfe 0%, #00f2fe 100%)"
-            );
-            row.getChildren().add(userCard);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        VBox userCard = createStatCard(
+                "👤",
+                ViewTasks.LOADING,
+                "Người dùng",
+                "linear-gradient(to bottom right, #4facfe 0%, #00f2fe 100%)"
+        );
 
         // Borrowed
-        long borrowed = libraryService.getBorrowRecords().stream()
-                .filter(r -> r.getStatus() == models.enums.BorrowStatus.BORROWED)
-                .count();
         VBox borrowCard = createStatCard(
                 "📖",
-                String.valueOf(borrowed),
+                ViewTasks.LOADING,
                 "Đang mượn",
                 "linear-gradient(to bottom right, #43e97b 0%, #38f9d7 100%)"
         );
 
-        row.getChildren().addAll(bookCard, readerCard, borrowCard);
+        row.getChildren().addAll(userCard, bookCard, readerCard, borrowCard);
 
         HBox.setHgrow(bookCard, Priority.ALWAYS);
         HBox.setHgrow(readerCard, Priority.ALWAYS);
         HBox.setHgrow(borrowCard, Priority.ALWAYS);
 
+        ViewTasks.run("admin-stats", libraryService::getDashboardSummary, summary -> {
+            CirculationCounters counters = summary != null ? summary.getCounters() : null;
+            setStatNumber(userCard, summary != null ? String.valueOf(summary.getTotalUsers()) : "N/A");
+            setStatNumber(bookCard, counterText(counters, CirculationCounters::getTotalBooks));
+            setStatNumber(readerCard, counterText(counters, CirculationCounters::getActiveReaders));
+            setStatNumber(borrowCard, counterText(counters, CirculationCounters::getActiveLoans));
+        });
+
         return row;
     }
 
+    private String counterText(CirculationCounters counters, ToLongFunction<CirculationCounters> value) {
+        return counters != null ? String.valueOf(value.applyAsLong(counters)) : "N/A";
+    }
+
+    private void setStatNumber(VBox card, String number) {
+        ((Label) card.getChildren().get(1)).setText(number);
+    }
+
     private VBox createStatCard(String icon, String number, String label, String gradient) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
@@ -233,20 +243,18 @@ class AdminOverview {
         // Database
         addHealthItem(grid, 0, "💾 Database", "Hoạt động", "✅");
 
-        // Active Users
-        try {
-            long activeUsers = userDAO.findAll().stream()
-                    .filter(User::isActive)
-                    .count();
-            addHealthItem(grid, 1, "👤 Người dùng hoạt động", String.valueOf(activeUsers), "✅");
-        } catch (Exception e) {
-            addHealthItem(grid, 1, "👤 Người dùng hoạt động", "N/A", "⚠️");
-        }
-
-        // Overdue books
-        int overdueCount = libraryService.getOverdueRecords().size();
-        String overdueStatus = overdueCount == 0 ? "✅" : "⚠️";
-        addHealthItem(grid, 2, "⏰ Sách quá hạn", String.valueOf(overdueCount), overdueStatus);
+        // Active users and overdue books (same shared summary as the stat cards)
+        ViewTasks.run("admin-health", libraryService::getDashboardSummary, summary -> {
+            if (summary != null) {
+                addHealthItem(grid, 1, "👤 Người dùng hoạt động", String.valueOf(summary.getActiveUsers()), "✅");
+                long overdueCount = summary.getCounters().getOverdueLoans();
+                String overdueStatus = overdueCount == 0 ? "✅" : "⚠️";
+                addHealthItem(grid, 2, "⏰ Sách quá hạn", String.valueOf(overdueCount), overdueStatus);
+            } else {
+                addHealthItem(grid, 1, "👤 Người dùng hoạt động", "N/A", "⚠️");
+                addHealthItem(grid, 2, "⏰ Sách quá hạn", "N/A", "⚠️");
+            }
+        });
 
         section.getChildren().addAll(title, grid);
 
@@ -278,22 +286,20 @@ class AdminOverview {
         ListView<String> activityList = new ListView<>();
         activityList.setPrefHeight(250);
 
-        ObservableList<String> activities = FXCollections.observableArrayList();
-
-        // Get recent borrows
-        libraryService.getBorrowRecords().stream()
-                .sorted((a, b) -> b.getBorrowDate().compareTo(a.getBorrowDate()))
-                .limit(10)
-                .forEach(r -> {
-                    String activity = String.format("🔵 %s - %s mượn '%s'",
-                            r.getBorrowDate(),
-                            r.getReader().getName(),
-                            r.getBook().getTitle()
-                    );
-                    activities.add(activity);
-                });
-
-        activityList.setItems(activities);
+        activityList.setPlaceholder(new Label("Đang tải dữ liệu..."));
+
+        // Get recent borrows (first page, newest borrow date first)
+        ViewTasks.run("admin-recent-activities", () -> libraryService.getBorrowRecordsPage(PageQuery.DEFAULT, 10, null)
+                .getItems().stream()
+                .map(r -> String.format("🔵 %s - %s mượn '%s'",
+                        r.getBorrowDate(),
+                        r.getReader().getName(),
+                        r.getBook().getTitle()
+                ))
+                .collect(Collectors.toList()), activities -> {
+            activityList.setPlaceholder(new Label("Không có dữ liệu"));
+            activityList.setItems(FXCollections.observableArrayList(activities));
+        });
 
         section.getChildren().addAll(title, activityList);
 
@@ -2,7 +2,6 @@ package views.admin;
 
 import database.dao.UserDAO;
 import database.impl.LibraryService;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -12,6 +11,10 @@ import javafx.scene.layout.*;
 import models.enums.MembershipType;
 import models.enums.UserRole;
 import models.people.*;
+import views.KeyedObservableList;
+import views.TableFilter;
+
+import java.util.List;
 
 public class UserManagementView {
 
@@ -20,16 +23,20 @@ public class UserManagementView {
     private User currentUser;
     private TableView<User> userTable;
     private ObservableList<User> userData;
+    private TableFilter<User> userFilter;
     private TextField searchField;
 
     public UserManagementView(LibraryService libraryService, UserDAO userDAO, User currentUser) {
         this.libraryService = libraryService;
         this.userDAO = userDAO;
         this.currentUser = currentUser;
+        this.userData = new KeyedObservableList<>(User::getUsername, User::getFullName, User::getEmail,
+                User::getRole, User::isActive, User::getLastLogin, User::getLinkedEntityId);
+        this.userFilter = new TableFilter<>(userData, User::getUsername, User::getFullName, User::getEmail);
         try {
-            this.userData = FXCollections.observableArrayList(userDAO.findAll());
+            userFilter.setItems(userDAO.findAll());
         } catch (Exception e) {
-            this.userData = FXCollections.observableArrayList();
+            userFilter.setItems(List.of());
         }
     }
 
@@ -64,7 +71,7 @@ public class UserManagementView {
         searchField.setPromptText("Tìm kiếm người dùng...");
         searchField.setStyle("-fx-background-color: transparent; -fx-border-width: 0;");
         searchField.setPrefWidth(400);
-        searchField.textProperty().addListener((obs, old, newVal) -> filterUsers(newVal));
+        userFilter.bind(searchField);
 
         searchBox.getChildren().addAll(searchIcon, searchField);
 
@@ -189,27 +196,6 @@ public class UserManagementView {
         return table;
     }
 
-    private void filterUsers(String keyword) {
-        try {
-            if (keyword == null || keyword.isEmpty()) {
-                userData.setAll(userDAO.findAll());
-            } else {
-                String lower = keyword.toLowerCase();
-                userData.setAll(
-                        userDAO.findAll().stream()
-                                .filter(user ->
-                                        user.getUsername().toLowerCase().contains(lower) ||
-                                                user.getFullName().toLowerCase().contains(lower) ||
-                                                user.getEmail().toLowerCase().contains(lower)
-                                )
-                                .toList()
-                );
-            }
-        } catch (Exception e) {
-            showError("Lỗi tìm kiếm: " + e.getMessage());
-        }
-    }
-
     private void showCreateUserDialog() {
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Tạo tài khoản mới");
@@ -467,8 +453,7 @@ public class UserManagementView {
 
     private void refreshTable() {
         try {
-            userData.setAll(userDAO.findAll());
-            searchField.clear();
+            userFilter.setItems(userDAO.findAll());
         } catch (Exception e) {
             showError("Lỗi làm mới: " + e.getMessage());
         }
@@ -1,31 +1,38 @@
 package views.librarian;
 
 import database.dao.BookInventoryLogDAO;
+import database.dao.Page;
+import database.dao.PageQuery;
 import database.impl.BookInventoryLogDAOImpl;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import database.impl.InventoryLogWriter;
 import javafx.geometry.Pos;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import models.BookInventoryLog;
+import views.PagedTableSource;
+import views.ViewTasks;
 
-import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class BookInventoryLogView {
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     private BookInventoryLogDAO logDAO;
     private TableView<BookInventoryLog> logTable;
-    private ObservableList<BookInventoryLog> logData;
+    private PagedTableSource<BookInventoryLog> logSource;
     private TextField searchField;
     private ComboBox<String> filterCombo;
+    private Label totalValue;
+    private Label todayValue;
+    private Label monthValue;
 
     public BookInventoryLogView() {
         this.logDAO = new BookInventoryLogDAOImpl();
-        this.logData = FXCollections.observableArrayList();
-        loadAllLogs();
     }
 
     public VBox createView() {
@@ -37,6 +44,7 @@ public class BookInventoryLogView {
         // Logs table
         logTable = createLogTable();
         VBox.setVgrow(logTable, Priority.ALWAYS);
+        logSource = createLogSource();
 
         // Statistics card
         HBox statsCard = createStatisticsCard();
@@ -73,10 +81,9 @@ public class BookInventoryLogView {
         searchIcon.setStyle("-fx-font-size: 18px;");
 
         searchField = new TextField();
-        searchField.setPromptText("Tìm theo ISBN...");
+        searchField.setPromptText("Tìm theo ISBN, người thực hiện...");
         searchField.setStyle("-fx-background-color: transparent; -fx-border-width: 0;");
         searchField.setPrefWidth(200);
-        searchField.textProperty().addListener((obs, old, newVal) -> searchByISBN(newVal));
 
         searchBox.getChildren().addAll(searchIcon, searchField);
 
@@ -86,7 +93,7 @@ public class BookInventoryLogView {
         // Refresh button
         Button refreshBtn = new Button("🔄 Làm mới");
         refreshBtn.getStyleClass().add("secondary-button");
-        refreshBtn.setOnAction(e -> loadAllLogs());
+        refreshBtn.setOnAction(e -> refresh());
 
         // Export button (placeholder)
         Button exportBtn = new Button("📊 Xuất báo cáo");
@@ -105,26 +112,43 @@ public class BookInventoryLogView {
         card.setPadding(new Insets(15));
 
         // Total logs
-        VBox totalBox = createStatBox("📝", "Tổng giao dịch", String.valueOf(logData.size()));
+        totalValue = new Label(ViewTasks.LOADING);
+        VBox totalBox = createStatBox("📝", "Tổng giao dịch", totalValue);
 
         // Today's logs
-        long todayCount = logData.stream()
-                .filter(log -> log.getTimestamp().toLocalDate().equals(LocalDateTime.now().toLocalDate()))
-                .count();
-        VBox todayBox = createStatBox("📅", "Hôm nay", String.valueOf(todayCount));
+        todayValue = new Label(ViewTasks.LOADING);
+        VBox todayBox = createStatBox("📅", "Hôm nay", todayValue);
 
         // This month
-        long monthCount = logData.stream()
-                .filter(log -> log.getTimestamp().getMonth() == LocalDateTime.now().getMonth())
-                .count();
-        VBox monthBox = createStatBox("📆", "Tháng này", String.valueOf(monthCount));
+        monthValue = new Label(ViewTasks.LOADING);
+        VBox monthBox = createStatBox("📆", "Tháng này", monthValue);
 
         card.getChildren().addAll(totalBox, todayBox, monthBox);
 
+        loadStatistics();
+
         return card;
     }
 
-    private VBox createStatBox(String icon, String label, String value) {
+    /**
+     * Counted on the server, independent of the rows read into the table
+     */
+    private void loadStatistics() {
+        ViewTasks.run("inventory-log-stats", () -> {
+            LocalDate today = LocalDate.now();
+            return new long[]{
+                    logDAO.countSince(null),
+                    logDAO.countSince(today.atStartOfDay()),
+                    logDAO.countSince(today.withDayOfMonth(1).atStartOfDay())
+            };
+        }, counts -> {
+            totalValue.setText(String.valueOf(counts[0]));
+            todayValue.setText(String.valueOf(counts[1]));
+            monthValue.setText(String.valueOf(counts[2]));
+        });
+    }
+
+    private VBox createStatBox(String icon, String label, Label valueLabel) {
         VBox box = new VBox(5);
         box.setAlignment(Pos.CENTER_LEFT);
 
@@ -134,7 +158,6 @@ public class BookInventoryLogView {
         Label iconLabel = new Label(icon);
         iconLabel.setStyle("-fx-font-size: 24px;");
 
-        Label valueLabel = new Label(value);
         valueLabel.setStyle("-fx-font-size: 24px; -fx-font-weight: bold; -fx-text-fill: #1e293b;");
 
         topRow.getChildren().addAll(iconLabel, valueLabel);
@@ -149,7 +172,6 @@ public class BookInventoryLogView {
 
     private TableView<BookInventoryLog> createLogTable() {
         TableView<BookInventoryLog> table = new TableView<>();
-        table.setItems(logData);
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         // Timestamp
@@ -259,54 +281,37 @@ public class BookInventoryLogView {
         return table;
     }
 
-    private void loadAllLogs() {
-        try {
-            List<BookInventoryLog> logs = logDAO.findAll();
-            logData.setAll(logs);
-        } catch (SQLException e) {
-            showError("Lỗi tải dữ liệu: " + e.getMessage());
-        }
-    }
-
-    private void filterLogs() {
-        String filter = filterCombo.getValue();
-
-        if ("Tất cả".equals(filter)) {
-            loadAllLogs();
-            return;
-        }
-
-        try {
-            String actionType = switch (filter) {
-                case "Thêm mới" -> "ADD_NEW";
-                case "Nhập thêm" -> "INCREASE_STOCK";
-                case "Xuất giảm" -> "DECREASE_STOCK";
-                default -> null;
-            };
-
-            if (actionType != null) {
-                List<BookInventoryLog> logs = logDAO.findAll();
-                logData.setAll(logs.stream()
-                        .filter(log -> log.getActionType().equals(actionType))
-                        .toList());
+    private PagedTableSource<BookInventoryLog> createLogSource() {
+        PagedTableSource<BookInventoryLog> source = new PagedTableSource<>(logTable, PageQuery.DEFAULT, (query, pageSize, after) -> {
+            // Entries are written in the background; make the latest ones visible
+            if (after == null) {
+                InventoryLogWriter.getInstance().flush();
             }
-        } catch (SQLException e) {
-            showError("Lỗi lọc dữ liệu: " + e.getMessage());
-        }
+            return logDAO.findPage(query, pageSize, after);
+        });
+
+        List<TableColumn<BookInventoryLog, ?>> columns = logTable.getColumns();
+        source.bindSort(columns.get(0), "timestamp");
+        source.bindSort(columns.get(1), "isbn");
+        source.bindSort(columns.get(2), "actionType");
+        source.bindSort(columns.get(3), "quantityChange");
+        source.bindSearch(searchField);
+        return source;
     }
 
-    private void searchByISBN(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            loadAllLogs();
-            return;
-        }
+    private void refresh() {
+        logSource.reload();
+        loadStatistics();
+    }
 
-        try {
-            List<BookInventoryLog> logs = logDAO.findByISBN(isbn.trim());
-            logData.setAll(logs);
-        } catch (SQLException e) {
-            showError("Lỗi tìm kiếm: " + e.getMessage());
-        }
+    private void filterLogs() {
+        String actionType = switch (filterCombo.getValue()) {
+            case "Thêm mới" -> "ADD_NEW";
+            case "Nhập thêm" -> "INCREASE_STOCK";
+            case "Xuất giảm" -> "DECREASE_STOCK";
+            default -> null;
+        };
+        logSource.setFilter("actionType", actionType);
     }
 
     private void showLogDetails(BookInventoryLog log) {
@@ -331,17 +336,32 @@ public class BookInventoryLogView {
 //        alert.setHeaderText("Tính năng đang phát triển");
 //        alert.setContentText("Chức năng xuất báo cáo Excel/PDF sẽ được bổ sung trong phiên bản sau.");
 //        alert.showAndWait();
-        // Simple text export
+        // Simple text export of every log matching the current filter and search,
+        // read page by page in the background
+        PageQuery query = logSource.getQuery();
+        ViewTasks.run("inventory-log-export", () -> {
+            List<BookInventoryLog> logs = new ArrayList<>();
+            String after = null;
+            do {
+                Page<BookInventoryLog> page = logDAO.findPage(query, EXPORT_PAGE_SIZE, after);
+                logs.addAll(page.getItems());
+                after = page.getNextCursor();
+            } while (after != null);
+            return logs;
+        }, this::showExport, e -> showError("Lỗi tạo báo cáo: " + e.getMessage()));
+    }
+
+    private void showExport(List<BookInventoryLog> logs) {
         try {
             StringBuilder report = new StringBuilder();
             report.append("╔══════════════════════════════════════════════════╗\n");
             report.append("║          BÁO CÁO LỊCH SỬ NHẬP XUẤT SÁCH          ║\n");
             report.append("╚══════════════════════════════════════════════════╝\n\n");
             report.append("Thời gian tạo báo cáo: ").append(java.time.LocalDateTime.now()).append("\n");
-            report.append("Tổng số giao dịch: ").append(logData.size()).append("\n\n");
+            report.append("Tổng số giao dịch: ").append(logs.size()).append("\n\n");
             report.append("═══════════════════════════════════════════════════════\n\n");
 
-            for (BookInventoryLog log : logData) {
+            for (BookInventoryLog log : logs) {
                 report.append("ID: ").append(log.getLogId()).append("\n");
                 report.append("Thời gian: ").append(log.getTimestamp()).append("\n");
                 report.append("ISBN: ").append(log.getIsbn()).append("\n");
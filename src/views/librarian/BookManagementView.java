@@ -1,7 +1,6 @@
 package views.librarian;
 
 import database.impl.LibraryService;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -13,6 +12,9 @@ import models.books.Magazine;
 import models.books.ReferenceBook;
 import models.books.TextBook;
 import models.people.User;
+import views.AutocompleteField;
+import views.KeyedObservableList;
+import views.TableFilter;
 
 public class BookManagementView {
 
@@ -20,12 +22,17 @@ public class BookManagementView {
     private User currentUser;
     private TableView<Book> bookTable;
     private ObservableList<Book> bookData;
+    private TableFilter<Book> bookFilter;
     private TextField searchField;
 
     public BookManagementView(LibraryService libraryService, User currentUser) {
         this.libraryService = libraryService;
         this.currentUser = currentUser;
-        this.bookData = FXCollections.observableArrayList(libraryService.getBooks());
+        this.bookData = new KeyedObservableList<>(Book::getISBN, Book::getTitle, Book::getAuthor,
+                Book::getCategory, Book::getAvailableCopies, Book::getTotalCopies,
+                Book::getPublisher, Book::getPublishYear, Book::getPrice);
+        this.bookFilter = new TableFilter<>(bookData, Book::getTitle, Book::getAuthor, Book::getISBN, Book::getCategory);
+        bookFilter.setItems(libraryService.getBooks());
     }
 
     public VBox createView() {
@@ -61,7 +68,9 @@ public class BookManagementView {
         searchField.setPromptText("Tìm kiếm sách theo tên, tác giả, ISBN...");
         searchField.setStyle("-fx-background-color: transparent; -fx-border-width: 0;");
         searchField.setPrefWidth(400);
-        searchField.textProperty().addListener((obs, old, newVal) -> filterBooks(newVal));
+        bookFilter.bind(searchField);
+        // A picked suggestion is put in the field, which filters the table
+        new AutocompleteField(searchField, libraryService::suggestBooks, completion -> { });
 
         searchBox.getChildren().addAll(searchIcon, searchField);
 
@@ -164,24 +173,6 @@ public class BookManagementView {
         return table;
     }
 
-    private void filterBooks(String keyword) {
-        if (keyword == null || keyword.isEmpty()) {
-            bookData.setAll(libraryService.getBooks());
-        } else {
-            String lower = keyword.toLowerCase();
-            bookData.setAll(
-                    libraryService.getBooks().stream()
-                            .filter(book ->
-                                    book.getTitle().toLowerCase().contains(lower) ||
-                                            book.getAuthor().toLowerCase().contains(lower) ||
-                                            book.getISBN().toLowerCase().contains(lower) ||
-                                            (book.getCategory() != null && book.getCategory().toLowerCase().contains(lower))
-                            )
-                            .toList()
-            );
-        }
-    }
-
     private void showAddBookDialog() {
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Nhập sách vào kho");
@@ -376,8 +367,7 @@ public class BookManagementView {
     }
 
     private void refreshTable() {
-        bookData.setAll(libraryService.getBooks());
-        searchField.clear();
+        bookFilter.setItems(libraryService.getBooks());
     }
 
     private void showSuccess(String message) {
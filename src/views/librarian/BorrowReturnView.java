@@ -1,21 +1,31 @@
 package views.librarian;
 
+import database.dao.PageQuery;
 import database.impl.LibraryService;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import models.BorrowRecord;
+import models.ReturnResult;
 import models.people.User;
+import views.PagedTableSource;
+import views.ViewTasks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 public class BorrowReturnView {
 
     private LibraryService libraryService;
     private User currentUser;
+    private PagedTableSource<BorrowRecord> activeBorrows;
 
     public BorrowReturnView(LibraryService libraryService, User currentUser) {
         this.libraryService = libraryService;
@@ -84,12 +94,21 @@ public class BorrowReturnView {
                 return;
             }
 
-            BorrowRecord record = libraryService.borrowBook(readerId, isbn);
-            if (record != null) {
-                readerIdField.clear();
-                isbnField.clear();
-                showSuccess("Mượn sách thành công!");
-            }
+            borrowBtn.setDisable(true);
+            ViewTasks.run("checkout", () -> libraryService.checkout(readerId, isbn), result -> {
+                borrowBtn.setDisable(false);
+                if (result.isSuccess()) {
+                    readerIdField.clear();
+                    isbnField.clear();
+                    showSuccess("Mượn sách thành công!\nHạn trả: " + result.getRecord().getDueDate());
+                    activeBorrows.reload();
+                } else {
+                    showError(result.getMessage());
+                }
+            }, ex -> {
+                borrowBtn.setDisable(false);
+                showError("Lỗi khi mượn sách: " + ex.getMessage());
+            });
         });
 
         card.getChildren().addAll(title, grid, borrowBtn);
@@ -127,8 +146,26 @@ public class BorrowReturnView {
                 return;
             }
 
-            libraryService.returnBook(recordId);
-            recordIdField.clear();
+            returnBtn.setDisable(true);
+            ViewTasks.run("return", () -> Optional.ofNullable(libraryService.returnBook(recordId)), returned -> {
+                returnBtn.setDisable(false);
+                if (returned.isPresent()) {
+                    ReturnResult result = returned.get();
+                    recordIdField.clear();
+                    activeBorrows.reload();
+                    if (result.getFine() > 0) {
+                        showSuccess(String.format("Trả sách thành công!\nTrễ %d ngày - Phí phạt: %,.0f VND",
+                                result.getDaysLate(), result.getFine()));
+                    } else {
+                        showSuccess("Trả sách thành công!");
+                    }
+                } else {
+                    showError("Không tìm thấy phiếu mượn đang mượn với mã này!");
+                }
+            }, ex -> {
+                returnBtn.setDisable(false);
+                showError("Lỗi khi trả sách: " + ex.getMessage());
+            });
         });
 
         Button extendBtn = new Button("Gia hạn");
@@ -148,12 +185,19 @@ public class BorrowReturnView {
             dialog.setContentText("Số ngày gia hạn:");
 
             dialog.showAndWait().ifPresent(days -> {
+                int numDays;
                 try {
-                    libraryService.extendBorrow(recordId, Integer.parseInt(days));
-                    recordIdField.clear();
+                    numDays = Integer.parseInt(days);
                 } catch (NumberFormatException ex) {
                     showError("Số ngày không hợp lệ!");
+                    return;
                 }
+                ViewTasks.run("extend", () -> libraryService.extendBorrow(recordId, numDays),
+                        extended -> {
+                            recordIdField.clear();
+                            activeBorrows.reload();
+                        },
+                        ex -> showError("Lỗi khi gia hạn: " + ex.getMessage()));
             });
         });
 
@@ -166,20 +210,58 @@ public class BorrowReturnView {
         VBox section = new VBox(15);
         section.getStyleClass().add("card");
 
+        HBox header = new HBox(15);
+        header.setAlignment(Pos.CENTER_LEFT);
+
         Label title = new Label("📋 Danh sách đang mượn");
         title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
-        ListView<String> borrowList = new ListView<>();
-        borrowList.setPrefHeight(300);
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        TextField searchField = new TextField();
+        searchField.setPromptText("🔍 Mã phiếu, độc giả, tên sách...");
+        searchField.getStyleClass().add("dashboard-input");
+        searchField.setPrefWidth(280);
+
+        header.getChildren().addAll(title, spacer, searchField);
+
+        TableView<BorrowRecord> borrowTable = new TableView<>();
+        borrowTable.setPrefHeight(300);
+        borrowTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        TableColumn<BorrowRecord, String> idCol = new TableColumn<>("Mã phiếu");
+        idCol.setCellValueFactory(new PropertyValueFactory<>("recordId"));
+
+        TableColumn<BorrowRecord, String> readerCol = new TableColumn<>("Độc giả");
+        readerCol.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getReader().getName() + " (" + data.getValue().getReader().getId() + ")"));
+
+        TableColumn<BorrowRecord, String> titleCol = new TableColumn<>("Tên sách");
+        titleCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getBook().getTitle()));
+
+        TableColumn<BorrowRecord, LocalDate> borrowDateCol = new TableColumn<>("Ngày mượn");
+        borrowDateCol.setCellValueFactory(new PropertyValueFactory<>("borrowDate"));
+
+        TableColumn<BorrowRecord, LocalDate> dueDateCol = new TableColumn<>("Hạn trả");
+        dueDateCol.setCellValueFactory(new PropertyValueFactory<>("dueDate"));
+
+        TableColumn<BorrowRecord, String> statusCol = new TableColumn<>("Trạng thái");
+        statusCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getStatus().getDescription()));
+
+        borrowTable.getColumns().addAll(List.of(idCol, readerCol, titleCol, borrowDateCol, dueDateCol, statusCol));
 
-        // Load active borrows
-        ObservableList<String> items = FXCollections.observableArrayList();
-        libraryService.getBorrowRecords().stream()
-                .filter(r -> r.getStatus() == models.enums.BorrowStatus.BORROWED)
-                .forEach(r -> items.add(r.getInfo()));
-        borrowList.setItems(items);
+        // Open loans only, read page by page; opening the screen reads one page
+        activeBorrows = new PagedTableSource<>(borrowTable, PageQuery.DEFAULT.withFilter("status", "OPEN"),
+                libraryService::getBorrowRecordsPage);
+        activeBorrows.bindSort(idCol, "recordId");
+        activeBorrows.bindSort(readerCol, "reader");
+        activeBorrows.bindSort(titleCol, "title");
+        activeBorrows.bindSort(borrowDateCol, "borrowDate");
+        activeBorrows.bindSort(dueDateCol, "dueDate");
+        activeBorrows.bindSearch(searchField);
 
-        section.getChildren().addAll(title, borrowList);
+        section.getChildren().addAll(header, borrowTable);
 
         return section;
     }
@@ -6,8 +6,12 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import models.CirculationCounters;
 import models.people.User;
 import views.BaseDashboard;
+import views.ViewTasks;
+
+import java.util.function.ToLongFunction;
 
 public class LibrarianDashboard extends BaseDashboard {
 
@@ -126,7 +130,7 @@ class DashboardOverview {
         // Total Books
         VBox bookCard = createStatCard(
                 "📚",
-                String.valueOf(libraryService.getBooks().size()),
+                ViewTasks.LOADING,
                 "Tổng số sách",
                 "linear-gradient(to bottom right, #667eea 0%, #764ba2 100%)"
         );
@@ -134,18 +138,15 @@ class DashboardOverview {
         // Total Readers
         VBox readerCard = createStatCard(
                 "👥",
-                String.valueOf(libraryService.getReaders().size()),
+                ViewTasks.LOADING,
                 "Độc giả",
                 "linear-gradient(to bottom right, #f093fb 0%, #f5576c 100%)"
         );
 
         // Currently Borrowed
-        long borrowed = libraryService.getBorrowRecords().stream()
-                .filter(r -> r.getStatus() == models.enums.BorrowStatus.BORROWED)
-                .count();
         VBox borrowCard = createStatCard(
                 "📖",
-                String.valueOf(borrowed),
+                ViewTasks.LOADING,
                 "Đang mượn",
                 "linear-gradient(to bottom right, #4facfe 0%, #00f2fe 100%)"
         );
@@ -153,7 +154,7 @@ class DashboardOverview {
         // Overdue
         VBox overdueCard = createStatCard(
                 "⚠",
-                String.valueOf(libraryService.getOverdueRecords().size()),
+                ViewTasks.LOADING,
                 "Quá hạn",
                 "linear-gradient(to bottom right, #fa709a 0%, #fee140 100%)"
         );
@@ -164,9 +165,25 @@ class DashboardOverview {
         HBox.setHgrow(borrowCard, Priority.ALWAYS);
         HBox.setHgrow(overdueCard, Priority.ALWAYS);
 
+        ViewTasks.run("librarian-stats", libraryService::getDashboardSummary, summary -> {
+            CirculationCounters counters = summary != null ? summary.getCounters() : null;
+            setStatNumber(bookCard, counterText(counters, CirculationCounters::getTotalBooks));
+            setStatNumber(readerCard, counterText(counters, CirculationCounters::getActiveReaders));
+            setStatNumber(borrowCard, counterText(counters, CirculationCounters::getActiveLoans));
+            setStatNumber(overdueCard, counterText(counters, CirculationCounters::getOverdueLoans));
+        });
+
         return row;
     }
 
+    private String counterText(CirculationCounters counters, ToLongFunction<CirculationCounters> value) {
+        return counters != null ? String.valueOf(value.applyAsLong(counters)) : "N/A";
+    }
+
+    private void setStatNumber(VBox card, String number) {
+        ((Label) card.getChildren().get(1)).setText(number);
+    }
+
     private VBox createStatCard(String icon, String number, String label, String gradient) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
@@ -1,7 +1,6 @@
 package views.librarian;
 
 import database.impl.LibraryService;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -11,6 +10,8 @@ import javafx.scene.layout.*;
 import models.enums.MembershipType;
 import models.people.Reader;
 import models.people.User;
+import views.KeyedObservableList;
+import views.TableFilter;
 
 public class ReaderManagementView {
 
@@ -18,12 +19,17 @@ public class ReaderManagementView {
     private User currentUser;
     private TableView<Reader> readerTable;
     private ObservableList<Reader> readerData;
+    private TableFilter<Reader> readerFilter;
     private TextField searchField;
 
     public ReaderManagementView(LibraryService libraryService, User currentUser) {
         this.libraryService = libraryService;
         this.currentUser = currentUser;
-        this.readerData = FXCollections.observableArrayList(libraryService.getReaders());
+        this.readerData = new KeyedObservableList<>(Reader::getId, Reader::getName, Reader::getEmail,
+                Reader::getPhone, Reader::getAddress, Reader::getMembershipType, Reader::getCurrentBorrows,
+                Reader::getTotalBorrowed, Reader::getStatus, Reader::isActive);
+        this.readerFilter = new TableFilter<>(readerData, Reader::getName, Reader::getId, Reader::getEmail);
+        readerFilter.setItems(libraryService.getReaders());
     }
 
     public VBox createView() {
@@ -57,7 +63,7 @@ public class ReaderManagementView {
         searchField.setPromptText("Tìm kiếm độc giả...");
         searchField.setStyle("-fx-background-color: transparent; -fx-border-width: 0;");
         searchField.setPrefWidth(400);
-        searchField.textProperty().addListener((obs, old, newVal) -> filterReaders(newVal));
+        readerFilter.bind(searchField);
 
         searchBox.getChildren().addAll(searchIcon, searchField);
 
@@ -156,23 +162,6 @@ public class ReaderManagementView {
         return table;
     }
 
-    private void filterReaders(String keyword) {
-        if (keyword == null || keyword.isEmpty()) {
-            readerData.setAll(libraryService.getReaders());
-        } else {
-            String lower = keyword.toLowerCase();
-            readerData.setAll(
-                    libraryService.getReaders().stream()
-                            .filter(reader ->
-                                    reader.getName().toLowerCase().contains(lower) ||
-                                            reader.getId().toLowerCase().contains(lower) ||
-                                            reader.getEmail().toLowerCase().contains(lower)
-                            )
-                            .toList()
-            );
-        }
-    }
-
     private void showRegisterDialog() {
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Đăng ký độc giả mới");
@@ -250,8 +239,7 @@ public class ReaderManagementView {
     }
 
     private void refreshTable() {
-        readerData.setAll(libraryService.getReaders());
-        searchField.clear();
+        readerFilter.setItems(libraryService.getReaders());
     }
 
     private void showError(String message) {
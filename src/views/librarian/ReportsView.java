@@ -7,11 +7,29 @@ import javafx.scene.control.TextArea;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import models.BookStatistics;
+import models.BorrowRecord;
+import models.CirculationCounters;
+import models.OverdueReport;
+import models.PopularityEntry;
+import models.ReaderStatistics;
+import models.Report;
+import models.enums.PopularityDimension;
+import models.enums.PopularityWindow;
+import views.ViewTasks;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 public class ReportsView {
 
+    private static final int OVERDUE_PAGE_SIZE = 50;
+
     private LibraryService libraryService;
     private TextArea reportArea;
+    private Button nextOverduePageBtn;
+    private String nextOverdueCursor;
 
     public ReportsView(LibraryService libraryService) {
         this.libraryService = libraryService;
@@ -34,13 +52,18 @@ public class ReportsView {
 
         Button overdueBtn = new Button("⚠ Sách quá hạn");
         overdueBtn.getStyleClass().add("danger-button");
-        overdueBtn.setOnAction(e -> showOverdueBooks());
+        overdueBtn.setOnAction(e -> showOverdueBooks(null));
+
+        nextOverduePageBtn = new Button("Trang tiếp ▶");
+        nextOverduePageBtn.getStyleClass().add("secondary-button");
+        nextOverduePageBtn.setVisible(false);
+        nextOverduePageBtn.setOnAction(e -> showOverdueBooks(nextOverdueCursor));
 
         Button statsBtn = new Button("📈 Thống kê tổng quan");
         statsBtn.getStyleClass().add("secondary-button");
         statsBtn.setOnAction(e -> showMonthlyStats());
 
-        buttonsRow.getChildren().addAll(popularBooksBtn, activeReadersBtn, overdueBtn, statsBtn);
+        buttonsRow.getChildren().addAll(popularBooksBtn, activeReadersBtn, overdueBtn, statsBtn, nextOverduePageBtn);
 
         // Report display area
         reportArea = new TextArea();
@@ -74,216 +97,205 @@ public class ReportsView {
     }
 
     private void showPopularBooks() {
+        loadReport(() -> libraryService.generatePopularBooksReport(5), this::formatPopularBooks);
+    }
+
+    private String formatPopularBooks(Report<List<BookStatistics>> stats) {
         StringBuilder report = new StringBuilder();
         report.append("╔════════════════════════════════════════╗\n");
         report.append("║   📊 TOP 5 SÁCH ĐƯỢC MƯỢN NHIỀU NHẤT   ║\n");
         report.append("╚════════════════════════════════════════╝\n\n");
 
-        try {
-            java.sql.Connection conn = database.config.DatabaseConfig.getConnection();
-            String sql = "SELECT b.isbn, b.title, b.author, COUNT(*) as borrow_count " +
-                    "FROM borrow_records br " +
-                    "JOIN books b ON br.isbn = b.isbn " +
-                    "GROUP BY b.isbn, b.title, b.author " +
-                    "ORDER BY borrow_count DESC " +
-                    "LIMIT 5";
-
-            java.sql.Statement stmt = conn.createStatement();
-            java.sql.ResultSet rs = stmt.executeQuery(sql);
-
+        if (stats != null) {
             int rank = 1;
-            while (rs.next()) {
-                String title = rs.getString("title");
-                String author = rs.getString("author");
-                int count = rs.getInt("borrow_count");
-
+            for (BookStatistics book : stats.getData()) {
+                if (book.getTotalBorrows() == 0) {
+                    break;
+                }
                 String medal = rank == 1 ? "🥇" : rank == 2 ? "🥈" : rank == 3 ? "🥉" : "  ";
-                report.append(String.format("%s #%d. %s\n", medal, rank, title));
-                report.append(String.format("      Tác giả: %s\n", author));
-                report.append(String.format("      Số lần mượn: %d lần\n\n", count));
+                report.append(String.format("%s #%d. %s\n", medal, rank, book.getTitle()));
+                report.append(String.format("      Tác giả: %s\n", book.getAuthor()));
+                report.append(String.format("      Số lần mượn: %d lần\n\n", book.getTotalBorrows()));
                 rank++;
             }
 
             if (rank == 1) {
                 report.append("   Chưa có dữ liệu mượn sách.\n");
             }
-
-            conn.close();
-
-        } catch (Exception e) {
-            report.append("❌ Lỗi: ").append(e.getMessage()).append("\n");
+        } else {
+            report.append("❌ Lỗi: không đọc được thống kê\n");
         }
 
-        report.append("\n════════════════════════════════════════\n");
-        report.append("Báo cáo tạo lúc: ").append(java.time.LocalDateTime.now()).append("\n");
+        appendTrending(report, "🔥 SÁCH HOT 7 NGÀY QUA", PopularityDimension.BOOK, PopularityWindow.LAST_7_DAYS, 5);
+        appendTrending(report, "✍ TÁC GIẢ 30 NGÀY QUA", PopularityDimension.AUTHOR, PopularityWindow.LAST_30_DAYS, 3);
+        appendTrending(report, "🏷 THỂ LOẠI 30 NGÀY QUA", PopularityDimension.CATEGORY, PopularityWindow.LAST_30_DAYS, 3);
 
-        reportArea.setText(report.toString());
+        appendFooter(report, stats);
+
+        return report.toString();
     }
 
     private void showActiveReaders() {
+        loadReport(() -> libraryService.generateActiveReadersReport(5), this::formatActiveReaders);
+    }
+
+    private String formatActiveReaders(Report<List<ReaderStatistics>> stats) {
         StringBuilder report = new StringBuilder();
         report.append("╔════════════════════════════════════╗\n");
         report.append("║   👑 TOP 5 ĐỘC GIẢ TÍCH CỰC NHẤT   ║\n");
         report.append("╚════════════════════════════════════╝\n\n");
 
-        try {
-            java.sql.Connection conn = database.config.DatabaseConfig.getConnection();
-            String sql = "SELECT reader_id, name, email, membership_type, total_borrowed " +
-                    "FROM readers " +
-                    "WHERE status = 'ACTIVE' " +
-                    "ORDER BY total_borrowed DESC " +
-                    "LIMIT 5";
-
-            java.sql.Statement stmt = conn.createStatement();
-            java.sql.ResultSet rs = stmt.executeQuery(sql);
-
+        if (stats != null) {
             int rank = 1;
-            while (rs.next()) {
-                String id = rs.getString("reader_id");
-                String name = rs.getString("name");
-                String type = rs.getString("membership_type");
-                int total = rs.getInt("total_borrowed");
-
+            for (ReaderStatistics reader : stats.getData()) {
                 String medal = rank == 1 ? "🥇" : rank == 2 ? "🥈" : rank == 3 ? "🥉" : "  ";
-                report.append(String.format("%s #%d. %s (%s)\n", medal, rank, name, id));
-                report.append(String.format("      Loại thẻ: %s\n", type));
-                report.append(String.format("      Tổng đã mượn: %d lần\n\n", total));
+                report.append(String.format("%s #%d. %s (%s)\n", medal, rank, reader.getName(), reader.getReaderId()));
+                report.append(String.format("      Loại thẻ: %s\n", reader.getMembershipType()));
+                report.append(String.format("      Tổng đã mượn: %d lần\n\n", reader.getTotalBorrowed()));
                 rank++;
             }
 
             if (rank == 1) {
                 report.append("   Chưa có độc giả nào.\n");
             }
+        } else {
+            report.append("❌ Lỗi: không đọc được thống kê\n");
+        }
 
-            conn.close();
+        appendTrending(report, "🔥 TÍCH CỰC 30 NGÀY QUA", PopularityDimension.READER, PopularityWindow.LAST_30_DAYS, 5);
 
-        } catch (Exception e) {
-            report.append("❌ Lỗi: ").append(e.getMessage()).append("\n");
-        }
+        appendFooter(report, stats);
 
-        report.append("\n════════════════════════════════════════\n");
-        report.append("Báo cáo tạo lúc: ").append(java.time.LocalDateTime.now()).append("\n");
+        return report.toString();
+    }
 
-        reportArea.setText(report.toString());
+    private void showOverdueBooks(String after) {
+        loadReport(() -> libraryService.generateOverdueReport(OVERDUE_PAGE_SIZE, after), this::formatOverdueBooks);
     }
 
-    private void showOverdueBooks() {
+    private String formatOverdueBooks(Report<OverdueReport> result) {
         StringBuilder report = new StringBuilder();
         report.append("╔═════════════════════════════════════╗\n");
         report.append("║      ⚠  DANH SÁCH SÁCH QUÁ HẠN      ║\n");
         report.append("╚═════════════════════════════════════╝\n\n");
 
-        var overdueList = libraryService.getOverdueRecords();
+        OverdueReport overdue = result != null ? result.getData() : null;
 
-        if (overdueList.isEmpty()) {
+        if (overdue == null) {
+            report.append("❌ Lỗi: không đọc được danh sách quá hạn\n");
+        } else if (overdue.getTotalCount() == 0) {
             report.append("✅ Không có sách quá hạn!\n\n");
             report.append("Tất cả độc giả đều trả sách đúng hạn.\n");
         } else {
-            report.append(String.format("Tổng số: %d phiếu mượn quá hạn\n\n", overdueList.size()));
+            report.append(String.format("Tổng số: %d phiếu mượn quá hạn\n\n", overdue.getTotalCount()));
 
-            int count = 1;
-            for (var record : overdueList) {
-                int daysLate = record.getDaysLate();
-                double fine = record.calculateFine();
-
-                report.append(String.format("%d. Phiếu: %s\n", count++, record.getRecordId()));
+            for (BorrowRecord record : overdue.getRecords()) {
+                report.append(String.format("• Phiếu: %s\n", record.getRecordId()));
                 report.append(String.format("   Độc giả: %s\n", record.getReader().getName()));
                 report.append(String.format("   Sách: %s\n", record.getBook().getTitle()));
                 report.append(String.format("   Hạn trả: %s\n", record.getDueDate()));
-                report.append(String.format("   ⏰ Trễ: %d ngày\n", daysLate));
-                report.append(String.format("   💰 Phí phạt: %,.0f VND\n\n", fine));
+                report.append(String.format("   ⏰ Trễ: %d ngày\n", record.getDaysLate()));
+                report.append(String.format("   💰 Phí phạt: %,.0f VND\n\n", record.getFine()));
             }
 
-            double totalFine = overdueList.stream()
-                    .mapToDouble(r -> r.calculateFine())
-                    .sum();
+            if (overdue.hasNext()) {
+                report.append("   ... còn tiếp, bấm \"Trang tiếp\" để xem\n\n");
+            }
             report.append("────────────────────────────────────────\n");
-            report.append(String.format("💰 Tổng phí phạt: %,.0f VND\n", totalFine));
+            report.append(String.format("💰 Tổng phí phạt: %,.0f VND\n", overdue.getTotalFines()));
         }
 
-        report.append("\n════════════════════════════════════════\n");
-        report.append("Báo cáo tạo lúc: ").append(java.time.LocalDateTime.now()).append("\n");
+        nextOverdueCursor = overdue != null ? overdue.getNextCursor() : null;
+        nextOverduePageBtn.setVisible(nextOverdueCursor != null);
+        appendFooter(report, result);
 
-        reportArea.setText(report.toString());
+        return report.toString();
     }
 
     private void showMonthlyStats() {
+        loadReport(libraryService::generateMonthlyStatistics, this::formatMonthlyStats);
+    }
+
+    private String formatMonthlyStats(Report<CirculationCounters> stats) {
         StringBuilder report = new StringBuilder();
         report.append("╔═══════════════════════════════════╗\n");
         report.append("║       📈 THỐNG KÊ TỔNG QUAN       ║\n");
         report.append("╚═══════════════════════════════════╝\n\n");
 
-        try {
-            java.sql.Connection conn = database.config.DatabaseConfig.getConnection();
-
-            // Total books
-            String sql1 = "SELECT COUNT(*) as count, SUM(available_copies) as available FROM books";
-            java.sql.Statement stmt1 = conn.createStatement();
-            java.sql.ResultSet rs1 = stmt1.executeQuery(sql1);
-            if (rs1.next()) {
-                report.append("📚 SÁCH\n");
-                report.append(String.format("   Tổng đầu sách: %d\n", rs1.getInt("count")));
-                report.append(String.format("   Sách có sẵn: %d\n\n", rs1.getInt("available")));
-            }
+        if (stats != null) {
+            CirculationCounters counters = stats.getData();
+            report.append("📚 SÁCH\n");
+            report.append(String.format("   Tổng đầu sách: %d\n", counters.getTotalBooks()));
+            report.append(String.format("   Sách có sẵn: %d\n\n", counters.getAvailableCopies()));
 
-            // Total readers
-            String sql2 = "SELECT COUNT(*) as total, " +
-                    "COUNT(*) FILTER (WHERE status = 'ACTIVE') as active FROM readers";
-            java.sql.Statement stmt2 = conn.createStatement();
-            java.sql.ResultSet rs2 = stmt2.executeQuery(sql2);
-            if (rs2.next()) {
-                report.append("👥 ĐỘC GIẢ\n");
-                report.append(String.format("   Tổng số: %d\n", rs2.getInt("total")));
-                report.append(String.format("   Đang hoạt động: %d\n\n", rs2.getInt("active")));
-            }
+            report.append("👥 ĐỘC GIẢ\n");
+            report.append(String.format("   Tổng số: %d\n", counters.getTotalReaders()));
+            report.append(String.format("   Đang hoạt động: %d\n\n", counters.getActiveReaders()));
 
-            // Borrow statistics
-            String sql3 = "SELECT COUNT(*) as total, " +
-                    "COUNT(*) FILTER (WHERE status = 'BORROWED') as borrowed, " +
-                    "COUNT(*) FILTER (WHERE status = 'RETURNED') as returned FROM borrow_records";
-            java.sql.Statement stmt3 = conn.createStatement();
-            java.sql.ResultSet rs3 = stmt3.executeQuery(sql3);
-            if (rs3.next()) {
-                report.append("🔄 MƯỢN/TRẢ\n");
-                report.append(String.format("   Tổng giao dịch: %d\n", rs3.getInt("total")));
-                report.append(String.format("   Đang mượn: %d\n", rs3.getInt("borrowed")));
-                report.append(String.format("   Đã trả: %d\n\n", rs3.getInt("returned")));
-            }
+            report.append("🔄 MƯỢN/TRẢ\n");
+            report.append(String.format("   Tổng giao dịch: %d\n", counters.getTotalLoans()));
+            report.append(String.format("   Đang mượn: %d\n", counters.getActiveLoans()));
+            report.append(String.format("   Đã trả: %d\n", counters.getReturnedLoans()));
+            report.append(String.format("   Mượn trong tháng: %d\n\n", counters.getBorrowsThisMonth()));
 
-            // Overdue
-            String sql4 = "SELECT COUNT(*) as count FROM borrow_records " +
-                    "WHERE status = 'BORROWED' AND due_date < CURRENT_DATE";
-            java.sql.Statement stmt4 = conn.createStatement();
-            java.sql.ResultSet rs4 = stmt4.executeQuery(sql4);
-            if (rs4.next()) {
-                int overdueCount = rs4.getInt("count");
-                report.append("⚠  QUÁ HẠN\n");
-                report.append(String.format("   Số sách quá hạn: %d\n\n", overdueCount));
-            }
+            report.append("⚠  QUÁ HẠN\n");
+            report.append(String.format("   Số sách quá hạn: %d\n\n", counters.getOverdueLoans()));
 
-            // Most active day
-            String sql5 = "SELECT DATE(borrow_date) as day, COUNT(*) as count " +
-                    "FROM borrow_records " +
-                    "WHERE borrow_date >= CURRENT_DATE - INTERVAL '30 days' " +
-                    "GROUP BY DATE(borrow_date) " +
-                    "ORDER BY count DESC LIMIT 1";
-            java.sql.Statement stmt5 = conn.createStatement();
-            java.sql.ResultSet rs5 = stmt5.executeQuery(sql5);
-            if (rs5.next()) {
+            if (counters.getBusiestDay() != null) {
                 report.append("📊 THỐNG KÊ BỔ SUNG\n");
                 report.append(String.format("   Ngày có nhiều giao dịch nhất: %s (%d giao dịch)\n",
-                        rs5.getDate("day"), rs5.getInt("count")));
+                        counters.getBusiestDay(), counters.getBusiestDayBorrows()));
             }
+        } else {
+            report.append("❌ Lỗi: không đọc được thống kê\n");
+        }
 
-            conn.close();
+        appendFooter(report, stats);
 
-        } catch (Exception e) {
-            report.append("❌ Lỗi: ").append(e.getMessage()).append("\n");
+        return report.toString();
+    }
+
+    /**
+     * Build a report in the background and show it formatted; a report
+     * requested meanwhile replaces this one
+     */
+    private <T> void loadReport(Callable<Report<T>> build, Function<Report<T>, String> format) {
+        nextOverduePageBtn.setVisible(false);
+        reportArea.setText("⏳ Đang tạo báo cáo...");
+        ViewTasks.run("report", build,
+                result -> reportArea.setText(format.apply(result)),
+                e -> reportArea.setText("❌ Lỗi khi tạo báo cáo: " + e.getMessage()));
+    }
+
+    private void appendTrending(StringBuilder report, String title, PopularityDimension dimension,
+                                PopularityWindow window, int limit) {
+        List<PopularityEntry> entries = libraryService.getTrending(dimension, window, limit);
+        if (entries.isEmpty()) {
+            return;
+        }
+        report.append("\n").append(title).append("\n");
+        for (PopularityEntry entry : entries) {
+            // Counts are estimates; "~" marks one that may be off by up to its error
+            report.append(String.format("   %s%d lượt - %s\n",
+                    entry.isExact() ? "" : "~", entry.getCount(), entry.getLabel()));
         }
+    }
 
-        report.append("\n════════════════════════════════════════\n");
-        report.append("Báo cáo tạo lúc: ").append(java.time.LocalDateTime.now()).append("\n");
+    private void appendFooter(StringBuilder report, Report<?> result) {
+        if (result != null && !result.isLive()) {
+            if (result.getDataAsOf() == null) {
+                report.append("\n(Số liệu chưa được tính lần nào)\n");
+            } else {
+                report.append(String.format("\n(Số liệu tính lúc %s, cập nhật mỗi %d phút%s)\n",
+                        result.getDataAsOf().withNano(0),
+                        Math.max(1, result.getRefreshInterval().toMinutes()),
+                        result.isRefreshLate() ? " - đang trễ" : ""));
+            }
+        }
 
-        reportArea.setText(report.toString());
+        report.append("\n════════════════════════════════════════\n");
+        report.append("Báo cáo tạo lúc: ")
+                .append(result != null ? result.getGeneratedAt().withNano(0) : java.time.LocalDateTime.now().withNano(0))
+                .append("\n");
     }
 }
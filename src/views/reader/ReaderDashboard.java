@@ -1,7 +1,9 @@
 package views.reader;
 
+import database.dao.PageQuery;
 import database.impl.LibraryService;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -13,10 +15,16 @@ import models.BorrowRecord;
 import models.books.Book;
 import models.enums.BorrowStatus;
 import models.people.*;
+import search.SearchField;
+import views.AutocompleteField;
 import views.BaseDashboard;
+import views.KeyedObservableList;
+import views.PagedTableSource;
+import views.ViewTasks;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -135,19 +143,10 @@ class ReaderOverview {
         HBox row = new HBox(20);
         row.setAlignment(Pos.CENTER);
 
-        List<BorrowRecord> myRecords = libraryService.getBorrowHistory(currentReader.getId());
-        long activeBorrows = myRecords.stream()
-                .filter(r -> r.getStatus() == BorrowStatus.BORROWED)
-                .count();
-
-        long overdue = myRecords.stream()
-                .filter(BorrowRecord::isOverdue)
-                .count();
-
         // Currently Borrowing
         VBox borrowingCard = createStatCard(
                 "📚",
-                String.valueOf(activeBorrows) + "/" + currentReader.getMembershipType().getBorrowLimit(),
+                ViewTasks.LOADING + "/" + currentReader.getMembershipType().getBorrowLimit(),
                 "Đang mượn",
                 "linear-gradient(to bottom right, #667eea 0%, #764ba2 100%)"
         );
@@ -163,11 +162,9 @@ class ReaderOverview {
         // Overdue
         VBox overdueCard = createStatCard(
                 "⚠",
-                String.valueOf(overdue),
+                ViewTasks.LOADING,
                 "Quá hạn",
-                overdue > 0 ?
-                        "linear-gradient(to bottom right, #fa709a 0%, #fee140 100%)" :
-                        "linear-gradient(to bottom right, #43e97b 0%, #38f9d7 100%)"
+                "linear-gradient(to bottom right, #43e97b 0%, #38f9d7 100%)"
         );
 
         // Membership
@@ -184,18 +181,40 @@ class ReaderOverview {
         HBox.setHgrow(overdueCard, Priority.ALWAYS);
         HBox.setHgrow(memberCard, Priority.ALWAYS);
 
+        ViewTasks.run("reader-stats", () -> libraryService.getBorrowHistory(currentReader.getId()), myRecords -> {
+            long activeBorrows = myRecords.stream()
+                    .filter(r -> r.getStatus().isOpen())
+                    .count();
+
+            long overdue = myRecords.stream()
+                    .filter(BorrowRecord::isOverdue)
+                    .count();
+
+            setStatNumber(borrowingCard, activeBorrows + "/" + currentReader.getMembershipType().getBorrowLimit());
+            setStatNumber(overdueCard, String.valueOf(overdue));
+            if (overdue > 0) {
+                overdueCard.setStyle(statCardStyle("linear-gradient(to bottom right, #fa709a 0%, #fee140 100%)"));
+            }
+        });
+
         return row;
     }
 
+    private String statCardStyle(String gradient) {
+        return "-fx-background-radius: 15px; " +
+                "-fx-background-color: " + gradient + "; " +
+                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 10, 0, 0, 3);";
+    }
+
+    private void setStatNumber(VBox card, String number) {
+        ((Label) card.getChildren().get(1)).setText(number);
+    }
+
     private VBox createStatCard(String icon, String number, String label, String gradient) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
         card.setPadding(new Insets(30));
-        card.setStyle(
-                "-fx-background-radius: 15px; " +
-                        "-fx-background-color: " + gradient + "; " +
-                        "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.15), 10, 0, 0, 3);"
-        );
+        card.setStyle(statCardStyle(gradient));
         card.setMaxWidth(Double.MAX_VALUE);
 
         Label iconLabel = new Label(icon);
@@ -274,26 +293,29 @@ class ReaderOverview {
         activityList.setPrefHeight(250);
 
         ObservableList<String> activities = FXCollections.observableArrayList();
+        List<BorrowRecord> recentRecords = new ArrayList<>();
+        activityList.setPlaceholder(new Label("Đang tải dữ liệu..."));
 
-        List<BorrowRecord> recentRecords = libraryService.getBorrowHistory(currentReader.getId())
+        ViewTasks.run("reader-recent", () -> libraryService.getBorrowHistory(currentReader.getId())
                 .stream()
                 .sorted((a, b) -> b.getBorrowDate().compareTo(a.getBorrowDate()))
                 .limit(10)
-                .collect(Collectors.toList());
-
-        for (BorrowRecord record : recentRecords) {
-            String status = record.getStatus() == BorrowStatus.BORROWED ? "Đang mượn" : "Đã trả";
-            String activity = String.format("📖 %s - '%s' - %s",
-                    record.getBorrowDate(),
-                    record.getBook().getTitle(),
-                    status
-            );
-            activities.add(activity);
-        }
+                .collect(Collectors.toList()), records -> {
+            recentRecords.addAll(records);
+            for (BorrowRecord record : records) {
+                String status = record.getStatus().getDescription();
+                String activity = String.format("📖 %s - '%s' - %s",
+                        record.getBorrowDate(),
+                        record.getBook().getTitle(),
+                        status
+                );
+                activities.add(activity);
+            }
 
-        if (activities.isEmpty()) {
-            activities.add("Chưa có hoạt động nào");
-        }
+            if (activities.isEmpty()) {
+                activities.add("Chưa có hoạt động nào");
+            }
+        });
 
         activityList.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2) {
@@ -307,8 +329,6 @@ class ReaderOverview {
 
         activityList.setItems(activities);
 
-        activityList.setItems(activities);
-
         card.getChildren().addAll(title, activityList);
 
         return card;
@@ -334,6 +354,8 @@ class ReaderOverview {
 
 // Book Search View for Readers
 class BookSearchView {
+    private static final int SEARCH_LIMIT = 100;
+
     private LibraryService libraryService;
     private TableView<Book> bookTable;
     private ObservableList<Book> bookData;
@@ -342,7 +364,8 @@ class BookSearchView {
 
     public BookSearchView(LibraryService libraryService) {
         this.libraryService = libraryService;
-        this.bookData = FXCollections.observableArrayList();
+        this.bookData = new KeyedObservableList<>(Book::getISBN, Book::getTitle, Book::getAuthor,
+                Book::getCategory, Book::getAvailableCopies, Book::getTotalCopies);
     }
 
     public VBox createView() {
@@ -368,8 +391,8 @@ class BookSearchView {
         label.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
 
         searchTypeCombo = new ComboBox<>();
-        searchTypeCombo.getItems().addAll("Tên sách", "Tác giả", "ISBN", "Thể loại");
-        searchTypeCombo.setValue("Tên sách");
+        searchTypeCombo.getItems().addAll("Tất cả", "Tên sách", "Tác giả", "ISBN", "Thể loại");
+        searchTypeCombo.setValue("Tất cả");
         searchTypeCombo.setPrefWidth(120);
 
         searchField = new TextField();
@@ -389,6 +412,12 @@ class BookSearchView {
         // Enter to search
         searchField.setOnAction(e -> performSearch());
 
+        // Suggest popular titles and authors while typing; a pick searches that field
+        new AutocompleteField(searchField, libraryService::suggestBooks, completion -> {
+            searchTypeCombo.setValue(completion.getField() == SearchField.AUTHOR ? "Tác giả" : "Tên sách");
+            performSearch();
+        });
+
         return bar;
     }
 
@@ -469,33 +498,65 @@ class BookSearchView {
         }
 
         String searchType = searchTypeCombo.getValue();
-        List<Book> results = null;
-
-        switch (searchType) {
-            case "Tên sách":
-                results = libraryService.searchByTitle(keyword);
-                break;
-            case "Tác giả":
-                results = libraryService.searchByAuthor(keyword);
-                break;
-            case "ISBN":
-                Book book = libraryService.searchByISBN(keyword);
-                results = book != null ? List.of(book) : List.of();
-                break;
-            case "Thể loại":
-                results = libraryService.searchByCategory(keyword);
-                break;
-        }
 
-        bookData.setAll(results);
+        // Same key as showAllBooks: whichever was requested last fills the table
+        bookTable.setPlaceholder(new Label("Đang tìm kiếm..."));
+        ViewTasks.run("reader-book-search", () -> {
+            switch (searchType) {
+                case "Tất cả":
+                    return libraryService.searchBooks(keyword, SEARCH_LIMIT);
+                case "Tên sách":
+                    return libraryService.searchByTitle(keyword, SEARCH_LIMIT);
+                case "Tác giả":
+                    return libraryService.searchByAuthor(keyword, SEARCH_LIMIT);
+                case "ISBN":
+                    Book book = libraryService.searchByISBN(keyword);
+                    return book != null ? List.of(book) : List.<Book>of();
+                case "Thể loại":
+                    return libraryService.searchByCategory(keyword, SEARCH_LIMIT);
+                default:
+                    return List.<Book>of();
+            }
+        }, results -> {
+            if (results.isEmpty() && !"ISBN".equals(searchType) && !"Thể loại".equals(searchType)) {
+                // Maybe a typo: look for close spellings before giving up
+                performFuzzySearch(keyword, searchType);
+                return;
+            }
+            bookData.setAll(results);
+            bookTable.setPlaceholder(new Label("Không có dữ liệu"));
 
-        if (results.isEmpty()) {
-            showInfo("Không tìm thấy sách nào!");
-        }
+            if (results.isEmpty()) {
+                showInfo("Không tìm thấy sách nào!");
+            }
+        }, e -> showError("Lỗi tìm kiếm: " + e.getMessage()));
+    }
+
+    private void performFuzzySearch(String keyword, String searchType) {
+        ViewTasks.run("reader-book-search", () -> {
+            switch (searchType) {
+                case "Tên sách":
+                    return libraryService.searchByTitleFuzzy(keyword, SEARCH_LIMIT);
+                case "Tác giả":
+                    return libraryService.searchByAuthorFuzzy(keyword, SEARCH_LIMIT);
+                default:
+                    return libraryService.searchBooksFuzzy(keyword, SEARCH_LIMIT);
+            }
+        }, results -> {
+            bookData.setAll(results);
+            bookTable.setPlaceholder(new Label("Không có dữ liệu"));
+
+            if (results.isEmpty()) {
+                showInfo("Không tìm thấy sách nào!");
+            } else {
+                showInfo("Không có kết quả khớp chính xác với \"" + keyword + "\". Hiển thị " +
+                        results.size() + " kết quả gần đúng.");
+            }
+        }, e -> showError("Lỗi tìm kiếm: " + e.getMessage()));
     }
 
     private void showAllBooks() {
-        bookData.setAll(libraryService.getBooks());
+        ViewTasks.loadTable("reader-book-search", bookTable, libraryService::getBooks);
     }
 
     private void showBookDetails(Book book) {
@@ -539,13 +600,9 @@ class MyBorrowedBooksView {
     public MyBorrowedBooksView(LibraryService libraryService, Reader currentReader) {
         this.libraryService = libraryService;
         this.currentReader = currentReader;
-
-        List<BorrowRecord> activeBorrows = libraryService.getBorrowHistory(currentReader.getId())
-                .stream()
-                .filter(r -> r.getStatus() == BorrowStatus.BORROWED)
-                .collect(Collectors.toList());
-
-        this.borrowData = FXCollections.observableArrayList(activeBorrows);
+        this.borrowData = new KeyedObservableList<>(BorrowRecord::getRecordId, BorrowRecord::getStatus,
+                BorrowRecord::getDueDate, BorrowRecord::getReturnDate, BorrowRecord::getRenewalCount,
+                BorrowRecord::getFine);
     }
 
     public VBox createView() {
@@ -557,6 +614,7 @@ class MyBorrowedBooksView {
         // Borrowed books table
         borrowTable = createBorrowTable();
         VBox.setVgrow(borrowTable, Priority.ALWAYS);
+        refreshTable();
 
         // Action buttons
         HBox actionBar = createActionBar();
@@ -571,14 +629,23 @@ class MyBorrowedBooksView {
         card.getStyleClass().add("card");
         card.setAlignment(Pos.CENTER_LEFT);
 
-        Label borrowingLabel = new Label("Đang mượn: " + borrowData.size() + "/" +
-                currentReader.getMembershipType().getBorrowLimit());
+        Label borrowingLabel = new Label();
         borrowingLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
-        long overdue = borrowData.stream().filter(BorrowRecord::isOverdue).count();
-        Label overdueLabel = new Label("Quá hạn: " + overdue);
-        overdueLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; " +
-                (overdue > 0 ? "-fx-text-fill: #ef4444;" : "-fx-text-fill: #22c55e;"));
+        Label overdueLabel = new Label();
+
+        // Rows arrive in the background; keep the counts in step with the table
+        Runnable update = () -> {
+            borrowingLabel.setText("Đang mượn: " + borrowData.size() + "/" +
+                    currentReader.getMembershipType().getBorrowLimit());
+
+            long overdue = borrowData.stream().filter(BorrowRecord::isOverdue).count();
+            overdueLabel.setText("Quá hạn: " + overdue);
+            overdueLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; " +
+                    (overdue > 0 ? "-fx-text-fill: #ef4444;" : "-fx-text-fill: #22c55e;"));
+        };
+        update.run();
+        borrowData.addListener((ListChangeListener<BorrowRecord>) change -> update.run());
 
         card.getChildren().addAll(borrowingLabel, overdueLabel);
 
@@ -698,10 +765,13 @@ class MyBorrowedBooksView {
                     return;
                 }
 
-                if (libraryService.extendBorrow(selected.getRecordId(), numDays)) {
-                    showSuccess("Gia hạn thành công!");
-                    refreshTable();
-                }
+                ViewTasks.run("reader-renew", () -> libraryService.extendBorrow(selected.getRecordId(), numDays),
+                        extended -> {
+                            if (extended) {
+                                showSuccess("Gia hạn thành công!");
+                                refreshTable();
+                            }
+                        }, ex -> showError("Lỗi khi gia hạn: " + ex.getMessage()));
             } catch (NumberFormatException ex) {
                 showError("Số ngày không hợp lệ!");
             }
@@ -709,11 +779,10 @@ class MyBorrowedBooksView {
     }
 
     private void refreshTable() {
-        List<BorrowRecord> activeBorrows = libraryService.getBorrowHistory(currentReader.getId())
+        ViewTasks.loadTable("reader-my-books", borrowTable, () -> libraryService.getBorrowHistory(currentReader.getId())
                 .stream()
-                .filter(r -> r.getStatus() == BorrowStatus.BORROWED)
-                .collect(Collectors.toList());
-        borrowData.setAll(activeBorrows);
+                .filter(r -> r.getStatus().isOpen())
+                .collect(Collectors.toList()));
     }
 
     private void showSuccess(String message) {
@@ -736,14 +805,11 @@ class BorrowHistoryView {
     private LibraryService libraryService;
     private Reader currentReader;
     private TableView<BorrowRecord> historyTable;
-    private ObservableList<BorrowRecord> historyData;
-    private List<BorrowRecord> allRecords;
+    private PagedTableSource<BorrowRecord> historySource;
 
     public BorrowHistoryView(LibraryService libraryService, Reader currentReader) {
         this.libraryService = libraryService;
         this.currentReader = currentReader;
-        this.allRecords = libraryService.getBorrowHistory(currentReader.getId());
-        this.historyData = FXCollections.observableArrayList(allRecords);
     }
 
     public VBox createView() {
@@ -758,6 +824,15 @@ class BorrowHistoryView {
 
         view.getChildren().addAll(filterBar, historyTable);
 
+        // This reader's records only, read page by page as the table scrolls
+        historySource = new PagedTableSource<>(historyTable,
+                PageQuery.DEFAULT.withFilter("readerId", currentReader.getId()),
+                libraryService::getBorrowRecordsPage);
+        List<TableColumn<BorrowRecord, ?>> columns = historyTable.getColumns();
+        historySource.bindSort(columns.get(0), "title");
+        historySource.bindSort(columns.get(1), "borrowDate");
+        historySource.bindSort(columns.get(2), "dueDate");
+
         return view;
     }
 
@@ -776,7 +851,7 @@ class BorrowHistoryView {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        Label totalLabel = new Label("Tổng: " + historyData.size() + " lượt");
+        Label totalLabel = new Label("Tổng: " + currentReader.getTotalBorrowed() + " lượt");
         totalLabel.setStyle("-fx-font-size: 14px;");
 
         bar.getChildren().addAll(label, filterCombo, spacer, totalLabel);
@@ -786,7 +861,6 @@ class BorrowHistoryView {
 
     private TableView<BorrowRecord> createHistoryTable() {
         TableView<BorrowRecord> table = new TableView<>();
-        table.setItems(historyData);
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         // Book Title
@@ -875,26 +949,13 @@ class BorrowHistoryView {
     }
 
     private void filterHistory(String filter) {
-        switch (filter) {
-            case "Tất cả":
-                historyData.setAll(allRecords);
-                break;
-            case "Đang mượn":
-                historyData.setAll(allRecords.stream()
-                        .filter(r -> r.getStatus() == BorrowStatus.BORROWED)
-                        .collect(Collectors.toList()));
-                break;
-            case "Đã trả":
-                historyData.setAll(allRecords.stream()
-                        .filter(r -> r.getStatus() == BorrowStatus.RETURNED)
-                        .collect(Collectors.toList()));
-                break;
-            case "Quá hạn":
-                historyData.setAll(allRecords.stream()
-                        .filter(BorrowRecord::isOverdue)
-                        .collect(Collectors.toList()));
-                break;
-        }
+        String status = switch (filter) {
+            case "Đang mượn" -> "OPEN";
+            case "Đã trả" -> BorrowStatus.RETURNED.name();
+            case "Quá hạn" -> BorrowStatus.OVERDUE.name();
+            default -> null;
+        };
+        historySource.setFilter("status", status);
     }
 
     private void showRecordDetails(BorrowRecord record) {